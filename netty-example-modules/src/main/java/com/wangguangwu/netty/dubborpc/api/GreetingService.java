@@ -1,5 +1,8 @@
 package com.wangguangwu.netty.dubborpc.api;
 
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 问候服务接口
  * 定义了RPC服务的方法
@@ -15,4 +18,23 @@ public interface GreetingService {
      * @return 格式化的问候语
      */
     String greet(String name);
+
+    /**
+     * 异步问候方法
+     * 返回 CompletableFuture 的方法由客户端代理异步调用，不阻塞调用方线程
+     *
+     * @param name 接收问候的名称
+     * @return 格式化问候语的异步结果
+     */
+    CompletableFuture<String> greetAsync(String name);
+
+    /**
+     * 流式问候方法
+     * 返回 Iterator 的方法为流式调用，服务端按客户端的消费速度逐条发送问候语
+     *
+     * @param name  接收问候的名称
+     * @param count 问候的次数
+     * @return 问候语序列
+     */
+    Iterator<String> greetStream(String name, int count);
 }
@@ -0,0 +1,20 @@
+package com.wangguangwu.netty.dubborpc.benchmark;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 回显服务接口
+ * 压测使用的服务，服务端不做任何处理，测得的延迟即RPC框架本身的开销
+ *
+ * @author wangguangwu
+ */
+public interface EchoService {
+
+    /**
+     * 原样返回请求内容
+     *
+     * @param payload 请求内容
+     * @return 请求内容的异步结果
+     */
+    CompletableFuture<String> echo(String payload);
+}
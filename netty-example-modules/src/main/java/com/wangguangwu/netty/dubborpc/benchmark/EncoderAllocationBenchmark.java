@@ -0,0 +1,116 @@
+package com.wangguangwu.netty.dubborpc.benchmark;
+
+import com.wangguangwu.netty.dubborpc.codec.RpcEncoder;
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import com.wangguangwu.netty.dubborpc.serialize.JSONSerializer;
+import com.wangguangwu.netty.dubborpc.serialize.Serializer;
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.MessageToByteEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编码器内存分配基准测试
+ * 对比"先序列化为字节数组再复制"的旧编码方式与"直接写入ByteBuf并回填长度"的新编码方式
+ * <p>
+ * 运行 main 方法即可，结果中的 gc.alloc.rate.norm 表示每次编码分配的字节数。
+ *
+ * @author wangguangwu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncoderAllocationBenchmark {
+
+    /**
+     * 响应结果的字符数
+     */
+    @Param({"64", "4096"})
+    private int payloadSize;
+
+    private EmbeddedChannel byteArrayChannel;
+
+    private EmbeddedChannel directChannel;
+
+    private RpcResponse response;
+
+    @Setup
+    public void setup() {
+        Serializer serializer = new JSONSerializer();
+        byteArrayChannel = new EmbeddedChannel(new ByteArrayRpcEncoder(serializer));
+        directChannel = new EmbeddedChannel(new RpcEncoder(RpcResponse.class, serializer, SerializerRegistry.getINSTANCE()));
+
+        response = new RpcResponse();
+        response.setRequestId(1L);
+        response.setResult("x".repeat(payloadSize));
+    }
+
+    @TearDown
+    public void tearDown() {
+        byteArrayChannel.finishAndReleaseAll();
+        directChannel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int byteArrayEncoder() {
+        return encode(byteArrayChannel);
+    }
+
+    @Benchmark
+    public int directEncoder() {
+        return encode(directChannel);
+    }
+
+    private int encode(EmbeddedChannel channel) {
+        channel.writeOutbound(response);
+        ByteBuf buf = channel.readOutbound();
+        int size = buf.readableBytes();
+        buf.release();
+        return size;
+    }
+
+    /**
+     * 旧编码方式：先序列化为字节数组，再写入长度并复制到输出缓冲区
+     */
+    private static class ByteArrayRpcEncoder extends MessageToByteEncoder<RpcResponse> {
+
+        private final Serializer serializer;
+
+        ByteArrayRpcEncoder(Serializer serializer) {
+            this.serializer = serializer;
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, RpcResponse msg, ByteBuf out) {
+            byte[] data = serializer.serialize(msg);
+            out.writeShort(RpcProtocol.MAGIC);
+            out.writeByte(RpcProtocol.VERSION);
+            out.writeByte(RpcProtocol.TYPE_RESPONSE);
+            out.writeByte(serializer.getSerializerId());
+            out.writeByte(msg.getStatus());
+            out.writeLong(msg.getRequestId());
+            out.writeInt(data.length);
+            out.writeBytes(data);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(EncoderAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
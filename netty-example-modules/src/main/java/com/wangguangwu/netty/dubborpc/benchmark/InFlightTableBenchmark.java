@@ -0,0 +1,101 @@
+package com.wangguangwu.netty.dubborpc.benchmark;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import com.wangguangwu.netty.dubborpc.transport.InFlightRequestTable;
+import com.wangguangwu.netty.dubborpc.transport.RpcFuture;
+import com.wangguangwu.netty.dubborpc.transport.RpcRequestManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进行中请求表基准测试
+ * 16 个调用线程共享同一个连接的请求表，每次操作完成一次"注册请求 -> 收到响应后移除并通知"
+ * <p>
+ * 对比旧的 {@code ConcurrentHashMap<Long, RpcFuture>}、分段的 {@link InFlightRequestTable}，
+ * 以及包含时间轮超时登记的完整 {@link RpcRequestManager} 路径。
+ *
+ * @author wangguangwu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class InFlightTableBenchmark {
+
+    private final Map<Long, RpcFuture> concurrentHashMap = new ConcurrentHashMap<>();
+
+    private final InFlightRequestTable inFlightTable = new InFlightRequestTable();
+
+    private final RpcRequestManager requestManager = new RpcRequestManager();
+
+    /**
+     * 每个调用线程预先占有一批进行中的请求，模拟表中常驻的未完成调用
+     */
+    @State(Scope.Thread)
+    public static class Caller {
+
+        private static final int RESIDENT = 64;
+
+        private final RpcRequest request = new RpcRequest();
+
+        private final RpcResponse response = new RpcResponse();
+
+        @Setup
+        public void setup(InFlightTableBenchmark benchmark) {
+            for (int i = 0; i < RESIDENT; i++) {
+                long requestId = benchmark.requestManager.nextRequestId();
+                RpcFuture future = new RpcFuture(request);
+                benchmark.concurrentHashMap.put(requestId, future);
+                benchmark.inFlightTable.put(requestId, future);
+            }
+        }
+    }
+
+    @Benchmark
+    public RpcFuture concurrentHashMap(Caller caller) {
+        long requestId = requestManager.nextRequestId();
+        RpcFuture future = new RpcFuture(caller.request);
+        concurrentHashMap.put(requestId, future);
+        RpcFuture removed = concurrentHashMap.remove(requestId);
+        removed.setResponse(caller.response);
+        return removed;
+    }
+
+    @Benchmark
+    public RpcFuture inFlightTable(Caller caller) {
+        long requestId = requestManager.nextRequestId();
+        RpcFuture future = new RpcFuture(caller.request);
+        inFlightTable.put(requestId, future);
+        RpcFuture removed = inFlightTable.remove(requestId);
+        removed.setResponse(caller.response);
+        return removed;
+    }
+
+    @Benchmark
+    public RpcFuture requestManager(Caller caller) {
+        long requestId = requestManager.nextRequestId();
+        RpcFuture future = new RpcFuture(caller.request);
+        requestManager.registerRequest(requestId, future);
+        requestManager.notifyResponse(requestId, caller.response);
+        return future;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(InFlightTableBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,216 @@
+package com.wangguangwu.netty.dubborpc.benchmark;
+
+import com.wangguangwu.netty.dubborpc.proxy.RpcClientProxy;
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
+import com.wangguangwu.netty.dubborpc.transport.client.NettyClient;
+import com.wangguangwu.netty.dubborpc.transport.server.NettyServer;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RPC压测工具
+ * 以固定的并发数和流水线深度持续调用 {@link EchoService}，统计吞吐量和 HdrHistogram 延迟分位数
+ * <p>
+ * 参数以 key=value 形式传入，均可省略：
+ * <ul>
+ *     <li>concurrency：调用线程数，默认16</li>
+ *     <li>depth：每个调用线程同时在途的请求数（流水线深度），默认1</li>
+ *     <li>payload：请求内容的字节数，默认128</li>
+ *     <li>duration：压测时长（秒），默认30</li>
+ *     <li>warmup：预热时长（秒），预热期间的结果不计入统计，默认5</li>
+ *     <li>connections：客户端连接数，默认1</li>
+ *     <li>host/port：目标服务端地址，不指定 host 时在本进程内启动一个 NettyServer，默认端口18080</li>
+ * </ul>
+ * 例如：{@code concurrency=32 depth=8 payload=1024 duration=60}
+ *
+ * @author wangguangwu
+ */
+public class LoadGenerator {
+
+    /**
+     * 单次调用超时时间（毫秒）
+     */
+    private static final long CALL_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * 延迟统计上限（纳秒），超过上限的值按上限记录
+     */
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final int concurrency;
+
+    private final int depth;
+
+    private final int payloadSize;
+
+    private final int durationSeconds;
+
+    private final int warmupSeconds;
+
+    private final int connections;
+
+    private final String host;
+
+    private final int port;
+
+    /**
+     * 延迟记录器，支持多线程并发记录
+     */
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+
+    /**
+     * 调用失败次数
+     */
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * 压测是否仍在进行
+     */
+    private volatile boolean running = true;
+
+    private LoadGenerator(Map<String, String> options) {
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        this.depth = Integer.parseInt(options.getOrDefault("depth", "1"));
+        this.payloadSize = Integer.parseInt(options.getOrDefault("payload", "128"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        this.warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        this.connections = Integer.parseInt(options.getOrDefault("connections", "1"));
+        this.host = options.get("host");
+        this.port = Integer.parseInt(options.getOrDefault("port", "18080"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("参数格式应为 key=value: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        new LoadGenerator(options).run();
+    }
+
+    private void run() throws Exception {
+        System.out.printf("并发数=%d, 流水线深度=%d, 请求大小=%d字节, 时长=%ds, 预热=%ds, 连接数=%d, 目标=%s%n",
+                concurrency, depth, payloadSize, durationSeconds, warmupSeconds, connections,
+                host == null ? "本地服务端:" + port : host + ":" + port);
+
+        NettyServer server = null;
+        NettyClient client = null;
+        try {
+            if (host == null) {
+                server = startLocalServer();
+            }
+            client = new NettyClient(host == null ? "127.0.0.1" : host, port,
+                    SerializerRegistry.getINSTANCE().getDefaultSerializer(), connections);
+            client.start();
+            EchoService echoService = new RpcClientProxy(client, CALL_TIMEOUT_MILLIS).getProxy(EchoService.class);
+
+            Thread[] callers = startCallers(echoService);
+
+            // 预热
+            TimeUnit.SECONDS.sleep(warmupSeconds);
+            recorder.reset();
+            errors.reset();
+
+            // 正式压测，每秒输出一次区间统计
+            Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+            Histogram interval = null;
+            long start = System.nanoTime();
+            for (int second = 1; second <= durationSeconds; second++) {
+                TimeUnit.NANOSECONDS.sleep(start + TimeUnit.SECONDS.toNanos(second) - System.nanoTime());
+                interval = recorder.getIntervalHistogram(interval);
+                total.add(interval);
+                System.out.printf("[%3ds] %,10d ops/s  p50=%8.1fus  p99=%8.1fus%n", second, interval.getTotalCount(),
+                        micros(interval.getValueAtPercentile(50)), micros(interval.getValueAtPercentile(99)));
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            running = false;
+            for (Thread caller : callers) {
+                caller.join();
+            }
+
+            System.out.println("---------------------------------------------");
+            System.out.printf("请求总数: %,d, 失败: %,d%n", total.getTotalCount(), errors.sum());
+            System.out.printf("吞吐量: %,.0f ops/s%n", total.getTotalCount() * 1e9 / elapsedNanos);
+            System.out.printf("延迟(us): p50=%.1f p90=%.1f p99=%.1f p999=%.1f max=%.1f%n",
+                    micros(total.getValueAtPercentile(50)), micros(total.getValueAtPercentile(90)),
+                    micros(total.getValueAtPercentile(99)), micros(total.getValueAtPercentile(99.9)),
+                    micros(total.getMaxValue()));
+            System.out.println("客户端 " + client.getFlushStats());
+            if (server != null) {
+                System.out.println("服务端 " + server.getFlushStats());
+            }
+        } finally {
+            if (client != null) {
+                client.shutdown();
+            }
+            if (server != null) {
+                server.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 在本进程内启动服务端
+     */
+    private NettyServer startLocalServer() throws InterruptedException {
+        NettyServer server = new NettyServer(port);
+        server.registerService(EchoService.class, (EchoService) CompletableFuture::completedFuture);
+        Thread serverThread = new Thread(server::start, "load-generator-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        // 等待服务端完成端口绑定
+        TimeUnit.SECONDS.sleep(1);
+        return server;
+    }
+
+    /**
+     * 启动调用线程，每个线程最多保持 depth 个在途请求
+     */
+    private Thread[] startCallers(EchoService echoService) {
+        String payload = "x".repeat(payloadSize);
+        Thread[] callers = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            callers[i] = new Thread(() -> {
+                Semaphore window = new Semaphore(depth);
+                while (running) {
+                    window.acquireUninterruptibly();
+                    long startNanos = System.nanoTime();
+                    CompletableFuture<String> future;
+                    try {
+                        future = echoService.echo(payload);
+                    } catch (RuntimeException e) {
+                        errors.increment();
+                        window.release();
+                        continue;
+                    }
+                    future.whenComplete((result, cause) -> {
+                        if (cause == null) {
+                            recorder.recordValue(Math.min(System.nanoTime() - startNanos, HIGHEST_TRACKABLE_NANOS));
+                        } else {
+                            errors.increment();
+                        }
+                        window.release();
+                    });
+                }
+                // 等待在途请求全部完成
+                window.acquireUninterruptibly(depth);
+            }, "load-generator-" + i);
+            callers[i].start();
+        }
+        return callers;
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
@@ -0,0 +1,116 @@
+package com.wangguangwu.netty.dubborpc.benchmark;
+
+import com.wangguangwu.netty.dubborpc.api.GreetingService;
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import com.wangguangwu.netty.dubborpc.serialize.BinarySerializer;
+import com.wangguangwu.netty.dubborpc.serialize.JSONSerializer;
+import com.wangguangwu.netty.dubborpc.serialize.Serializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 序列化器基准测试
+ * 在 GreetingService 风格的请求和响应上对比 FastJSON 与紧凑二进制序列化器
+ * <p>
+ * 运行 main 方法即可，结果同时给出耗时和每次操作的分配字节数。
+ *
+ * @author wangguangwu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    /**
+     * 序列化方式
+     */
+    @Param({"json", "binary"})
+    private String format;
+
+    private Serializer serializer;
+
+    private RpcRequest request;
+
+    private RpcResponse response;
+
+    private ByteBuf buffer;
+
+    private ByteBuf encodedRequest;
+
+    private ByteBuf encodedResponse;
+
+    @Setup
+    public void setup() throws Exception {
+        serializer = "json".equals(format) ? new JSONSerializer() : new BinarySerializer();
+
+        request = new RpcRequest();
+        request.setRequestId(1L);
+        request.setInterfaceName(GreetingService.class.getName());
+        request.setMethodName("greet");
+        request.setParameterTypes(GreetingService.class.getMethod("greet", String.class).getParameterTypes());
+        request.setParameters(new Object[]{"User 1"});
+
+        response = new RpcResponse();
+        response.setRequestId(1L);
+        response.setResult("Greetings, User 1! (请求次数: 1)");
+
+        buffer = PooledByteBufAllocator.DEFAULT.directBuffer(1024);
+        encodedRequest = PooledByteBufAllocator.DEFAULT.directBuffer(1024);
+        serializer.serialize(request, encodedRequest);
+        encodedResponse = PooledByteBufAllocator.DEFAULT.directBuffer(1024);
+        serializer.serialize(response, encodedResponse);
+
+        System.out.printf("%n[%s] 请求大小: %d 字节, 响应大小: %d 字节%n",
+                format, encodedRequest.readableBytes(), encodedResponse.readableBytes());
+    }
+
+    @TearDown
+    public void tearDown() {
+        buffer.release();
+        encodedRequest.release();
+        encodedResponse.release();
+    }
+
+    @Benchmark
+    public int serializeRequest() {
+        buffer.clear();
+        serializer.serialize(request, buffer);
+        return buffer.writerIndex();
+    }
+
+    @Benchmark
+    public RpcRequest deserializeRequest() {
+        return serializer.deserialize(encodedRequest.duplicate(), RpcRequest.class);
+    }
+
+    @Benchmark
+    public int serializeResponse() {
+        buffer.clear();
+        serializer.serialize(response, buffer);
+        return buffer.writerIndex();
+    }
+
+    @Benchmark
+    public RpcResponse deserializeResponse() {
+        return serializer.deserialize(encodedResponse.duplicate(), RpcResponse.class);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(SerializerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
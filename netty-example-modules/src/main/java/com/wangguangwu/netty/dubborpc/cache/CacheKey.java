@@ -0,0 +1,68 @@
+package com.wangguangwu.netty.dubborpc.cache;
+
+import com.wangguangwu.netty.dubborpc.registry.MethodInvoker;
+
+import java.util.Arrays;
+
+/**
+ * 结果缓存的键
+ * 由方法调用器（确定接口和方法）、序列化器ID和序列化后的参数组成；
+ * 缓存的是按该序列化方式编码好的响应体，因此不同序列化方式的调用分别缓存
+ *
+ * @author wangguangwu
+ */
+public final class CacheKey {
+
+    /**
+     * 方法调用器，注册后不变，按引用比较
+     */
+    private final MethodInvoker invoker;
+
+    /**
+     * 序列化器ID
+     */
+    private final byte serializerId;
+
+    /**
+     * 序列化后的参数
+     */
+    private final byte[] arguments;
+
+    /**
+     * 预先计算的哈希值
+     */
+    private final int hash;
+
+    CacheKey(MethodInvoker invoker, byte serializerId, byte[] arguments) {
+        this.invoker = invoker;
+        this.serializerId = serializerId;
+        this.arguments = arguments;
+        this.hash = (System.identityHashCode(invoker) * 31 + serializerId) * 31 + Arrays.hashCode(arguments);
+    }
+
+    /**
+     * 获取方法调用器
+     *
+     * @return 方法调用器
+     */
+    MethodInvoker getInvoker() {
+        return invoker;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheKey other)) {
+            return false;
+        }
+        return hash == other.hash && invoker == other.invoker && serializerId == other.serializerId
+                && Arrays.equals(arguments, other.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,122 @@
+package com.wangguangwu.netty.dubborpc.cache;
+
+/**
+ * 访问频率估计（Count-Min Sketch）
+ * 每个计数器4位，每个 long 存放16个计数器，每个键对应4个计数器，估计值取其中的最小值。
+ * 累计记录次数达到容量的10倍时所有计数器减半，使频率估计随时间衰减，过去的热点不会一直占据缓存。
+ * <p>
+ * 非线程安全，由所属缓存段的锁保护。
+ *
+ * @author wangguangwu
+ */
+final class FrequencySketch {
+
+    /**
+     * 每一行使用的哈希种子
+     */
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    /**
+     * 计数器减半时保留的位
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * 计数器表
+     */
+    private final long[] table;
+
+    /**
+     * 表下标掩码
+     */
+    private final int tableMask;
+
+    /**
+     * 触发衰减的记录次数
+     */
+    private final int sampleSize;
+
+    /**
+     * 自上次衰减以来的记录次数
+     */
+    private int size;
+
+    /**
+     * 构造函数
+     *
+     * @param capacity 缓存容量
+     */
+    FrequencySketch(int capacity) {
+        int length = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = 10 * Math.max(16, capacity);
+    }
+
+    /**
+     * 估计键的访问频率
+     *
+     * @param hash 键的哈希值
+     * @return 频率，最大为15
+     */
+    int frequency(int hash) {
+        int spread = spread(hash);
+        int start = (spread & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int offset = (start + i) << 2;
+            int count = (int) ((table[indexOf(spread, i)] >>> offset) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param hash 键的哈希值
+     */
+    void increment(int hash) {
+        int spread = spread(hash);
+        int start = (spread & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(spread, i), (start + i) << 2);
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int offset) {
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 所有计数器减半
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size >>>= 1;
+    }
+
+    private int indexOf(int spread, int row) {
+        long h = (spread + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
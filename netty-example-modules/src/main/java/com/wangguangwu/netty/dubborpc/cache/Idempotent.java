@@ -0,0 +1,27 @@
+package com.wangguangwu.netty.dubborpc.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 幂等方法标记
+ * 标注在服务接口的方法上，表示方法结果只取决于参数、调用没有副作用。
+ * 服务端对这类方法的成功结果做缓存，相同参数的后续调用直接返回缓存的响应，不再执行方法，也不再序列化结果
+ *
+ * @author wangguangwu
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+
+    /**
+     * 缓存的有效期（毫秒），小于等于0表示不过期，只按容量淘汰
+     *
+     * @return 有效期
+     */
+    long ttlMillis() default 60_000;
+}
@@ -0,0 +1,368 @@
+package com.wangguangwu.netty.dubborpc.cache;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import com.wangguangwu.netty.dubborpc.registry.MethodInvoker;
+import com.wangguangwu.netty.dubborpc.serialize.Serializer;
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 幂等方法的结果缓存
+ * 以"方法 + 序列化方式 + 序列化后的参数"为键，缓存编码好的响应体；命中时服务端直接写出缓存的字节，
+ * 既不执行方法，也不再序列化结果。
+ * <p>
+ * 缓存按条目数限定容量，分成16段，每段是一个按访问顺序排列的 LinkedHashMap，由各自的锁保护。
+ * 淘汰策略（{@link EvictionPolicy}）：
+ * <ul>
+ *     <li>LRU：容量满时淘汰最久未访问的条目</li>
+ *     <li>TINY_LFU：在 LRU 基础上增加频率准入，每段用 Count-Min Sketch 估计键的访问频率，
+ *     新条目的频率不高于待淘汰条目时不进入缓存，一次性的大量扫描不会把热点条目挤出去</li>
+ * </ul>
+ * 每个条目按 {@link Idempotent#ttlMillis()} 过期，过期条目在访问时移除，或在容量满时优先淘汰。
+ *
+ * @author wangguangwu
+ */
+public class ResultCache {
+
+    /**
+     * 最大条目数的系统属性名，设为0关闭结果缓存
+     */
+    public static final String MAX_ENTRIES_PROPERTY = "dubborpc.cache.maxEntries";
+
+    /**
+     * 淘汰策略的系统属性名，取值 LRU 或 TINY_LFU
+     */
+    public static final String POLICY_PROPERTY = "dubborpc.cache.policy";
+
+    /**
+     * 默认最大条目数
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    /**
+     * 缓存段数
+     */
+    private static final int SEGMENTS = 16;
+
+    /**
+     * 淘汰策略
+     */
+    public enum EvictionPolicy {
+        /**
+         * 最近最少使用
+         */
+        LRU,
+        /**
+         * 最近最少使用 + 频率准入
+         */
+        TINY_LFU
+    }
+
+    /**
+     * 序列化器注册表，用于序列化参数和响应体
+     */
+    private final SerializerRegistry serializerRegistry;
+
+    /**
+     * 缓存段
+     */
+    private final Segment[] segments;
+
+    /**
+     * 命中次数
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * 未命中次数
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 因容量淘汰的条目数
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 因频率不足未被接纳的条目数
+     */
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param maxEntries         最大条目数
+     * @param policy             淘汰策略
+     * @param serializerRegistry 序列化器注册表
+     */
+    public ResultCache(int maxEntries, EvictionPolicy policy, SerializerRegistry serializerRegistry) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("最大条目数必须大于0: " + maxEntries);
+        }
+        this.serializerRegistry = serializerRegistry;
+        this.segments = new Segment[SEGMENTS];
+        int segmentCapacity = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity, policy == EvictionPolicy.TINY_LFU);
+        }
+    }
+
+    /**
+     * 按系统属性创建结果缓存
+     *
+     * @param serializerRegistry 序列化器注册表
+     * @return 结果缓存，{@value #MAX_ENTRIES_PROPERTY} 设为0时返回null，表示不缓存
+     */
+    public static ResultCache fromSystemProperties(SerializerRegistry serializerRegistry) {
+        int maxEntries = Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES);
+        if (maxEntries <= 0) {
+            return null;
+        }
+        String policy = System.getProperty(POLICY_PROPERTY, EvictionPolicy.TINY_LFU.name());
+        return new ResultCache(maxEntries, EvictionPolicy.valueOf(policy.trim().toUpperCase()), serializerRegistry);
+    }
+
+    /**
+     * 为请求创建缓存键
+     *
+     * @param invoker 请求对应的方法调用器，必须是幂等方法
+     * @param request 请求对象
+     * @return 缓存键，请求未携带序列化器ID（旧版协议的响应按对象重新编码）或参数无法序列化时返回null，表示本次调用不走缓存
+     */
+    public CacheKey keyFor(MethodInvoker invoker, RpcRequest request) {
+        Serializer serializer = serializerRegistry.getSerializer(request.getSerializerId());
+        if (serializer == null) {
+            return null;
+        }
+        Object[] parameters = request.getParameters();
+        try {
+            byte[] arguments = parameters == null || parameters.length == 0
+                    ? new byte[0] : serializer.serialize(parameters);
+            return new CacheKey(invoker, request.getSerializerId(), arguments);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 查找缓存的响应体
+     *
+     * @param key 缓存键
+     * @return 编码好的响应体，未命中或已过期时返回null
+     */
+    public byte[] get(CacheKey key) {
+        byte[] body = segmentFor(key).get(key, System.nanoTime());
+        if (body != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return body;
+    }
+
+    /**
+     * 编码成功的响应体并放入缓存
+     *
+     * @param key      缓存键
+     * @param response 成功的响应
+     * @return 编码好的响应体，可以直接作为响应写出；无法编码时返回null，不缓存
+     */
+    public byte[] put(CacheKey key, RpcResponse response) {
+        Serializer serializer = serializerRegistry.getSerializer(response.getSerializerId());
+        if (serializer == null) {
+            return null;
+        }
+        byte[] body;
+        try {
+            body = serializer.serialize(response);
+        } catch (RuntimeException e) {
+            // 结果无法编码时交给编码器按原流程处理和报错
+            return null;
+        }
+        long ttlMillis = key.getInvoker().getCacheTtlMillis();
+        long expiresAtNanos = ttlMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis) : 0;
+        segmentFor(key).put(key, new Entry(body, expiresAtNanos));
+        return body;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * 获取当前的条目数
+     *
+     * @return 条目数
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * 获取命中次数
+     *
+     * @return 命中次数
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * 获取未命中次数
+     *
+     * @return 未命中次数
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * 获取因容量淘汰的条目数
+     *
+     * @return 条目数
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 获取因访问频率不足未被接纳的条目数
+     *
+     * @return 条目数
+     */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * 获取命中率
+     *
+     * @return 命中率，尚无访问时为0
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private Segment segmentFor(CacheKey key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResultCache{size=%d, hits=%d, misses=%d, hitRate=%.2f, evictions=%d, rejections=%d}",
+                size(), getHits(), getMisses(), getHitRate(), getEvictions(), getRejections());
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param body           编码好的响应体
+     * @param expiresAtNanos 过期时间（纳秒），0表示不过期
+     */
+    private record Entry(byte[] body, long expiresAtNanos) {
+
+        boolean isExpired(long now) {
+            return expiresAtNanos != 0 && now - expiresAtNanos >= 0;
+        }
+    }
+
+    /**
+     * 缓存段
+     */
+    private final class Segment {
+
+        /**
+         * 段容量
+         */
+        private final int capacity;
+
+        /**
+         * 按访问顺序排列的条目，由 this 保护
+         */
+        private final LinkedHashMap<CacheKey, Entry> entries;
+
+        /**
+         * 访问频率估计，LRU 策略时为null
+         */
+        private final FrequencySketch sketch;
+
+        Segment(int capacity, boolean frequencyAdmission) {
+            this.capacity = capacity;
+            this.entries = new LinkedHashMap<>(Math.min(capacity, 1024) * 4 / 3 + 1, 0.75f, true);
+            this.sketch = frequencyAdmission ? new FrequencySketch(capacity) : null;
+        }
+
+        synchronized byte[] get(CacheKey key, long now) {
+            if (sketch != null) {
+                sketch.increment(key.hashCode());
+            }
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(now)) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.body();
+        }
+
+        synchronized void put(CacheKey key, Entry entry) {
+            if (entries.containsKey(key) || entries.size() < capacity) {
+                entries.put(key, entry);
+                return;
+            }
+
+            // 容量已满：优先淘汰已过期的条目，否则淘汰最久未访问的条目
+            long now = System.nanoTime();
+            Map.Entry<CacheKey, Entry> victim = expiredOrEldest(now);
+            if (sketch != null && !victim.getValue().isExpired(now)
+                    && sketch.frequency(key.hashCode()) <= sketch.frequency(victim.getKey().hashCode())) {
+                rejections.increment();
+                return;
+            }
+            entries.remove(victim.getKey());
+            evictions.increment();
+            entries.put(key, entry);
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        /**
+         * 在最久未访问的若干条目中查找已过期的条目，找不到时返回最久未访问的条目
+         */
+        private Map.Entry<CacheKey, Entry> expiredOrEldest(long now) {
+            Iterator<Map.Entry<CacheKey, Entry>> iterator = entries.entrySet().iterator();
+            Map.Entry<CacheKey, Entry> eldest = iterator.next();
+            Map.Entry<CacheKey, Entry> candidate = eldest;
+            for (int i = 0; i < 8 && !candidate.getValue().isExpired(now) && iterator.hasNext(); i++) {
+                candidate = iterator.next();
+            }
+            return candidate.getValue().isExpired(now) ? candidate : eldest;
+        }
+    }
+}
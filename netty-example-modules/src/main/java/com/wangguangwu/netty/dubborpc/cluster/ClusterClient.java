@@ -0,0 +1,277 @@
+package com.wangguangwu.netty.dubborpc.cluster;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import com.wangguangwu.netty.dubborpc.serialize.Serializer;
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
+import com.wangguangwu.netty.dubborpc.transport.RpcStream;
+import com.wangguangwu.netty.dubborpc.transport.client.NettyClient;
+import com.wangguangwu.netty.dubborpc.transport.client.RpcClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集群客户端
+ * 连接同一服务的多个提供者，每次调用由负载均衡策略选择一个提供者
+ * <p>
+ * 提供者列表是不可变列表，增删提供者时整体替换，调用路径上只读取一次 volatile 引用，不加锁。
+ * <p>
+ * 被服务端过载或限流拒绝的请求没有执行过，会立即改投其他尚未尝试过的提供者（按活跃请求数最少选择），
+ * 最多改投 {@link #MAX_FAILOVER} 次；没有其他提供者时把拒绝响应返回给调用方。
+ * 流式调用只在选中的提供者上发起，不改投。
+ *
+ * @author wangguangwu
+ */
+public class ClusterClient implements RpcClient {
+
+    /**
+     * 被拒绝的请求最多改投的次数
+     */
+    public static final int MAX_FAILOVER = 2;
+
+    /**
+     * 改投时在尚未尝试过的提供者中选择活跃请求最少的节点
+     */
+    private static final LoadBalancer FAILOVER_BALANCER = new LeastActiveLoadBalancer();
+
+    /**
+     * 负载均衡策略
+     */
+    private final LoadBalancer loadBalancer;
+
+    /**
+     * 序列化器
+     */
+    private final Serializer serializer;
+
+    /**
+     * 每个提供者的连接数
+     */
+    private final int connectionsPerProvider;
+
+    /**
+     * 当前的服务提供者列表
+     */
+    private volatile List<ProviderEndpoint> providers = List.of();
+
+    /**
+     * 构造函数，使用默认序列化器，每个提供者一条连接
+     *
+     * @param loadBalancer 负载均衡策略
+     */
+    public ClusterClient(LoadBalancer loadBalancer) {
+        this(loadBalancer, SerializerRegistry.getINSTANCE().getDefaultSerializer(), 1);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param loadBalancer           负载均衡策略
+     * @param serializer             序列化器
+     * @param connectionsPerProvider 每个提供者的连接数
+     */
+    public ClusterClient(LoadBalancer loadBalancer, Serializer serializer, int connectionsPerProvider) {
+        this.loadBalancer = loadBalancer;
+        this.serializer = serializer;
+        this.connectionsPerProvider = connectionsPerProvider;
+    }
+
+    /**
+     * 添加服务提供者，使用默认权重
+     *
+     * @param host 服务提供者地址
+     * @param port 服务提供者端口
+     * @return 服务提供者节点
+     * @throws Exception 连接失败
+     */
+    public ProviderEndpoint addProvider(String host, int port) throws Exception {
+        return addProvider(host, port, ProviderEndpoint.DEFAULT_WEIGHT);
+    }
+
+    /**
+     * 添加服务提供者，连接成功后才加入列表
+     *
+     * @param host   服务提供者地址
+     * @param port   服务提供者端口
+     * @param weight 权重，必须大于0
+     * @return 服务提供者节点
+     * @throws IllegalArgumentException 服务提供者已存在或权重不大于0
+     * @throws Exception                连接失败
+     */
+    public synchronized ProviderEndpoint addProvider(String host, int port, int weight) throws Exception {
+        if (findProvider(host, port) != null) {
+            throw new IllegalArgumentException("服务提供者已存在: " + host + ":" + port);
+        }
+        // 先校验权重再连接，避免已启动的客户端无人关闭
+        if (weight <= 0) {
+            throw new IllegalArgumentException("权重必须大于0: " + weight);
+        }
+        NettyClient client = new NettyClient(host, port, serializer, connectionsPerProvider);
+        client.start();
+        ProviderEndpoint provider = new ProviderEndpoint(host, port, weight, client);
+
+        List<ProviderEndpoint> updated = new ArrayList<>(providers);
+        updated.add(provider);
+        providers = List.copyOf(updated);
+        return provider;
+    }
+
+    /**
+     * 移除服务提供者并关闭其连接
+     *
+     * @param host 服务提供者地址
+     * @param port 服务提供者端口
+     * @return 是否移除成功
+     */
+    public synchronized boolean removeProvider(String host, int port) {
+        ProviderEndpoint provider = findProvider(host, port);
+        if (provider == null) {
+            return false;
+        }
+        List<ProviderEndpoint> updated = new ArrayList<>(providers);
+        updated.remove(provider);
+        providers = List.copyOf(updated);
+        provider.getClient().shutdown();
+        return true;
+    }
+
+    /**
+     * 更新服务提供者的权重和负载
+     * 权重变化时替换列表，依赖列表引用缓存的策略（如一致性哈希）会重建
+     *
+     * @param host         服务提供者地址
+     * @param port         服务提供者端口
+     * @param weight       权重
+     * @param reportedLoad 服务提供者上报的负载
+     * @return 是否找到该服务提供者
+     */
+    public synchronized boolean updateProvider(String host, int port, int weight, long reportedLoad) {
+        ProviderEndpoint provider = findProvider(host, port);
+        if (provider == null) {
+            return false;
+        }
+        provider.setReportedLoad(reportedLoad);
+        if (provider.getWeight() != weight) {
+            provider.setWeight(weight);
+            providers = List.copyOf(providers);
+        }
+        return true;
+    }
+
+    /**
+     * 获取当前的服务提供者列表
+     *
+     * @return 不可变的服务提供者列表
+     */
+    public List<ProviderEndpoint> getProviders() {
+        return providers;
+    }
+
+    @Override
+    public Object syncCall(RpcRequest request, long timeoutMillis) throws Exception {
+        try {
+            return asyncCall(request, timeoutMillis).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<RpcResponse> asyncCall(RpcRequest request, long timeoutMillis) {
+        List<ProviderEndpoint> current = providers;
+        if (current.isEmpty()) {
+            // 没有可用的提供者时以异常完成，不在调用方线程抛出
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("没有可用的服务提供者: " + request.getInterfaceName()));
+        }
+        return call(loadBalancer.select(current, request), request, timeoutMillis, current, null);
+    }
+
+    /**
+     * 流式调用，由负载均衡策略选择一个提供者
+     * 元素一旦开始发送就不能改投，被拒绝时直接以异常结束订阅
+     */
+    @Override
+    public void streamCall(RpcRequest request, Flow.Subscriber<Object> subscriber, long idleTimeoutMillis) {
+        List<ProviderEndpoint> current = providers;
+        if (current.isEmpty()) {
+            RpcStream.reject(subscriber,
+                    new IllegalStateException("没有可用的服务提供者: " + request.getInterfaceName()));
+            return;
+        }
+        loadBalancer.select(current, request).getClient().streamCall(request, subscriber, idleTimeoutMillis);
+    }
+
+    /**
+     * 关闭所有服务提供者的连接
+     */
+    public synchronized void shutdown() {
+        for (ProviderEndpoint provider : providers) {
+            provider.getClient().shutdown();
+        }
+        providers = List.of();
+    }
+
+    /**
+     * 向选中的提供者发送请求，被拒绝时改投其他提供者
+     *
+     * @param provider      选中的提供者
+     * @param request       请求对象
+     * @param timeoutMillis 超时时间(毫秒)
+     * @param candidates    发起调用时的提供者列表
+     * @param tried         已经拒绝过该请求的提供者，首次调用时为null
+     * @return 响应的Future
+     */
+    private CompletableFuture<RpcResponse> call(ProviderEndpoint provider, RpcRequest request, long timeoutMillis,
+                                                List<ProviderEndpoint> candidates, List<ProviderEndpoint> tried) {
+        CompletableFuture<RpcResponse> future;
+        try {
+            future = provider.sendRequest(request, timeoutMillis).toCompletableFuture();
+        } catch (IllegalStateException e) {
+            // 没有可用的连接时以异常完成，不在调用方线程抛出
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.thenCompose(response -> {
+            if (!RpcProtocol.isRejected(response.getStatus())) {
+                return CompletableFuture.completedFuture(response);
+            }
+            List<ProviderEndpoint> attempted = tried == null ? new ArrayList<>(MAX_FAILOVER + 1) : tried;
+            attempted.add(provider);
+            ProviderEndpoint next = attempted.size() > MAX_FAILOVER ? null : selectUntried(candidates, attempted);
+            if (next == null) {
+                return CompletableFuture.completedFuture(response);
+            }
+            return call(next, request, timeoutMillis, candidates, attempted);
+        });
+    }
+
+    /**
+     * 在尚未尝试过的提供者中选择一个
+     *
+     * @return 提供者，全部尝试过时返回null
+     */
+    private static ProviderEndpoint selectUntried(List<ProviderEndpoint> candidates, List<ProviderEndpoint> tried) {
+        List<ProviderEndpoint> untried = new ArrayList<>(candidates.size());
+        for (ProviderEndpoint candidate : candidates) {
+            if (!tried.contains(candidate)) {
+                untried.add(candidate);
+            }
+        }
+        return untried.isEmpty() ? null : FAILOVER_BALANCER.select(untried, null);
+    }
+
+    private ProviderEndpoint findProvider(String host, int port) {
+        for (ProviderEndpoint provider : providers) {
+            if (provider.getHost().equals(host) && provider.getPort() == port) {
+                return provider;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,161 @@
+package com.wangguangwu.netty.dubborpc.cluster;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一致性哈希负载均衡
+ * 按指定参数的值选择服务提供者，相同参数的请求总是落到同一个节点；
+ * 节点增减时只有哈希环上相邻区间的请求会改变归属
+ * <p>
+ * 每个节点在哈希环上放置若干虚拟节点，虚拟节点数按权重等比例放大，单个节点最多 {@value #MAX_VIRTUAL_NODES} 个。
+ * 数组参数按内容哈希，内容相同的数组落到同一个节点。
+ * 哈希环按服务提供者列表的引用缓存，列表更新后首次选择时重建。
+ *
+ * @author wangguangwu
+ */
+public class ConsistentHashLoadBalancer implements LoadBalancer {
+
+    /**
+     * 默认权重节点对应的虚拟节点数
+     */
+    private static final int VIRTUAL_NODES = 160;
+
+    /**
+     * 单个节点最多的虚拟节点数，避免权重过大时哈希环过大
+     */
+    private static final int MAX_VIRTUAL_NODES = 16_000;
+
+    /**
+     * 参与哈希的参数下标
+     */
+    private final int argumentIndex;
+
+    /**
+     * 当前的哈希环
+     */
+    private volatile Ring ring;
+
+    /**
+     * 构造函数，按第一个参数哈希
+     */
+    public ConsistentHashLoadBalancer() {
+        this(0);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param argumentIndex 参与哈希的参数下标
+     */
+    public ConsistentHashLoadBalancer(int argumentIndex) {
+        if (argumentIndex < 0) {
+            throw new IllegalArgumentException("参数下标不能为负数: " + argumentIndex);
+        }
+        this.argumentIndex = argumentIndex;
+    }
+
+    @Override
+    public ProviderEndpoint select(List<ProviderEndpoint> providers, RpcRequest request) {
+        Ring current = ring;
+        if (current == null || current.providers != providers) {
+            current = new Ring(providers);
+            ring = current;
+        }
+        return current.select(hash(key(request)));
+    }
+
+    /**
+     * 取出参与哈希的参数，方法没有该参数时按方法名哈希
+     * 数组的 toString 只包含对象标识，按内容转成字符串
+     */
+    private String key(RpcRequest request) {
+        Object[] parameters = request.getParameters();
+        if (parameters == null || parameters.length <= argumentIndex) {
+            return request.getMethodName();
+        }
+        Object argument = parameters[argumentIndex];
+        if (argument != null && argument.getClass().isArray()) {
+            return Arrays.deepToString(new Object[]{argument});
+        }
+        return String.valueOf(argument);
+    }
+
+    /**
+     * 64位 FNV-1a 哈希，再做一次混合使相近的输入在环上均匀分布
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * 哈希环：按哈希值排序的虚拟节点
+     */
+    private static final class Ring {
+
+        private final List<ProviderEndpoint> providers;
+
+        private final long[] hashes;
+
+        private final ProviderEndpoint[] nodes;
+
+        Ring(List<ProviderEndpoint> providers) {
+            this.providers = providers;
+            int total = 0;
+            for (ProviderEndpoint provider : providers) {
+                total += virtualNodes(provider);
+            }
+
+            long[] entries = new long[total];
+            ProviderEndpoint[] owners = new ProviderEndpoint[total];
+            int n = 0;
+            for (ProviderEndpoint provider : providers) {
+                for (int i = 0, count = virtualNodes(provider); i < count; i++) {
+                    entries[n] = hash(provider.getAddress() + "#" + i);
+                    owners[n] = provider;
+                    n++;
+                }
+            }
+
+            // 按哈希值排序，同时调整对应的节点
+            Integer[] order = new Integer[total];
+            for (int i = 0; i < total; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (x, y) -> Long.compare(entries[x], entries[y]));
+            this.hashes = new long[total];
+            this.nodes = new ProviderEndpoint[total];
+            for (int i = 0; i < total; i++) {
+                hashes[i] = entries[order[i]];
+                nodes[i] = owners[order[i]];
+            }
+        }
+
+        ProviderEndpoint select(long hash) {
+            int index = Arrays.binarySearch(hashes, hash);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return nodes[index == nodes.length ? 0 : index];
+        }
+
+        private static int virtualNodes(ProviderEndpoint provider) {
+            // 按 long 计算，权重很大时不会溢出
+            long count = (long) VIRTUAL_NODES * provider.getWeight() / ProviderEndpoint.DEFAULT_WEIGHT;
+            return (int) Math.max(1, Math.min(MAX_VIRTUAL_NODES, count));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.wangguangwu.netty.dubborpc.cluster;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 延迟感知负载均衡
+ * 随机取两个服务提供者，选择代价更低的一个（power of two choices）。
+ * 代价 = 延迟估计 × (活跃请求数 + 1) / 权重，延迟估计采用峰值敏感的指数加权移动平均：
+ * 变慢的节点立即被降权，空闲一段时间后估计值衰减，节点会重新得到试探流量。
+ *
+ * @author wangguangwu
+ */
+public class LatencyAwareLoadBalancer implements LoadBalancer {
+
+    @Override
+    public ProviderEndpoint select(List<ProviderEndpoint> providers, RpcRequest request) {
+        int size = providers.size();
+        if (size == 1) {
+            return providers.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ProviderEndpoint a = providers.get(first);
+        ProviderEndpoint b = providers.get(second);
+        return cost(a) <= cost(b) ? a : b;
+    }
+
+    private static double cost(ProviderEndpoint provider) {
+        // 尚无延迟数据的节点只按活跃数和权重比较
+        double latency = Math.max(provider.getLatencyEstimate(), 1);
+        return latency * (provider.getActive() + 1) / provider.getWeight();
+    }
+}
@@ -0,0 +1,52 @@
+package com.wangguangwu.netty.dubborpc.cluster;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 最少活跃数负载均衡
+ * 选择进行中请求数最少的服务提供者，处理得快的节点活跃数低，会获得更多请求；
+ * 活跃数相同的多个节点之间按权重随机选择
+ *
+ * @author wangguangwu
+ */
+public class LeastActiveLoadBalancer implements LoadBalancer {
+
+    @Override
+    public ProviderEndpoint select(List<ProviderEndpoint> providers, RpcRequest request) {
+        int size = providers.size();
+        int leastActive = Integer.MAX_VALUE;
+        // 活跃数最少的节点下标，只记录前 leastCount 个
+        int[] leastIndexes = new int[size];
+        int leastCount = 0;
+        int totalWeight = 0;
+        for (int i = 0; i < size; i++) {
+            ProviderEndpoint provider = providers.get(i);
+            int active = provider.getActive();
+            if (active < leastActive) {
+                leastActive = active;
+                leastIndexes[0] = i;
+                leastCount = 1;
+                totalWeight = provider.getWeight();
+            } else if (active == leastActive) {
+                leastIndexes[leastCount++] = i;
+                totalWeight += provider.getWeight();
+            }
+        }
+
+        if (leastCount == 1) {
+            return providers.get(leastIndexes[0]);
+        }
+        int offset = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int i = 0; i < leastCount; i++) {
+            ProviderEndpoint provider = providers.get(leastIndexes[i]);
+            offset -= provider.getWeight();
+            if (offset < 0) {
+                return provider;
+            }
+        }
+        return providers.get(leastIndexes[0]);
+    }
+}
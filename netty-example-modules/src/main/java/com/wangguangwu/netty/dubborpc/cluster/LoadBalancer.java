@@ -0,0 +1,23 @@
+package com.wangguangwu.netty.dubborpc.cluster;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+
+import java.util.List;
+
+/**
+ * 负载均衡策略
+ * 从服务提供者列表中为一次请求选择一个节点
+ *
+ * @author wangguangwu
+ */
+public interface LoadBalancer {
+
+    /**
+     * 选择服务提供者
+     *
+     * @param providers 服务提供者列表，不为空且在更新时整体替换，可以按引用缓存派生数据
+     * @param request   请求对象
+     * @return 选中的服务提供者
+     */
+    ProviderEndpoint select(List<ProviderEndpoint> providers, RpcRequest request);
+}
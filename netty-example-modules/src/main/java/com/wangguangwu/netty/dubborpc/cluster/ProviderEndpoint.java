@@ -0,0 +1,175 @@
+package com.wangguangwu.netty.dubborpc.cluster;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.transport.RpcFuture;
+import com.wangguangwu.netty.dubborpc.transport.client.NettyClient;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务提供者节点
+ * 封装连接某个服务提供者的 NettyClient，并统计负载均衡所需的权重、活跃请求数和延迟
+ *
+ * @author wangguangwu
+ */
+public class ProviderEndpoint {
+
+    /**
+     * 默认权重
+     */
+    public static final int DEFAULT_WEIGHT = 100;
+
+    /**
+     * 延迟衰减的时间常数（纳秒）：节点空闲时延迟估计按该时间常数向0衰减，使慢节点恢复后能重新获得流量
+     */
+    private static final double DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * 服务提供者地址
+     */
+    @Getter
+    private final String host;
+
+    /**
+     * 服务提供者端口
+     */
+    @Getter
+    private final int port;
+
+    /**
+     * 权重，可由服务发现动态调整
+     */
+    @Getter
+    private volatile int weight;
+
+    /**
+     * 服务提供者上报的负载（进行中的请求数）
+     */
+    @Getter
+    @Setter
+    private volatile long reportedLoad;
+
+    /**
+     * 连接该服务提供者的客户端
+     */
+    @Getter
+    private final NettyClient client;
+
+    /**
+     * 活跃（进行中）的请求数
+     */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * 延迟的峰值敏感指数加权移动平均（纳秒），由 this 保护
+     */
+    private double latencyEwma;
+
+    /**
+     * 上次更新延迟的时间（纳秒），由 this 保护
+     */
+    private long lastUpdateNanos = System.nanoTime();
+
+    /**
+     * 构造函数
+     *
+     * @param host   服务提供者地址
+     * @param port   服务提供者端口
+     * @param weight 权重
+     * @param client 连接该服务提供者的客户端
+     */
+    public ProviderEndpoint(String host, int port, int weight, NettyClient client) {
+        this.host = host;
+        this.port = port;
+        this.client = client;
+        setWeight(weight);
+    }
+
+    /**
+     * 设置权重
+     *
+     * @param weight 权重，必须大于0
+     */
+    public void setWeight(int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("权重必须大于0: " + weight);
+        }
+        this.weight = weight;
+    }
+
+    /**
+     * 向该服务提供者发送请求，并在完成时更新活跃请求数和延迟
+     * 被服务端拒绝的请求很快返回，不计入延迟，以免把过载的节点误判为快节点
+     *
+     * @param request       请求对象
+     * @param timeoutMillis 超时时间(毫秒)
+     * @return RPC调用的Future对象
+     */
+    public RpcFuture sendRequest(RpcRequest request, long timeoutMillis) {
+        long startNanos = System.nanoTime();
+        active.incrementAndGet();
+        try {
+            return client.sendRequest(request, timeoutMillis).whenComplete((response, cause) -> {
+                active.decrementAndGet();
+                if (response == null || !RpcProtocol.isRejected(response.getStatus())) {
+                    recordLatency(System.nanoTime() - startNanos);
+                }
+            });
+        } catch (RuntimeException e) {
+            active.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取活跃请求数
+     *
+     * @return 活跃请求数
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * 获取当前的延迟估计，空闲时间越长估计值越小
+     *
+     * @return 延迟估计（纳秒）
+     */
+    public synchronized double getLatencyEstimate() {
+        return latencyEwma * Math.exp(-(System.nanoTime() - lastUpdateNanos) / DECAY_NANOS);
+    }
+
+    /**
+     * 记录一次调用延迟
+     * 延迟高于当前估计时直接取新值，使慢节点能被立即发现；否则按距上次更新的时间衰减合并
+     */
+    private synchronized void recordLatency(long latencyNanos) {
+        long now = System.nanoTime();
+        double decay = Math.exp(-(now - lastUpdateNanos) / DECAY_NANOS);
+        lastUpdateNanos = now;
+        if (latencyNanos > latencyEwma) {
+            latencyEwma = latencyNanos;
+        } else {
+            latencyEwma = latencyEwma * decay + latencyNanos * (1 - decay);
+        }
+    }
+
+    /**
+     * 获取地址，格式为 host:port
+     *
+     * @return 地址
+     */
+    public String getAddress() {
+        return host + ":" + port;
+    }
+
+    @Override
+    public String toString() {
+        return "ProviderEndpoint{" + getAddress() + ", weight=" + weight + ", active=" + active.get()
+                + ", reportedLoad=" + reportedLoad + "}";
+    }
+}
@@ -0,0 +1,25 @@
+package com.wangguangwu.netty.dubborpc.cluster;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轮询负载均衡
+ * 依次把请求分配给每个服务提供者，不考虑权重
+ *
+ * @author wangguangwu
+ */
+public class RoundRobinLoadBalancer implements LoadBalancer {
+
+    /**
+     * 轮询序号
+     */
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Override
+    public ProviderEndpoint select(List<ProviderEndpoint> providers, RpcRequest request) {
+        return providers.get((sequence.getAndIncrement() & Integer.MAX_VALUE) % providers.size());
+    }
+}
@@ -0,0 +1,42 @@
+package com.wangguangwu.netty.dubborpc.cluster;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 加权随机负载均衡
+ * 按权重比例随机选择服务提供者，权重全部相同时退化为等概率随机
+ *
+ * @author wangguangwu
+ */
+public class WeightedRandomLoadBalancer implements LoadBalancer {
+
+    @Override
+    public ProviderEndpoint select(List<ProviderEndpoint> providers, RpcRequest request) {
+        int size = providers.size();
+        int totalWeight = 0;
+        boolean sameWeight = true;
+        for (int i = 0; i < size; i++) {
+            int weight = providers.get(i).getWeight();
+            totalWeight += weight;
+            if (sameWeight && i > 0 && weight != providers.get(i - 1).getWeight()) {
+                sameWeight = false;
+            }
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (sameWeight) {
+            return providers.get(random.nextInt(size));
+        }
+        int offset = random.nextInt(totalWeight);
+        for (ProviderEndpoint provider : providers) {
+            offset -= provider.getWeight();
+            if (offset < 0) {
+                return provider;
+            }
+        }
+        return providers.get(size - 1);
+    }
+}
@@ -0,0 +1,194 @@
+package com.wangguangwu.netty.dubborpc.codec;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.compression.DecompressionException;
+import io.netty.handler.codec.compression.Snappy;
+import io.netty.util.AttributeKey;
+
+/**
+ * 消息体压缩
+ * 使用 Netty 自带的纯Java Snappy 实现，压缩和解压都在通道的IO线程上进行，每个编码器、解码器持有各自的实例。
+ * <p>
+ * 消息体不小于阈值（{@value #THRESHOLD_PROPERTY}，默认 {@value #DEFAULT_THRESHOLD} 字节，设为0不压缩）、
+ * 且对端声明过能解压时才压缩，压缩后不比原文小的消息体保持原样；小消息只多一次长度比较。
+ * 压缩和解压的中间结果放在分配器的池化缓冲区中，用完即释放。
+ * <p>
+ * 压缩后的消息体由若干块组成，每块为 4字节压缩后长度 + Snappy 数据，单块原文不超过 {@value #BLOCK_SIZE} 字节：
+ * Netty 的 Snappy 实现用16位有符号数记录匹配位置，一次编码超过32KB的输入会越界。
+ * <p>
+ * 协商：客户端在请求帧的状态字段声明 {@link RpcProtocol#REQUEST_FLAG_COMPRESSION_SUPPORTED}，
+ * 服务端此后在发给它的响应中设置 {@link RpcProtocol#FLAG_COMPRESSION_SUPPORTED}；
+ * 任何一方收到对端的声明后才开始压缩，因此与不认识压缩的旧版对端通信时不会发出压缩帧。
+ *
+ * @author wangguangwu
+ */
+final class FrameCompressor {
+
+    /**
+     * 压缩阈值（字节）的系统属性名
+     */
+    static final String THRESHOLD_PROPERTY = "dubborpc.compression.threshold";
+
+    /**
+     * 默认压缩阈值（字节）
+     */
+    static final int DEFAULT_THRESHOLD = 2048;
+
+    /**
+     * 每块原文的最大长度（字节）
+     */
+    private static final int BLOCK_SIZE = 32 * 1024;
+
+    /**
+     * 允许的最大解压长度，防止伪造的长度前缀导致超大内存分配
+     */
+    private static final int MAX_UNCOMPRESSED_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * 通道属性：对端是否能解压压缩帧
+     */
+    private static final AttributeKey<Boolean> PEER_SUPPORTED = AttributeKey.valueOf("rpc.compression");
+
+    /**
+     * 压缩阈值（字节），小于等于0时不压缩
+     */
+    private final int threshold;
+
+    /**
+     * Snappy 编解码器，有内部状态，每次使用后重置
+     */
+    private final Snappy snappy = new Snappy();
+
+    /**
+     * 构造函数
+     *
+     * @param threshold 压缩阈值（字节），小于等于0时不压缩
+     */
+    FrameCompressor(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * 按系统属性创建
+     *
+     * @return 消息体压缩
+     */
+    static FrameCompressor fromSystemProperties() {
+        return new FrameCompressor(Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD));
+    }
+
+    /**
+     * 判断对端是否声明过能解压压缩帧
+     *
+     * @param channel 通道
+     * @return 是否能解压
+     */
+    static boolean isPeerSupported(Channel channel) {
+        return Boolean.TRUE.equals(channel.attr(PEER_SUPPORTED).get());
+    }
+
+    /**
+     * 记录对端能解压压缩帧
+     *
+     * @param channel 通道
+     */
+    static void markPeerSupported(Channel channel) {
+        if (!isPeerSupported(channel)) {
+            channel.attr(PEER_SUPPORTED).set(Boolean.TRUE);
+        }
+    }
+
+    /**
+     * 就地压缩输出缓冲区中从 bodyIndex 到写指针的消息体
+     *
+     * @param alloc     分配器，用于申请压缩结果的临时缓冲区
+     * @param out       输出缓冲区
+     * @param bodyIndex 消息体的起始位置
+     * @return 压缩后消息体变小并已替换时返回true，未压缩时输出缓冲区保持不变
+     */
+    boolean compress(ByteBufAllocator alloc, ByteBuf out, int bodyIndex) {
+        int length = out.writerIndex() - bodyIndex;
+        if (threshold <= 0 || length < threshold) {
+            return false;
+        }
+        ByteBuf compressed = alloc.buffer(length);
+        try {
+            for (int offset = bodyIndex, end = out.writerIndex(); offset < end; offset += BLOCK_SIZE) {
+                int blockLength = Math.min(BLOCK_SIZE, end - offset);
+                int lengthIndex = compressed.writerIndex();
+                compressed.writeInt(0);
+                snappy.encode(out.slice(offset, blockLength), compressed, blockLength);
+                snappy.reset();
+                compressed.setInt(lengthIndex, compressed.writerIndex() - lengthIndex - 4);
+                // 不可压缩的数据保持原样
+                if (compressed.readableBytes() >= length) {
+                    return false;
+                }
+            }
+            out.writerIndex(bodyIndex);
+            out.writeBytes(compressed);
+            return true;
+        } finally {
+            snappy.reset();
+            compressed.release();
+        }
+    }
+
+    /**
+     * 解压消息体
+     *
+     * @param alloc 分配器，用于申请解压结果的缓冲区
+     * @param body  压缩的消息体
+     * @return 解压后的消息体，由调用方释放
+     * @throws DecompressionException 块长度非法或数据损坏
+     */
+    ByteBuf decompress(ByteBufAllocator alloc, ByteBuf body) {
+        ByteBuf out = alloc.buffer(body.readableBytes() * 2);
+        try {
+            while (body.isReadable()) {
+                int blockLength = body.readableBytes() >= 4 ? body.readInt() : -1;
+                if (blockLength <= 0 || blockLength > body.readableBytes()) {
+                    throw new DecompressionException("压缩块长度非法: " + blockLength);
+                }
+                ByteBuf block = body.readSlice(blockLength);
+                int length = uncompressedLength(block);
+                if (length < 0 || length > BLOCK_SIZE || out.writerIndex() + length > MAX_UNCOMPRESSED_LENGTH) {
+                    throw new DecompressionException("压缩块的原始长度非法: " + length);
+                }
+                int start = out.writerIndex();
+                snappy.decode(block, out);
+                snappy.reset();
+                if (out.writerIndex() - start != length) {
+                    throw new DecompressionException("压缩块解压后的长度与声明不符: " + length);
+                }
+            }
+            return out;
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        } finally {
+            snappy.reset();
+        }
+    }
+
+    /**
+     * 读取 Snappy 数据开头的变长原始长度，不移动读指针
+     *
+     * @return 原始长度，前缀不完整或超过5字节时返回-1
+     */
+    private static int uncompressedLength(ByteBuf in) {
+        int result = 0;
+        int available = Math.min(5, in.readableBytes());
+        for (int i = 0; i < available; i++) {
+            int b = in.getUnsignedByte(in.readerIndex() + i);
+            result |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        return -1;
+    }
+}
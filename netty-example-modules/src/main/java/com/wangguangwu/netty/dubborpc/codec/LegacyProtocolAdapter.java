@@ -0,0 +1,131 @@
+package com.wangguangwu.netty.dubborpc.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 旧版协议适配器
+ * 兼容只发送"长度(4字节) + JSON内容(N字节)"帧的旧版对端
+ * <p>
+ * 旧版消息体中的请求ID是字符串，新版协议使用协议头中的数值ID。
+ * 适配器在连接内为每个旧版请求分配一个本地数值ID，编码响应时再还原为原始字符串ID。
+ *
+ * @author wangguangwu
+ */
+final class LegacyProtocolAdapter {
+
+    /**
+     * 通道属性：当前连接是否使用旧版协议，在收到第一帧时确定
+     */
+    static final AttributeKey<Boolean> LEGACY = AttributeKey.valueOf("rpc.legacy");
+
+    /**
+     * 通道属性：旧版协议适配器
+     */
+    private static final AttributeKey<LegacyProtocolAdapter> ADAPTER = AttributeKey.valueOf("rpc.legacyAdapter");
+
+    /**
+     * 旧版消息体中的请求ID字段名
+     */
+    private static final String REQUEST_ID_FIELD = "requestId";
+
+    /**
+     * 本地数值ID生成器
+     */
+    private final AtomicLong localIdGenerator = new AtomicLong(0);
+
+    /**
+     * 本地数值ID -> 旧版字符串ID
+     */
+    private final Map<Long, String> legacyIds = new ConcurrentHashMap<>();
+
+    private LegacyProtocolAdapter() {
+    }
+
+    /**
+     * 获取通道绑定的适配器，不存在时创建
+     *
+     * @param channel 通道
+     * @return 旧版协议适配器
+     */
+    static LegacyProtocolAdapter of(Channel channel) {
+        LegacyProtocolAdapter adapter = channel.attr(ADAPTER).get();
+        if (adapter == null) {
+            adapter = new LegacyProtocolAdapter();
+            LegacyProtocolAdapter existing = channel.attr(ADAPTER).setIfAbsent(adapter);
+            if (existing != null) {
+                adapter = existing;
+            }
+        }
+        return adapter;
+    }
+
+    /**
+     * 判断通道是否已协商为旧版协议
+     *
+     * @param channel 通道
+     * @return 是否为旧版协议
+     */
+    static boolean isLegacy(Channel channel) {
+        return Boolean.TRUE.equals(channel.attr(LEGACY).get());
+    }
+
+    /**
+     * 解码旧版消息体
+     *
+     * @param body        JSON消息体
+     * @param targetClass 目标类型
+     * @return 解码后的对象
+     */
+    Object decode(ByteBuf body, Class<?> targetClass) {
+        JSONObject json = JSON.parseObject(body.toString(StandardCharsets.UTF_8));
+        String legacyId = json.getString(REQUEST_ID_FIELD);
+        json.remove(REQUEST_ID_FIELD);
+
+        // 去掉字符串ID后重新按目标类型解析，保持与旧版相同的字段映射规则
+        Object obj = JSON.parseObject(json.toJSONString(), targetClass);
+
+        long localId = localIdGenerator.incrementAndGet();
+        if (legacyId != null) {
+            legacyIds.put(localId, legacyId);
+        }
+        if (obj instanceof RpcRequest request) {
+            request.setRequestId(localId);
+        } else if (obj instanceof RpcResponse response) {
+            response.setRequestId(localId);
+        }
+        return obj;
+    }
+
+    /**
+     * 按旧版格式编码消息体
+     *
+     * @param msg 要编码的对象
+     * @return JSON消息体
+     */
+    byte[] encode(Object msg) {
+        long localId = 0;
+        if (msg instanceof RpcRequest request) {
+            localId = request.getRequestId();
+        } else if (msg instanceof RpcResponse response) {
+            localId = response.getRequestId();
+        }
+
+        // 按常规规则序列化（跳过协议头字段）后再补回字符串ID
+        JSONObject json = JSON.parseObject(JSON.toJSONString(msg, SerializerFeature.DisableCircularReferenceDetect));
+        String legacyId = legacyIds.remove(localId);
+        json.put(REQUEST_ID_FIELD, legacyId != null ? legacyId : String.valueOf(localId));
+        return JSON.toJSONBytes(json, SerializerFeature.DisableCircularReferenceDetect);
+    }
+}
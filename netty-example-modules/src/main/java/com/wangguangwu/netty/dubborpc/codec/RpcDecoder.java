@@ -1,7 +1,16 @@
 package com.wangguangwu.netty.dubborpc.codec;
 
+import com.wangguangwu.netty.dubborpc.protocol.Heartbeat;
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import com.wangguangwu.netty.dubborpc.protocol.StreamCredit;
 import com.wangguangwu.netty.dubborpc.serialize.Serializer;
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 
@@ -10,37 +19,207 @@ import java.util.List;
 /**
  * RPC解码器
  * 将字节流解码为对象，用于网络接收
- * 解码格式：长度(4字节) + 内容(N字节)
+ * 解码格式：协议头(18字节) + 内容(N字节)，协议头格式见 {@link RpcProtocol}
+ * <p>
+ * 连接上的第一帧决定协议版本：以魔数开头的按新版协议解析，
+ * 否则按旧版"长度(4字节) + 内容(N字节)"格式解析，并由 {@link LegacyProtocolAdapter} 完成兼容。
+ * <p>
+ * 带压缩标志的消息体先由 {@link FrameCompressor} 解压到池化缓冲区再反序列化；
+ * 收到对端"能解压"的声明后记在通道上，此后编码器才会压缩发给它的消息体。
+ * <p>
+ * 协议头声明的消息体长度超过 {@value #MAX_FRAME_LENGTH_PROPERTY}（默认16MB）时不等待消息体，
+ * 请求帧回写 BAD_REQUEST 后关闭连接，避免异常或恶意的长度字段让接收方无限缓冲。
  *
  * @author wangguangwu
  */
 public class RpcDecoder extends ByteToMessageDecoder {
 
+    /**
+     * 消息体最大长度（字节）的系统属性名
+     */
+    public static final String MAX_FRAME_LENGTH_PROPERTY = "dubborpc.maxFrameLength";
+
+    /**
+     * 默认的消息体最大长度（字节）
+     */
+    private static final int DEFAULT_MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * 消息体最大长度（字节）
+     */
+    private static final int MAX_FRAME_LENGTH = Math.max(1, Integer.getInteger(MAX_FRAME_LENGTH_PROPERTY,
+            DEFAULT_MAX_FRAME_LENGTH));
+
     /**
      * 目标类型
      */
     private final Class<?> targetClass;
 
     /**
-     * 序列化器
+     * 序列化器注册表，按每一帧的序列化器ID选择反序列化方式
      */
-    private final Serializer serializer;
+    private final SerializerRegistry serializerRegistry;
+
+    /**
+     * 消息体解压
+     */
+    private final FrameCompressor compressor = FrameCompressor.fromSystemProperties();
 
     /**
      * 构造函数
      *
-     * @param targetClass 目标类型
-     * @param serializer  序列化器
+     * @param targetClass        目标类型
+     * @param serializerRegistry 序列化器注册表
      */
-    public RpcDecoder(Class<?> targetClass, Serializer serializer) {
+    public RpcDecoder(Class<?> targetClass, SerializerRegistry serializerRegistry) {
         this.targetClass = targetClass;
-        this.serializer = serializer;
+        this.serializerRegistry = serializerRegistry;
     }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        // 如果可读字节数小于2，则不足以识别魔数
+        if (in.readableBytes() < 2) {
+            return;
+        }
+
+        // 第一帧到达时协商协议版本
+        Boolean legacy = ctx.channel().attr(LegacyProtocolAdapter.LEGACY).get();
+        if (legacy == null) {
+            legacy = in.getShort(in.readerIndex()) != RpcProtocol.MAGIC;
+            ctx.channel().attr(LegacyProtocolAdapter.LEGACY).set(legacy);
+        }
+
+        if (legacy) {
+            decodeLegacy(ctx, in, out);
+        } else {
+            decodeFrame(ctx, in, out);
+        }
+    }
+
+    /**
+     * 判断通道是否协商为旧版协议
+     *
+     * @param channel 通道
+     * @return 收到的第一帧是旧版协议帧时返回true，尚未收到任何帧时返回false
+     */
+    public static boolean isLegacy(Channel channel) {
+        return LegacyProtocolAdapter.isLegacy(channel);
+    }
+
+    /**
+     * 解码新版协议帧
+     */
+    private void decodeFrame(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        // 如果可读字节数小于协议头长度，则等待更多数据
+        if (in.readableBytes() < RpcProtocol.HEADER_LENGTH) {
+            return;
+        }
+
+        // 标记当前读取位置
+        in.markReaderIndex();
+
+        // 读取协议头
+        short magic = in.readShort();
+        byte version = in.readByte();
+        byte messageType = in.readByte();
+        byte serializerField = in.readByte();
+        byte serializerId = (byte) (serializerField & RpcProtocol.SERIALIZER_ID_MASK);
+        byte status = in.readByte();
+        long requestId = in.readLong();
+        int dataLength = in.readInt();
+
+        // 魔数不匹配或数据长度非法，则关闭连接
+        if (magic != RpcProtocol.MAGIC || dataLength < 0) {
+            in.skipBytes(in.readableBytes());
+            ctx.close();
+            return;
+        }
+
+        // 消息体超过上限时不等待消息体，拒绝后关闭连接
+        if (dataLength > MAX_FRAME_LENGTH) {
+            in.skipBytes(in.readableBytes());
+            reject(ctx, messageType, requestId, "消息体长度超过上限: " + dataLength + " > " + MAX_FRAME_LENGTH)
+                    .addListener(ChannelFutureListener.CLOSE);
+            return;
+        }
+
+        // 如果可读字节数小于消息长度，则重置读取位置，等待更多数据
+        if (in.readableBytes() < dataLength) {
+            in.resetReaderIndex();
+            return;
+        }
+
+        // 仅凭协议头即可拒绝无法处理的帧，不反序列化消息体
+        Serializer serializer = serializerRegistry.getSerializer(serializerId);
+        if (version > RpcProtocol.VERSION || serializer == null) {
+            in.skipBytes(dataLength);
+            reject(ctx, messageType, requestId,
+                    "不支持的协议版本或序列化方式: version=" + version + ", serializer=" + serializerId);
+            return;
+        }
+
+        // 记录对端能解压压缩帧：服务端在响应中声明，客户端在请求的状态字段中声明
+        if ((serializerField & RpcProtocol.FLAG_COMPRESSION_SUPPORTED) != 0
+                || (messageType == RpcProtocol.TYPE_REQUEST
+                && (status & RpcProtocol.REQUEST_FLAG_COMPRESSION_SUPPORTED) != 0)) {
+            FrameCompressor.markPeerSupported(ctx.channel());
+        }
+
+        // 消息类型与目标类型不一致的帧直接跳过
+        if (!matchesTarget(messageType)) {
+            in.skipBytes(dataLength);
+            return;
+        }
+
+        // 在原缓冲区上切出消息体，直接反序列化，不复制到临时字节数组
+        ByteBuf body = in.readSlice(dataLength);
+
+        // 心跳帧只有协议头
+        if (messageType == RpcProtocol.TYPE_HEARTBEAT) {
+            out.add(Heartbeat.INSTANCE);
+            return;
+        }
+
+        // 流式调用的信用帧只有一个4字节的信用数，不经过序列化器
+        if (messageType == RpcProtocol.TYPE_STREAM_CREDIT) {
+            if (dataLength >= 4) {
+                out.add(new StreamCredit(requestId, body.readInt()));
+            }
+            return;
+        }
+
+        // 反序列化为对象，压缩的消息体先解压，再回填协议头中的字段
+        Object obj;
+        if ((serializerField & RpcProtocol.FLAG_COMPRESSED) != 0) {
+            ByteBuf decompressed = compressor.decompress(ctx.alloc(), body);
+            try {
+                obj = serializer.deserialize(decompressed, targetClass);
+            } finally {
+                decompressed.release();
+            }
+        } else {
+            obj = serializer.deserialize(body, targetClass);
+        }
+        if (obj instanceof RpcRequest request) {
+            request.setRequestId(requestId);
+            request.setSerializerId(serializerId);
+            request.setFrameLength(RpcProtocol.HEADER_LENGTH + dataLength);
+        } else if (obj instanceof RpcResponse response) {
+            response.setRequestId(requestId);
+            response.setStatus(status);
+            response.setSerializerId(serializerId);
+            response.setFrameLength(RpcProtocol.HEADER_LENGTH + dataLength);
+        }
+        out.add(obj);
+    }
+
+    /**
+     * 解码旧版协议帧：长度(4字节) + 内容(N字节)
+     */
+    private void decodeLegacy(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
         // 如果可读字节数小于4，则不足以读取长度字段
-        if (in.readableBytes() < 4) {
+        if (in.readableBytes() < RpcProtocol.LEGACY_LENGTH_FIELD) {
             return;
         }
 
@@ -50,8 +229,9 @@ public class RpcDecoder extends ByteToMessageDecoder {
         // 读取消息长度
         int dataLength = in.readInt();
 
-        // 如果数据长度小于0，则关闭连接
-        if (dataLength < 0) {
+        // 如果数据长度小于0或超过上限，则关闭连接
+        if (dataLength < 0 || dataLength > MAX_FRAME_LENGTH) {
+            in.skipBytes(in.readableBytes());
             ctx.close();
             return;
         }
@@ -62,12 +242,43 @@ public class RpcDecoder extends ByteToMessageDecoder {
             return;
         }
 
-        // 读取消息内容
-        byte[] data = new byte[dataLength];
-        in.readBytes(data);
-
-        // 反序列化为对象
-        Object obj = serializer.deserialize(data, targetClass);
+        // 旧版消息体固定为JSON格式
+        Object obj = LegacyProtocolAdapter.of(ctx.channel()).decode(in.readSlice(dataLength), targetClass);
+        int frameLength = RpcProtocol.LEGACY_LENGTH_FIELD + dataLength;
+        if (obj instanceof RpcRequest request) {
+            request.setFrameLength(frameLength);
+        } else if (obj instanceof RpcResponse response) {
+            response.setFrameLength(frameLength);
+        }
         out.add(obj);
     }
+
+    /**
+     * 判断消息类型是否与目标类型一致
+     */
+    private boolean matchesTarget(byte messageType) {
+        return switch (messageType) {
+            case RpcProtocol.TYPE_REQUEST, RpcProtocol.TYPE_STREAM_CREDIT -> targetClass == RpcRequest.class;
+            case RpcProtocol.TYPE_RESPONSE -> targetClass == RpcResponse.class;
+            case RpcProtocol.TYPE_HEARTBEAT -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 拒绝无法处理的请求帧，直接返回错误响应
+     *
+     * @return 错误响应的写出结果，非请求帧不回写，返回已成功的Future
+     */
+    private ChannelFuture reject(ChannelHandlerContext ctx, byte messageType, long requestId, String reason) {
+        if (messageType != RpcProtocol.TYPE_REQUEST) {
+            return ctx.newSucceededFuture();
+        }
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(requestId);
+        response.setStatus(RpcProtocol.STATUS_BAD_REQUEST);
+        response.setErrorMessage(reason);
+        // 从通道尾部写出，确保经过编码器
+        return ctx.channel().writeAndFlush(response);
+    }
 }
@@ -1,6 +1,13 @@
 package com.wangguangwu.netty.dubborpc.codec;
 
+import com.wangguangwu.netty.dubborpc.metrics.MethodMetrics;
+import com.wangguangwu.netty.dubborpc.protocol.Heartbeat;
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import com.wangguangwu.netty.dubborpc.protocol.StreamCredit;
 import com.wangguangwu.netty.dubborpc.serialize.Serializer;
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
@@ -8,7 +15,11 @@ import io.netty.handler.codec.MessageToByteEncoder;
 /**
  * RPC编码器
  * 将对象编码为字节流，用于网络传输
- * 编码格式：长度(4字节) + 内容(N字节)
+ * 编码格式：协议头(18字节) + 内容(N字节)，协议头格式见 {@link RpcProtocol}
+ * <p>
+ * 如果对端在协商时使用的是旧版协议，则按旧版"长度(4字节) + 内容(N字节)"格式回写。
+ * <p>
+ * 对端声明过能解压时，不小于阈值的消息体由 {@link FrameCompressor} 压缩，并在序列化字段中设置压缩标志。
  *
  * @author wangguangwu
  */
@@ -20,33 +31,163 @@ public class RpcEncoder extends MessageToByteEncoder<Object> {
     private final Class<?> targetClass;
 
     /**
-     * 序列化器
+     * 默认序列化器，消息未指定序列化器ID时使用
      */
     private final Serializer serializer;
 
+    /**
+     * 序列化器注册表，用于按消息指定的序列化器ID编码
+     */
+    private final SerializerRegistry serializerRegistry;
+
+    /**
+     * 消息体压缩
+     */
+    private final FrameCompressor compressor = FrameCompressor.fromSystemProperties();
+
     /**
      * 构造函数
      *
-     * @param targetClass 要编码的对象类型
-     * @param serializer  使用的序列化器
+     * @param targetClass        要编码的对象类型
+     * @param serializer         默认序列化器
+     * @param serializerRegistry 序列化器注册表
      */
-    public RpcEncoder(Class<?> targetClass, Serializer serializer) {
+    public RpcEncoder(Class<?> targetClass, Serializer serializer, SerializerRegistry serializerRegistry) {
         this.targetClass = targetClass;
         this.serializer = serializer;
+        this.serializerRegistry = serializerRegistry;
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) throws Exception {
+        // 心跳帧只有协议头，旧版对端不认识心跳，不发送
+        if (msg instanceof Heartbeat) {
+            if (!LegacyProtocolAdapter.isLegacy(ctx.channel())) {
+                encodeHeartbeat(out);
+            }
+            return;
+        }
+
+        // 流式调用的信用帧由请求方发出，只有协议头和信用数
+        if (msg instanceof StreamCredit credit) {
+            if (targetClass == RpcRequest.class) {
+                encodeCredit(credit, out);
+            }
+            return;
+        }
+
         // 检查消息类型是否匹配
-        if (targetClass.isInstance(msg)) {
-            // 序列化对象为字节数组
-            byte[] data = serializer.serialize(msg);
-            
-            // 写入数据长度
+        if (!targetClass.isInstance(msg)) {
+            return;
+        }
+
+        // 旧版对端按旧格式回写
+        int startIndex = out.writerIndex();
+        if (LegacyProtocolAdapter.isLegacy(ctx.channel())) {
+            byte[] data = LegacyProtocolAdapter.of(ctx.channel()).encode(msg);
             out.writeInt(data.length);
-            
-            // 写入数据内容
             out.writeBytes(data);
+            recordBytesOut(msg, out.writerIndex() - startIndex);
+            return;
+        }
+
+        // 选择序列化器：服务端按请求使用的格式回写响应
+        Serializer serializer = selectSerializer(msg);
+
+        // 写入协议头
+        boolean peerSupportsCompression = FrameCompressor.isPeerSupported(ctx.channel());
+        out.writeShort(RpcProtocol.MAGIC);
+        out.writeByte(RpcProtocol.VERSION);
+        int serializerIndex = out.writerIndex() + 1;
+        if (msg instanceof RpcResponse response) {
+            out.writeByte(RpcProtocol.TYPE_RESPONSE);
+            // 只向声明过支持压缩的客户端回应支持压缩，旧版客户端收到的序列化字段不变
+            out.writeByte(peerSupportsCompression
+                    ? serializer.getSerializerId() | RpcProtocol.FLAG_COMPRESSION_SUPPORTED
+                    : serializer.getSerializerId());
+            out.writeByte(response.getStatus());
+            out.writeLong(response.getRequestId());
+        } else {
+            out.writeByte(RpcProtocol.TYPE_REQUEST);
+            out.writeByte(serializer.getSerializerId());
+            // 请求帧的状态字段用于声明能解压压缩帧
+            out.writeByte(RpcProtocol.REQUEST_FLAG_COMPRESSION_SUPPORTED);
+            out.writeLong(((RpcRequest) msg).getRequestId());
+        }
+
+        // 预留数据长度字段
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+
+        // 序列化对象，直接写入输出缓冲区；已编码好的响应体直接写出
+        if (msg instanceof RpcResponse response && response.getEncodedBody() != null) {
+            out.writeBytes(response.getEncodedBody());
+        } else {
+            serializer.serialize(msg, out);
+        }
+
+        // 对端能解压时压缩较大的消息体
+        if (peerSupportsCompression && compressor.compress(ctx.alloc(), out, lengthIndex + 4)) {
+            out.setByte(serializerIndex, out.getByte(serializerIndex) | RpcProtocol.FLAG_COMPRESSED);
+        }
+
+        // 回填数据长度
+        out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+        recordBytesOut(msg, out.writerIndex() - startIndex);
+    }
+
+    /**
+     * 把写出的帧长度计入消息所属方法的发出字节数
+     */
+    private static void recordBytesOut(Object msg, int frameLength) {
+        MethodMetrics metrics = msg instanceof RpcResponse response ? response.getMetrics()
+                : ((RpcRequest) msg).getMetrics();
+        if (metrics != null) {
+            metrics.addBytesOut(frameLength);
+        }
+    }
+
+    /**
+     * 编码心跳帧：只有协议头
+     */
+    private void encodeHeartbeat(ByteBuf out) {
+        out.writeShort(RpcProtocol.MAGIC);
+        out.writeByte(RpcProtocol.VERSION);
+        out.writeByte(RpcProtocol.TYPE_HEARTBEAT);
+        out.writeByte(serializer.getSerializerId());
+        out.writeByte(RpcProtocol.STATUS_OK);
+        out.writeLong(0);
+        out.writeInt(0);
+    }
+
+    /**
+     * 编码信用帧：协议头 + 4字节的信用数
+     */
+    private void encodeCredit(StreamCredit credit, ByteBuf out) {
+        out.writeShort(RpcProtocol.MAGIC);
+        out.writeByte(RpcProtocol.VERSION);
+        out.writeByte(RpcProtocol.TYPE_STREAM_CREDIT);
+        out.writeByte(serializer.getSerializerId());
+        out.writeByte(RpcProtocol.STATUS_OK);
+        out.writeLong(credit.getRequestId());
+        out.writeInt(4);
+        out.writeInt(credit.getCredits());
+    }
+
+    /**
+     * 选择编码使用的序列化器
+     */
+    private Serializer selectSerializer(Object msg) {
+        byte serializerId = 0;
+        if (msg instanceof RpcResponse response) {
+            serializerId = response.getSerializerId();
+        } else if (msg instanceof RpcRequest request) {
+            serializerId = request.getSerializerId();
+        }
+        if (serializerId == 0 || serializerId == serializer.getSerializerId()) {
+            return serializer;
         }
+        Serializer selected = serializerRegistry.getSerializer(serializerId);
+        return selected != null ? selected : serializer;
     }
 }
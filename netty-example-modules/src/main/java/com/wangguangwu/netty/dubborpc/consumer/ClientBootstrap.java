@@ -1,8 +1,16 @@
 package com.wangguangwu.netty.dubborpc.consumer;
 
 import com.wangguangwu.netty.dubborpc.api.GreetingService;
+import com.wangguangwu.netty.dubborpc.cluster.ClusterClient;
+import com.wangguangwu.netty.dubborpc.cluster.LeastActiveLoadBalancer;
+import com.wangguangwu.netty.dubborpc.discovery.DiscoveryWatcher;
+import com.wangguangwu.netty.dubborpc.discovery.ProviderInfo;
 import com.wangguangwu.netty.dubborpc.proxy.RpcClientProxy;
-import com.wangguangwu.netty.dubborpc.transport.client.NettyClient;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 客户端启动类
@@ -12,21 +20,19 @@ import com.wangguangwu.netty.dubborpc.transport.client.NettyClient;
  */
 public class ClientBootstrap {
 
-    // 服务端地址和端口
-    private static final String SERVER_HOST = "127.0.0.1";
-    private static final int SERVER_PORT = 8080;
-    
     // 默认超时时间（毫秒）
     private static final long DEFAULT_TIMEOUT = 5000;
 
     public static void main(String[] args) {
-        // 创建Netty客户端
-        NettyClient client = new NettyClient(SERVER_HOST, SERVER_PORT);
-        
+        // 创建集群客户端，服务提供者由服务发现目录提供，不再硬编码地址
+        ClusterClient client = new ClusterClient(new LeastActiveLoadBalancer());
+        DiscoveryWatcher watcher = new DiscoveryWatcher(ProviderInfo.defaultDirectory(), GreetingService.class, client);
+
         try {
-            // 启动客户端
-            System.out.println("RPC客户端正在连接服务器...");
-            client.start();
+            // 启动服务发现，返回前已连接当前发布的服务提供者
+            System.out.println("RPC客户端正在发现服务提供者...");
+            watcher.start();
+            System.out.println("已发现服务提供者: " + client.getProviders());
             
             // 创建RPC客户端代理
             RpcClientProxy proxy = new RpcClientProxy(client, DEFAULT_TIMEOUT);
@@ -42,11 +48,32 @@ public class ClientBootstrap {
                 // 暂停一下，方便观察
                 Thread.sleep(1000);
             }
+
+            // 异步调用远程方法，多个调用同时在途，不阻塞当前线程
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                futures.add(greetingService.greetAsync("Async User " + i));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            for (CompletableFuture<String> future : futures) {
+                System.out.println("异步调用结果: " + future.join());
+            }
+
+            // 流式调用远程方法，服务端按本地的消费速度逐条发送
+            Iterator<String> stream = greetingService.greetStream("Stream User", 5);
+            while (stream.hasNext()) {
+                System.out.println("流式调用结果: " + stream.next());
+            }
         } catch (Exception e) {
             System.err.println("RPC客户端调用失败: " + e.getMessage());
             e.printStackTrace();
         } finally {
-            // 关闭客户端
+            // 停止服务发现并关闭客户端
+            try {
+                watcher.close();
+            } catch (Exception e) {
+                System.err.println("停止服务发现失败: " + e.getMessage());
+            }
             client.shutdown();
         }
     }
@@ -0,0 +1,193 @@
+package com.wangguangwu.netty.dubborpc.discovery;
+
+import com.wangguangwu.netty.dubborpc.cluster.ClusterClient;
+import com.wangguangwu.netty.dubborpc.cluster.ProviderEndpoint;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务发现监听器
+ * 监听发现目录下某个服务接口的提供者文件，把变化增量同步到 {@link ClusterClient}：
+ * 新出现的提供者建立连接后加入，文件删除或心跳超时的提供者移除，权重和负载变化就地更新。
+ * <p>
+ * 同步在后台线程上进行，建立连接也不在调用路径上；除文件变化通知外，还会按心跳间隔定期全量扫描，
+ * 用于发现心跳超时的提供者和弥补可能丢失的文件系统事件。
+ *
+ * @author wangguangwu
+ */
+public class DiscoveryWatcher implements AutoCloseable {
+
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(DiscoveryWatcher.class);
+
+    /**
+     * 心跳超时时间（毫秒），超过该时间未刷新的提供者视为下线
+     */
+    public static final long HEARTBEAT_TIMEOUT_MILLIS = ProviderPublisher.HEARTBEAT_INTERVAL_MILLIS * 3;
+
+    /**
+     * 服务目录
+     */
+    private final Path serviceDirectory;
+
+    /**
+     * 服务接口名
+     */
+    private final String interfaceName;
+
+    /**
+     * 被同步的集群客户端
+     */
+    private final ClusterClient clusterClient;
+
+    /**
+     * 文件变化通知
+     */
+    private WatchService watchService;
+
+    /**
+     * 是否已关闭
+     */
+    private volatile boolean closed;
+
+    /**
+     * 构造函数
+     *
+     * @param root           发现目录
+     * @param interfaceClass 服务接口
+     * @param clusterClient  被同步的集群客户端
+     */
+    public DiscoveryWatcher(Path root, Class<?> interfaceClass, ClusterClient clusterClient) {
+        this.interfaceName = interfaceClass.getName();
+        this.serviceDirectory = ProviderInfo.serviceDirectory(root, interfaceName);
+        this.clusterClient = clusterClient;
+    }
+
+    /**
+     * 启动监听
+     * 先同步一次当前的提供者列表再返回，之后的变化由后台线程同步
+     *
+     * @throws IOException 无法创建或监听服务目录
+     */
+    public void start() throws IOException {
+        Files.createDirectories(serviceDirectory);
+        watchService = serviceDirectory.getFileSystem().newWatchService();
+        serviceDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        sync();
+
+        Thread watcherThread = new Thread(this::watch, "rpc-discovery-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    /**
+     * 停止监听，不关闭集群客户端
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch() {
+        while (!closed) {
+            try {
+                WatchKey key = watchService.poll(ProviderPublisher.HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    // 一批事件只触发一次全量比对
+                    key.pollEvents();
+                    key.reset();
+                }
+                sync();
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.warn("服务发现同步失败: {}", interfaceName, e);
+            }
+        }
+    }
+
+    /**
+     * 比对发现目录和集群客户端的提供者列表，增量更新
+     */
+    private synchronized void sync() {
+        Map<String, ProviderInfo> discovered = scan();
+        if (discovered == null) {
+            // 目录读取失败时保持现状，避免误删全部提供者
+            return;
+        }
+
+        // 移除已下线的提供者
+        for (ProviderEndpoint provider : clusterClient.getProviders()) {
+            if (!discovered.containsKey(provider.getAddress())) {
+                clusterClient.removeProvider(provider.getHost(), provider.getPort());
+                LOGGER.info("服务提供者下线: {} -> {}", interfaceName, provider.getAddress());
+            }
+        }
+
+        // 更新已有的提供者，连接新上线的提供者
+        for (ProviderInfo info : discovered.values()) {
+            // 单个提供者失败不影响其余提供者的同步，下一次同步重试
+            try {
+                if (clusterClient.updateProvider(info.getHost(), info.getPort(), info.getWeight(), info.getLoad())) {
+                    continue;
+                }
+                clusterClient.addProvider(info.getHost(), info.getPort(), info.getWeight())
+                        .setReportedLoad(info.getLoad());
+                LOGGER.info("服务提供者上线: {} -> {}", interfaceName, info.getAddress());
+            } catch (Exception e) {
+                LOGGER.warn("同步服务提供者失败: {}, 原因: {}", info.getAddress(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 读取服务目录下心跳未超时、权重大于0的提供者
+     * 权重不大于0的提供者（如正在摘流的节点）视为下线
+     *
+     * @return 地址 -> 提供者信息，目录读取失败时返回null
+     */
+    private Map<String, ProviderInfo> scan() {
+        Map<String, ProviderInfo> discovered = new HashMap<>();
+        long deadline = System.currentTimeMillis() - HEARTBEAT_TIMEOUT_MILLIS;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(serviceDirectory, "*" + ProviderInfo.FILE_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    ProviderInfo info = ProviderInfo.read(file);
+                    if (info.getWeight() > 0 && info.getHeartbeatMillis() >= deadline) {
+                        discovered.put(info.getAddress(), info);
+                    }
+                } catch (NoSuchFileException e) {
+                    // 扫描过程中被删除
+                } catch (IOException e) {
+                    LOGGER.warn("读取提供者文件失败: {}, 原因: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("扫描服务目录失败: {}, 原因: {}", serviceDirectory, e.getMessage());
+            return null;
+        }
+        return discovered;
+    }
+}
@@ -0,0 +1,173 @@
+package com.wangguangwu.netty.dubborpc.discovery;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * 服务提供者信息
+ * 对应发现目录下的一个文件：{@code <根目录>/<接口名>/<host>_<port>.properties}，
+ * 内容包括地址、权重、负载和最近一次心跳时间
+ *
+ * @author wangguangwu
+ */
+@Getter
+public class ProviderInfo {
+
+    /**
+     * 发现目录的系统属性名
+     */
+    public static final String DIRECTORY_PROPERTY = "dubborpc.discovery.dir";
+
+    /**
+     * 提供者文件后缀
+     */
+    static final String FILE_SUFFIX = ".properties";
+
+    /**
+     * 服务提供者地址
+     */
+    private final String host;
+
+    /**
+     * 服务提供者端口
+     */
+    private final int port;
+
+    /**
+     * 权重
+     */
+    private final int weight;
+
+    /**
+     * 负载（进行中的请求数）
+     */
+    private final long load;
+
+    /**
+     * 最近一次心跳时间（毫秒时间戳）
+     */
+    private final long heartbeatMillis;
+
+    /**
+     * 构造函数
+     *
+     * @param host            服务提供者地址
+     * @param port            服务提供者端口
+     * @param weight          权重
+     * @param load            负载
+     * @param heartbeatMillis 心跳时间
+     */
+    public ProviderInfo(String host, int port, int weight, long load, long heartbeatMillis) {
+        this.host = host;
+        this.port = port;
+        this.weight = weight;
+        this.load = load;
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    /**
+     * 获取默认的发现目录，取系统属性 {@value #DIRECTORY_PROPERTY}，未设置时为临时目录下的 dubborpc-discovery
+     *
+     * @return 发现目录
+     */
+    public static Path defaultDirectory() {
+        String configured = System.getProperty(DIRECTORY_PROPERTY);
+        if (configured == null || configured.isBlank()) {
+            return Paths.get(System.getProperty("java.io.tmpdir"), "dubborpc-discovery");
+        }
+        return Paths.get(configured);
+    }
+
+    /**
+     * 获取服务接口对应的目录
+     *
+     * @param root          发现目录
+     * @param interfaceName 服务接口名
+     * @return 服务目录
+     */
+    public static Path serviceDirectory(Path root, String interfaceName) {
+        return root.resolve(interfaceName);
+    }
+
+    /**
+     * 获取提供者文件路径
+     *
+     * @param serviceDirectory 服务目录
+     * @param host             服务提供者地址
+     * @param port             服务提供者端口
+     * @return 提供者文件路径
+     */
+    public static Path providerFile(Path serviceDirectory, String host, int port) {
+        return serviceDirectory.resolve(host + "_" + port + FILE_SUFFIX);
+    }
+
+    /**
+     * 读取提供者文件
+     *
+     * @param file 提供者文件
+     * @return 服务提供者信息
+     * @throws IOException 读取失败或内容不完整
+     */
+    public static ProviderInfo read(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        try {
+            return new ProviderInfo(
+                    properties.getProperty("host"),
+                    Integer.parseInt(properties.getProperty("port")),
+                    Integer.parseInt(properties.getProperty("weight")),
+                    Long.parseLong(properties.getProperty("load", "0")),
+                    Long.parseLong(properties.getProperty("heartbeat")));
+        } catch (RuntimeException e) {
+            throw new IOException("提供者文件内容不完整: " + file, e);
+        }
+    }
+
+    /**
+     * 写入提供者文件
+     * 先写临时文件再原子替换，读取方不会看到写了一半的内容
+     *
+     * @param serviceDirectory 服务目录
+     * @throws IOException 写入失败
+     */
+    public void write(Path serviceDirectory) throws IOException {
+        Files.createDirectories(serviceDirectory);
+        Properties properties = new Properties();
+        properties.setProperty("host", host);
+        properties.setProperty("port", String.valueOf(port));
+        properties.setProperty("weight", String.valueOf(weight));
+        properties.setProperty("load", String.valueOf(load));
+        properties.setProperty("heartbeat", String.valueOf(heartbeatMillis));
+
+        Path file = providerFile(serviceDirectory, host, port);
+        Path temp = Files.createTempFile(serviceDirectory, "." + host + "_" + port, ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 获取地址，格式为 host:port
+     *
+     * @return 地址
+     */
+    public String getAddress() {
+        return host + ":" + port;
+    }
+}
@@ -0,0 +1,151 @@
+package com.wangguangwu.netty.dubborpc.discovery;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 服务提供者发布器
+ * 把本服务端的地址、权重和负载写入发现目录，并定期刷新心跳；关闭时删除已发布的文件。
+ * 服务端异常退出时文件不会被删除，客户端按心跳超时将其视为下线。
+ *
+ * @author wangguangwu
+ */
+public class ProviderPublisher implements AutoCloseable {
+
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ProviderPublisher.class);
+
+    /**
+     * 心跳刷新间隔（毫秒）
+     */
+    public static final long HEARTBEAT_INTERVAL_MILLIS = 2_000;
+
+    /**
+     * 发现目录
+     */
+    private final Path root;
+
+    /**
+     * 服务端地址
+     */
+    private final String host;
+
+    /**
+     * 服务端端口
+     */
+    private final int port;
+
+    /**
+     * 权重
+     */
+    private volatile int weight;
+
+    /**
+     * 负载来源
+     */
+    private final LongSupplier loadSupplier;
+
+    /**
+     * 已发布的服务接口
+     */
+    private final Set<String> interfaceNames = new CopyOnWriteArraySet<>();
+
+    /**
+     * 心跳线程
+     */
+    private final ScheduledExecutorService heartbeat =
+            Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("rpc-discovery-publisher", true));
+
+    /**
+     * 构造函数
+     *
+     * @param root         发现目录
+     * @param host         服务端地址
+     * @param port         服务端端口
+     * @param weight       权重，必须大于0
+     * @param loadSupplier 负载来源，如 {@code NettyServer::getInFlightRequests}
+     */
+    public ProviderPublisher(Path root, String host, int port, int weight, LongSupplier loadSupplier) {
+        this.root = root;
+        this.host = host;
+        this.port = port;
+        this.weight = checkWeight(weight);
+        this.loadSupplier = loadSupplier;
+        heartbeat.scheduleWithFixedDelay(this::refresh,
+                HEARTBEAT_INTERVAL_MILLIS, HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 发布服务，立即写入提供者文件
+     *
+     * @param interfaceClass 服务接口
+     * @throws IOException 写入失败
+     */
+    public void publish(Class<?> interfaceClass) throws IOException {
+        interfaceNames.add(interfaceClass.getName());
+        write(interfaceClass.getName());
+    }
+
+    /**
+     * 调整权重，下一次心跳时生效
+     *
+     * @param weight 权重，必须大于0
+     */
+    public void setWeight(int weight) {
+        this.weight = checkWeight(weight);
+    }
+
+    private static int checkWeight(int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("权重必须大于0: " + weight);
+        }
+        return weight;
+    }
+
+    /**
+     * 停止心跳并删除已发布的提供者文件
+     */
+    @Override
+    public void close() {
+        heartbeat.shutdownNow();
+        for (String interfaceName : interfaceNames) {
+            try {
+                Files.deleteIfExists(ProviderInfo.providerFile(
+                        ProviderInfo.serviceDirectory(root, interfaceName), host, port));
+            } catch (IOException e) {
+                LOGGER.warn("删除提供者文件失败: {}, 原因: {}", interfaceName, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 刷新所有已发布服务的心跳和负载
+     */
+    private void refresh() {
+        for (String interfaceName : interfaceNames) {
+            try {
+                write(interfaceName);
+            } catch (IOException e) {
+                LOGGER.warn("刷新提供者文件失败: {}, 原因: {}", interfaceName, e.getMessage());
+            }
+        }
+    }
+
+    private void write(String interfaceName) throws IOException {
+        new ProviderInfo(host, port, weight, loadSupplier.getAsLong(), System.currentTimeMillis())
+                .write(ProviderInfo.serviceDirectory(root, interfaceName));
+    }
+}
@@ -0,0 +1,236 @@
+package com.wangguangwu.netty.dubborpc.limit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求准入控制
+ * 请求执行前依次检查服务级、方法级的固定并发限制和服务端整体的自适应限制，
+ * 任一限制已满时拒绝请求，由服务端立即返回"限流"响应，调用方可以马上改投其他提供者。
+ * <p>
+ * 方法级限制按方法名配置，同名的重载方法共享一个限制。限制可以在运行时调整，
+ * 已获取的许可仍释放到获取时的限制器上。
+ *
+ * @author wangguangwu
+ */
+public class AdmissionController {
+
+    /**
+     * 是否启用自适应限流的系统属性名
+     */
+    public static final String ADAPTIVE_PROPERTY = "dubborpc.limit.adaptive";
+
+    /**
+     * 接口名称 -> 服务的并发限制
+     */
+    private final Map<String, ServiceLimits> serviceLimits = new ConcurrentHashMap<>();
+
+    /**
+     * 服务端整体的自适应限制器，为null时不启用
+     */
+    private volatile ConcurrencyLimiter adaptiveLimiter;
+
+    /**
+     * 被拒绝的请求数
+     */
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * 按系统属性创建准入控制，{@value #ADAPTIVE_PROPERTY}=true 时启用默认参数的自适应限流
+     *
+     * @return 准入控制
+     */
+    public static AdmissionController fromSystemProperties() {
+        AdmissionController controller = new AdmissionController();
+        if (Boolean.getBoolean(ADAPTIVE_PROPERTY)) {
+            controller.setAdaptiveLimiter(new GradientConcurrencyLimiter());
+        }
+        return controller;
+    }
+
+    /**
+     * 设置服务级并发限制
+     *
+     * @param interfaceClass 服务接口
+     * @param maxConcurrency 最大并发数，小于等于0表示取消限制
+     */
+    public void setServiceLimit(Class<?> interfaceClass, int maxConcurrency) {
+        serviceLimits(interfaceClass).serviceLimiter =
+                maxConcurrency > 0 ? new FixedConcurrencyLimiter(maxConcurrency) : null;
+    }
+
+    /**
+     * 设置方法级并发限制
+     *
+     * @param interfaceClass 服务接口
+     * @param methodName     方法名称
+     * @param maxConcurrency 最大并发数，小于等于0表示取消限制
+     */
+    public void setMethodLimit(Class<?> interfaceClass, String methodName, int maxConcurrency) {
+        Map<String, ConcurrencyLimiter> methodLimiters = serviceLimits(interfaceClass).methodLimiters;
+        if (maxConcurrency > 0) {
+            methodLimiters.put(methodName, new FixedConcurrencyLimiter(maxConcurrency));
+        } else {
+            methodLimiters.remove(methodName);
+        }
+    }
+
+    /**
+     * 设置服务端整体的自适应限制器
+     *
+     * @param limiter 限制器，为null时关闭自适应限流
+     */
+    public void setAdaptiveLimiter(ConcurrencyLimiter limiter) {
+        this.adaptiveLimiter = limiter;
+    }
+
+    /**
+     * 获取服务端整体的自适应限制器
+     *
+     * @return 限制器，未启用时为null
+     */
+    public ConcurrencyLimiter getAdaptiveLimiter() {
+        return adaptiveLimiter;
+    }
+
+    /**
+     * 获取被拒绝的请求数
+     *
+     * @return 请求数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * 为请求获取许可
+     *
+     * @param interfaceName 服务接口名称
+     * @param methodName    方法名称
+     * @return 许可，任一限制已满时返回null；没有任何限制时返回不做任何事的共享许可
+     */
+    public Permit tryAcquire(String interfaceName, String methodName) {
+        ServiceLimits limits = interfaceName == null ? null : serviceLimits.get(interfaceName);
+        ConcurrencyLimiter adaptive = adaptiveLimiter;
+        if (limits == null && adaptive == null) {
+            return Permit.UNLIMITED;
+        }
+
+        ConcurrencyLimiter service = null;
+        ConcurrencyLimiter method = null;
+        if (limits != null) {
+            service = limits.serviceLimiter;
+            method = methodName == null ? null : limits.methodLimiters.get(methodName);
+        }
+
+        if (service != null && !service.tryAcquire()) {
+            return reject();
+        }
+        if (method != null && !method.tryAcquire()) {
+            dropAll(service, null);
+            return reject();
+        }
+        if (adaptive != null && !adaptive.tryAcquire()) {
+            dropAll(service, method);
+            return reject();
+        }
+        return new Permit(service, method, adaptive, System.nanoTime());
+    }
+
+    private Permit reject() {
+        rejectedCount.increment();
+        return null;
+    }
+
+    /**
+     * 退还已获取的许可，不作为耗时样本
+     */
+    private static void dropAll(ConcurrencyLimiter service, ConcurrencyLimiter method) {
+        if (service != null) {
+            service.onDropped();
+        }
+        if (method != null) {
+            method.onDropped();
+        }
+    }
+
+    private ServiceLimits serviceLimits(Class<?> interfaceClass) {
+        return serviceLimits.computeIfAbsent(interfaceClass.getName(), name -> new ServiceLimits());
+    }
+
+    /**
+     * 一个服务的并发限制
+     */
+    private static final class ServiceLimits {
+
+        /**
+         * 服务级限制器，为null时不限制
+         */
+        private volatile ConcurrencyLimiter serviceLimiter;
+
+        /**
+         * 方法名称 -> 方法级限制器
+         */
+        private final Map<String, ConcurrencyLimiter> methodLimiters = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 请求许可，请求结束时必须释放且只释放一次
+     */
+    public static final class Permit {
+
+        /**
+         * 没有任何限制时使用的共享许可
+         */
+        static final Permit UNLIMITED = new Permit(null, null, null, 0);
+
+        private final ConcurrencyLimiter service;
+
+        private final ConcurrencyLimiter method;
+
+        private final ConcurrencyLimiter adaptive;
+
+        /**
+         * 获取许可的时间（纳秒）
+         */
+        private final long startNanos;
+
+        private Permit(ConcurrencyLimiter service, ConcurrencyLimiter method, ConcurrencyLimiter adaptive,
+                       long startNanos) {
+            this.service = service;
+            this.method = method;
+            this.adaptive = adaptive;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * 请求执行完成，释放许可并记录耗时
+         */
+        public void release() {
+            if (this == UNLIMITED) {
+                return;
+            }
+            long latencyNanos = System.nanoTime() - startNanos;
+            if (service != null) {
+                service.onSuccess(latencyNanos);
+            }
+            if (method != null) {
+                method.onSuccess(latencyNanos);
+            }
+            if (adaptive != null) {
+                adaptive.onSuccess(latencyNanos);
+            }
+        }
+
+        /**
+         * 请求未被执行（如业务线程池队列已满），释放许可
+         */
+        public void drop() {
+            dropAll(service, method);
+            if (adaptive != null) {
+                adaptive.onDropped();
+            }
+        }
+    }
+}
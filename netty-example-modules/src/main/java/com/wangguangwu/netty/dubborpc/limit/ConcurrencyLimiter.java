@@ -0,0 +1,43 @@
+package com.wangguangwu.netty.dubborpc.limit;
+
+/**
+ * 并发限制器
+ * 请求开始执行前获取许可，结束后释放许可；获取失败的请求应立即被拒绝，而不是排队等待
+ *
+ * @author wangguangwu
+ */
+public interface ConcurrencyLimiter {
+
+    /**
+     * 尝试获取一个许可，不阻塞
+     *
+     * @return 进行中的请求数未达到限值时返回true
+     */
+    boolean tryAcquire();
+
+    /**
+     * 请求执行完成，释放许可
+     *
+     * @param latencyNanos 从获取许可到执行完成的耗时（纳秒）
+     */
+    void onSuccess(long latencyNanos);
+
+    /**
+     * 请求在获取许可后被下游丢弃（如业务线程池队列已满），释放许可
+     */
+    void onDropped();
+
+    /**
+     * 获取当前的限值
+     *
+     * @return 最大并发数
+     */
+    int getLimit();
+
+    /**
+     * 获取进行中的请求数
+     *
+     * @return 请求数
+     */
+    int getInFlight();
+}
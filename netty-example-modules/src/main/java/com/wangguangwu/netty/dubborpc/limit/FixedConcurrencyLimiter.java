@@ -0,0 +1,72 @@
+package com.wangguangwu.netty.dubborpc.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 固定并发限制器
+ * 进行中的请求数达到配置的上限后拒绝新请求
+ *
+ * @author wangguangwu
+ */
+public class FixedConcurrencyLimiter implements ConcurrencyLimiter {
+
+    /**
+     * 最大并发数
+     */
+    private final int limit;
+
+    /**
+     * 进行中的请求数
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 构造函数
+     *
+     * @param limit 最大并发数，必须大于0
+     */
+    public FixedConcurrencyLimiter(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("最大并发数必须大于0: " + limit);
+        }
+        this.limit = limit;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void onSuccess(long latencyNanos) {
+        inFlight.decrementAndGet();
+    }
+
+    @Override
+    public void onDropped() {
+        inFlight.decrementAndGet();
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public String toString() {
+        return "FixedConcurrencyLimiter{limit=" + limit + ", inFlight=" + inFlight.get() + "}";
+    }
+}
@@ -0,0 +1,258 @@
+package com.wangguangwu.netty.dubborpc.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于延迟梯度的自适应并发限制器
+ * 把请求耗时分成100ms的采样窗口，比较窗口内的平均耗时与无排队耗时（观察到的最小耗时）：
+ * 平均耗时超过无排队耗时的2倍说明请求在排队，按比例收缩限值；否则限值按 sqrt(limit) 缓慢增长，
+ * 从而在排队拖慢所有调用方之前提前拒绝多余的请求。
+ * <p>
+ * 持续排队时最小耗时也包含排队时间，因此每30秒做一次探测：把限值降到最小值让队列排空，重新测量无排队耗时，
+ * 之后限值再逐步恢复，同时也能适应服务本身耗时的变化。
+ * 进行中的请求数不到限值一半时不提高限值，避免空闲时限值无限增长；
+ * 下游丢弃请求（如业务线程池队列已满）时，下一个窗口直接把限值乘以0.9。
+ * 记录耗时只累加 LongAdder，窗口结束时由一个线程完成调整，调用路径上不加锁。
+ *
+ * @author wangguangwu
+ */
+public class GradientConcurrencyLimiter implements ConcurrencyLimiter {
+
+    /**
+     * 默认初始限值
+     */
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+    /**
+     * 默认最小限值
+     */
+    public static final int DEFAULT_MIN_LIMIT = 8;
+
+    /**
+     * 默认最大限值
+     */
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+
+    /**
+     * 采样窗口长度（纳秒）
+     */
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * 每个窗口至少需要的样本数，样本不足时窗口顺延
+     */
+    private static final int MIN_SAMPLES = 10;
+
+    /**
+     * 探测周期（窗口数），约等于30秒
+     */
+    private static final int PROBE_WINDOWS = 300;
+
+    /**
+     * 第一次探测的窗口数：启动阶段的耗时受类加载、JIT和线程创建影响偏高，约1秒后先探测一次
+     */
+    private static final int FIRST_PROBE_WINDOWS = 10;
+
+    /**
+     * 耗时容忍度：平均耗时不超过无排队耗时的2倍时不收缩限值
+     */
+    private static final double RTT_TOLERANCE = 2.0;
+
+    /**
+     * 每个窗口向新限值移动的比例
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * 下游丢弃请求时限值的收缩比例
+     */
+    private static final double DROP_BACKOFF = 0.9;
+
+    /**
+     * 最小限值
+     */
+    private final int minLimit;
+
+    /**
+     * 最大限值
+     */
+    private final int maxLimit;
+
+    /**
+     * 进行中的请求数
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 当前窗口内进行中请求数的峰值
+     */
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    /**
+     * 当前窗口的耗时总和（纳秒）
+     */
+    private final LongAdder rttSum = new LongAdder();
+
+    /**
+     * 当前窗口的样本数
+     */
+    private final LongAdder rttCount = new LongAdder();
+
+    /**
+     * 当前窗口的最小耗时（纳秒）
+     */
+    private final AtomicLong windowMinRtt = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * 下一次调整限值的时间（纳秒），CAS 成功的线程负责调整
+     */
+    private final AtomicLong nextUpdateNanos = new AtomicLong(System.nanoTime() + WINDOW_NANOS);
+
+    /**
+     * 当前窗口内是否有请求被下游丢弃
+     */
+    private volatile boolean dropped;
+
+    /**
+     * 当前的限值，tryAcquire 只读取该字段
+     */
+    private volatile int limit;
+
+    /**
+     * 限值的精确估计，由 this 保护
+     */
+    private double estimatedLimit;
+
+    /**
+     * 无排队耗时（纳秒），由 this 保护
+     */
+    private long noLoadRtt = Long.MAX_VALUE;
+
+    /**
+     * 已完成的窗口数，由 this 保护
+     */
+    private int windows;
+
+    /**
+     * 构造函数，使用默认的初始、最小和最大限值
+     */
+    public GradientConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param initialLimit 初始限值
+     * @param minLimit     最小限值
+     * @param maxLimit     最大限值
+     */
+    public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("限值必须满足 0 < min <= initial <= max: "
+                    + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                if (current + 1 > peakInFlight.get()) {
+                    peakInFlight.accumulateAndGet(current + 1, Math::max);
+                }
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void onSuccess(long latencyNanos) {
+        inFlight.decrementAndGet();
+        rttSum.add(latencyNanos);
+        rttCount.increment();
+        if (latencyNanos < windowMinRtt.get()) {
+            windowMinRtt.accumulateAndGet(latencyNanos, Math::min);
+        }
+
+        long now = System.nanoTime();
+        long next = nextUpdateNanos.get();
+        if (now - next >= 0 && rttCount.sum() >= MIN_SAMPLES
+                && nextUpdateNanos.compareAndSet(next, now + WINDOW_NANOS)) {
+            update();
+        }
+    }
+
+    @Override
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        dropped = true;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 结束当前窗口并调整限值
+     */
+    private synchronized void update() {
+        long count = rttCount.sumThenReset();
+        long sum = rttSum.sumThenReset();
+        long minRtt = windowMinRtt.getAndSet(Long.MAX_VALUE);
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (count == 0) {
+            return;
+        }
+
+        // 定期探测：降低限值让队列排空，之后的窗口重新测量无排队耗时
+        if (++windows % PROBE_WINDOWS == 0 || windows == FIRST_PROBE_WINDOWS) {
+            noLoadRtt = Long.MAX_VALUE;
+            dropped = false;
+            setEstimatedLimit(minLimit);
+            return;
+        }
+        noLoadRtt = Math.min(noLoadRtt, minRtt);
+        double averageRtt = (double) sum / count;
+
+        if (dropped) {
+            dropped = false;
+            setEstimatedLimit(estimatedLimit * DROP_BACKOFF);
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * noLoadRtt / averageRtt));
+        // 进行中的请求数不到限值一半，说明负载不足以检验当前限值，只收缩不增长
+        if (gradient == 1.0 && peak < estimatedLimit / 2) {
+            return;
+        }
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        setEstimatedLimit(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+    }
+
+    private void setEstimatedLimit(double value) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, value));
+        limit = (int) estimatedLimit;
+    }
+
+    @Override
+    public String toString() {
+        return "GradientConcurrencyLimiter{limit=" + limit + ", inFlight=" + inFlight.get() + "}";
+    }
+}
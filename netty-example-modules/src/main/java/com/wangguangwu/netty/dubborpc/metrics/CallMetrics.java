@@ -0,0 +1,44 @@
+package com.wangguangwu.netty.dubborpc.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * 调用指标
+ * 延迟相关的读取方法都基于一次延迟快照计算，读取时才合并和复制直方图，记录路径不受影响
+ *
+ * @author wangguangwu
+ */
+public abstract class CallMetrics implements CallMetricsMBean {
+
+    /**
+     * 获取自创建以来的延迟分布快照
+     *
+     * @return 延迟直方图的副本（微秒）
+     */
+    public abstract Histogram latencySnapshot();
+
+    @Override
+    public double getLatencyMeanMicros() {
+        return latencySnapshot().getMean();
+    }
+
+    @Override
+    public long getLatencyP50Micros() {
+        return latencySnapshot().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getLatencyP99Micros() {
+        return latencySnapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getLatencyP999Micros() {
+        return latencySnapshot().getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getLatencyMaxMicros() {
+        return latencySnapshot().getMaxValue();
+    }
+}
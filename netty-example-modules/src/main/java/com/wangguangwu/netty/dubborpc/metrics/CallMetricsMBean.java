@@ -0,0 +1,87 @@
+package com.wangguangwu.netty.dubborpc.metrics;
+
+/**
+ * 调用指标的JMX视图
+ * 方法级和接口级的指标都以此接口注册到平台MBeanServer，延迟单位为微秒
+ *
+ * @author wangguangwu
+ */
+public interface CallMetricsMBean {
+
+    /**
+     * 获取调用次数
+     *
+     * @return 调用次数，包含失败、超时和被拒绝的调用
+     */
+    long getCalls();
+
+    /**
+     * 获取失败次数
+     *
+     * @return 失败次数，不包含超时和被拒绝的调用
+     */
+    long getErrors();
+
+    /**
+     * 获取超时次数
+     *
+     * @return 超时次数
+     */
+    long getTimeouts();
+
+    /**
+     * 获取被服务端限流或过载拒绝的次数
+     *
+     * @return 拒绝次数
+     */
+    long getRejected();
+
+    /**
+     * 获取收到的字节数
+     *
+     * @return 字节数，包含协议头
+     */
+    long getBytesIn();
+
+    /**
+     * 获取发出的字节数
+     *
+     * @return 字节数，包含协议头
+     */
+    long getBytesOut();
+
+    /**
+     * 获取平均延迟
+     *
+     * @return 平均延迟（微秒）
+     */
+    double getLatencyMeanMicros();
+
+    /**
+     * 获取50分位延迟
+     *
+     * @return 延迟（微秒）
+     */
+    long getLatencyP50Micros();
+
+    /**
+     * 获取99分位延迟
+     *
+     * @return 延迟（微秒）
+     */
+    long getLatencyP99Micros();
+
+    /**
+     * 获取99.9分位延迟
+     *
+     * @return 延迟（微秒）
+     */
+    long getLatencyP999Micros();
+
+    /**
+     * 获取最大延迟
+     *
+     * @return 延迟（微秒）
+     */
+    long getLatencyMaxMicros();
+}
@@ -0,0 +1,195 @@
+package com.wangguangwu.netty.dubborpc.metrics;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个方法在客户端或服务端的调用指标
+ * <p>
+ * 记录路径无锁、不分配对象：计数使用 {@link LongAdder}，延迟写入 HdrHistogram 的 {@link Recorder}（wait-free）。
+ * 读取时把 Recorder 中新增的区间直方图合并到累计直方图，读取之间互斥，不阻塞记录。
+ *
+ * @author wangguangwu
+ */
+public class MethodMetrics extends CallMetrics {
+
+    /**
+     * 可记录的最大延迟（微秒），超过的按最大值记录
+     */
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    /**
+     * 直方图精度：有效数字位数
+     */
+    static final int SIGNIFICANT_DIGITS = 2;
+
+    /**
+     * 所属一侧：client 或 server
+     */
+    @Getter
+    private final String side;
+
+    /**
+     * 接口名称
+     */
+    @Getter
+    private final String serviceName;
+
+    /**
+     * 方法名称
+     */
+    @Getter
+    private final String methodName;
+
+    /**
+     * 调用次数
+     */
+    private final LongAdder calls = new LongAdder();
+
+    /**
+     * 失败次数
+     */
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * 超时次数
+     */
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * 被拒绝次数
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 收到的字节数
+     */
+    private final LongAdder bytesIn = new LongAdder();
+
+    /**
+     * 发出的字节数
+     */
+    private final LongAdder bytesOut = new LongAdder();
+
+    /**
+     * 延迟记录器（微秒）
+     */
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+    /**
+     * 累计延迟直方图，读取时合并，由 this 保护
+     */
+    private final Histogram latency = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+    /**
+     * 复用的区间直方图，由 this 保护
+     */
+    private Histogram interval;
+
+    /**
+     * 构造函数
+     *
+     * @param side        所属一侧：client 或 server
+     * @param serviceName 接口名称
+     * @param methodName  方法名称
+     */
+    public MethodMetrics(String side, String serviceName, String methodName) {
+        this.side = side;
+        this.serviceName = serviceName;
+        this.methodName = methodName;
+    }
+
+    /**
+     * 按调用结果记录一次调用
+     * 正常响应（含正常结束的流）记为成功，限流和过载记为拒绝，超时异常记为超时，调用方主动取消不算失败，其余记为失败
+     *
+     * @param latencyNanos 延迟（纳秒）
+     * @param response     响应，调用以异常结束时为null
+     * @param cause        异常，收到响应时为null
+     */
+    public void record(long latencyNanos, RpcResponse response, Throwable cause) {
+        calls.increment();
+        recordLatency(latencyNanos);
+        if (response != null) {
+            byte status = response.getStatus();
+            if (status == RpcProtocol.STATUS_LIMITED || status == RpcProtocol.STATUS_OVERLOADED) {
+                rejected.increment();
+            } else if (!response.isSuccess()
+                    || (status != RpcProtocol.STATUS_OK && status != RpcProtocol.STATUS_STREAM_END)) {
+                errors.increment();
+            }
+        } else if (cause instanceof TimeoutException) {
+            timeouts.increment();
+        } else if (cause != null && !(cause instanceof CancellationException)) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * 记录收到的字节数
+     *
+     * @param bytes 字节数
+     */
+    public void addBytesIn(int bytes) {
+        bytesIn.add(bytes);
+    }
+
+    /**
+     * 记录发出的字节数
+     *
+     * @param bytes 字节数
+     */
+    public void addBytesOut(int bytes) {
+        bytesOut.add(bytes);
+    }
+
+    private void recordLatency(long latencyNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        recorder.recordValue(Math.max(0, Math.min(micros, HIGHEST_TRACKABLE_MICROS)));
+    }
+
+    @Override
+    public synchronized Histogram latencySnapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        latency.add(interval);
+        return latency.copy();
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+}
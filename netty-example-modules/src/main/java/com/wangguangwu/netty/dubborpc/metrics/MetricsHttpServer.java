@@ -0,0 +1,125 @@
+package com.wangguangwu.netty.dubborpc.metrics;
+
+import com.wangguangwu.netty.transport.NettyTransport;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * 指标抓取端点
+ * 在本机回环地址上提供 {@code GET /metrics}，以 Prometheus 文本格式返回 {@link RpcMetrics} 的客户端和服务端指标。
+ * <p>
+ * 端口由系统属性 {@value #PORT_PROPERTY} 指定，未设置或为0时不启动。
+ * 同一进程内的服务端和客户端共用一个端点，由第一个启动的一方开启，随进程退出（守护线程）。
+ *
+ * @author wangguangwu
+ */
+public final class MetricsHttpServer {
+
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(MetricsHttpServer.class);
+
+    /**
+     * 抓取端口的系统属性名
+     */
+    public static final String PORT_PROPERTY = "dubborpc.metrics.port";
+
+    /**
+     * 抓取路径
+     */
+    private static final String PATH = "/metrics";
+
+    /**
+     * Prometheus 文本格式的内容类型
+     */
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=UTF-8";
+
+    /**
+     * 是否已经尝试启动
+     */
+    private static boolean started;
+
+    private MetricsHttpServer() {
+    }
+
+    /**
+     * 按系统属性启动抓取端点，重复调用时什么也不做
+     */
+    public static synchronized void startFromSystemProperties() {
+        int port = Integer.getInteger(PORT_PROPERTY, 0);
+        if (started || port <= 0) {
+            return;
+        }
+        started = true;
+
+        EventLoopGroup group = NettyTransport.newEventLoopGroup(1, new DefaultThreadFactory("dubborpc-metrics", true));
+        try {
+            // 只需一个接收通道，不开启 SO_REUSEPORT，端口被占用时能及时发现
+            new ServerBootstrap()
+                    .group(group)
+                    .channel(NettyTransport.serverChannelClass())
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline()
+                                    .addLast(new HttpServerCodec())
+                                    .addLast(new HttpObjectAggregator(8192))
+                                    .addLast(new MetricsHandler());
+                        }
+                    })
+                    .bind("127.0.0.1", port).sync();
+            LOGGER.info("RPC指标抓取端点已启动: http://127.0.0.1:{}{}", port, PATH);
+        } catch (Exception e) {
+            LOGGER.warn("RPC指标抓取端点启动失败，端口: {}", port, e);
+            group.shutdownGracefully();
+        }
+    }
+
+    /**
+     * 处理抓取请求，每次请求后关闭连接
+     */
+    private static final class MetricsHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            FullHttpResponse response;
+            if (request.method() == HttpMethod.GET && request.uri().startsWith(PATH)) {
+                StringBuilder text = new StringBuilder(4096);
+                RpcMetrics.writeText(text);
+                ByteBuf content = ByteBufUtil.writeUtf8(ctx.alloc(), text);
+                response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, content);
+                response.headers().set(HttpHeaderNames.CONTENT_TYPE, CONTENT_TYPE);
+            } else {
+                response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_FOUND);
+            }
+            response.headers().set(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            LOGGER.warn("RPC指标抓取端点异常: {}", cause.getMessage());
+            ctx.close();
+        }
+    }
+}
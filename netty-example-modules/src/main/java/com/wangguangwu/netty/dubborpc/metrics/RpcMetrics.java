@@ -0,0 +1,217 @@
+package com.wangguangwu.netty.dubborpc.metrics;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * RPC调用指标注册表
+ * 客户端和服务端各一个实例，按 接口 -> 方法 两级组织指标。
+ * <p>
+ * 指标首次出现时创建并注册到平台MBeanServer，
+ * 对象名为 {@code com.wangguangwu.dubborpc:type=RpcMetrics,side=<side>,service=<接口>[,method=<方法>]}；
+ * 之后的查找只是两次 ConcurrentHashMap 读取，不加锁、不分配对象。
+ * {@link #writeText(StringBuilder)} 按 Prometheus 文本格式输出全部方法级指标，由 {@link MetricsHttpServer} 对外提供。
+ *
+ * @author wangguangwu
+ */
+public class RpcMetrics {
+
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(RpcMetrics.class);
+
+    /**
+     * 未注册的服务或方法共用的名称，避免任意请求制造无限多的指标
+     */
+    public static final String UNKNOWN = "unknown";
+
+    /**
+     * JMX对象名的域
+     */
+    private static final String JMX_DOMAIN = "com.wangguangwu.dubborpc";
+
+    /**
+     * 输出的延迟分位数
+     */
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * 客户端指标
+     */
+    @Getter
+    private static final RpcMetrics CLIENT = new RpcMetrics("client");
+
+    /**
+     * 服务端指标
+     */
+    @Getter
+    private static final RpcMetrics SERVER = new RpcMetrics("server");
+
+    /**
+     * 所属一侧：client 或 server
+     */
+    @Getter
+    private final String side;
+
+    /**
+     * 接口指标：接口名 -> 指标
+     */
+    private final ConcurrentMap<String, ServiceMetrics> services = new ConcurrentHashMap<>();
+
+    private RpcMetrics(String side) {
+        this.side = side;
+    }
+
+    /**
+     * 获取方法指标，不存在时创建并注册到JMX
+     *
+     * @param serviceName 接口名称
+     * @param methodName  方法名称
+     * @return 方法指标
+     */
+    public MethodMetrics forMethod(String serviceName, String methodName) {
+        if (serviceName == null || methodName == null) {
+            return forMethod(UNKNOWN, UNKNOWN);
+        }
+        ServiceMetrics service = services.get(serviceName);
+        if (service != null) {
+            MethodMetrics metrics = service.getMethod(methodName);
+            if (metrics != null) {
+                return metrics;
+            }
+        }
+        return create(serviceName, methodName);
+    }
+
+    /**
+     * 获取全部接口的指标
+     *
+     * @return 接口指标
+     */
+    public Collection<ServiceMetrics> getServices() {
+        return services.values();
+    }
+
+    private MethodMetrics create(String serviceName, String methodName) {
+        ServiceMetrics service = services.get(serviceName);
+        if (service == null) {
+            ServiceMetrics created = new ServiceMetrics(side, serviceName);
+            service = services.putIfAbsent(serviceName, created);
+            if (service == null) {
+                service = created;
+                register(created, "service=" + serviceName);
+            }
+        }
+        MethodMetrics created = new MethodMetrics(side, serviceName, methodName);
+        MethodMetrics existing = service.putIfAbsent(created);
+        if (existing != null) {
+            return existing;
+        }
+        register(created, "service=" + serviceName + ",method=" + methodName);
+        return created;
+    }
+
+    /**
+     * 注册到平台MBeanServer，失败时只打印错误，不影响调用
+     */
+    private void register(CallMetrics metrics, String properties) {
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=RpcMetrics,side=" + side + "," + properties);
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(new StandardMBean(metrics, CallMetricsMBean.class), name);
+        } catch (JMException | RuntimeException e) {
+            LOGGER.warn("注册RPC指标到JMX失败: {}, 原因: {}", properties, e.getMessage());
+        }
+    }
+
+    /**
+     * 按 Prometheus 文本格式输出客户端和服务端的全部方法级指标
+     *
+     * @param out 输出
+     */
+    public static void writeText(StringBuilder out) {
+        List<MethodMetrics> methods = new ArrayList<>();
+        for (RpcMetrics metrics : new RpcMetrics[]{CLIENT, SERVER}) {
+            for (ServiceMetrics service : metrics.getServices()) {
+                methods.addAll(service.getMethods());
+            }
+        }
+
+        writeCounter(out, methods, "dubborpc_calls_total", "RPC调用次数", MethodMetrics::getCalls);
+        writeCounter(out, methods, "dubborpc_errors_total", "RPC调用失败次数", MethodMetrics::getErrors);
+        writeCounter(out, methods, "dubborpc_timeouts_total", "RPC调用超时次数", MethodMetrics::getTimeouts);
+        writeCounter(out, methods, "dubborpc_rejected_total", "被服务端限流或过载拒绝的次数", MethodMetrics::getRejected);
+        writeCounter(out, methods, "dubborpc_bytes_in_total", "收到的字节数", MethodMetrics::getBytesIn);
+        writeCounter(out, methods, "dubborpc_bytes_out_total", "发出的字节数", MethodMetrics::getBytesOut);
+
+        // 每个方法只取一次延迟快照，分位数、总数和最大值保持一致
+        List<Histogram> snapshots = new ArrayList<>(methods.size());
+        for (MethodMetrics metrics : methods) {
+            snapshots.add(metrics.latencySnapshot());
+        }
+        out.append("# HELP dubborpc_latency_micros RPC调用延迟（微秒）\n");
+        out.append("# TYPE dubborpc_latency_micros summary\n");
+        for (int i = 0; i < methods.size(); i++) {
+            MethodMetrics metrics = methods.get(i);
+            Histogram histogram = snapshots.get(i);
+            for (double quantile : QUANTILES) {
+                out.append("dubborpc_latency_micros");
+                writeLabels(out, metrics, quantile);
+                out.append(' ').append(histogram.getValueAtPercentile(quantile * 100)).append('\n');
+            }
+            out.append("dubborpc_latency_micros_sum");
+            writeLabels(out, metrics, -1);
+            out.append(' ').append(Math.round(histogram.getMean() * histogram.getTotalCount())).append('\n');
+            out.append("dubborpc_latency_micros_count");
+            writeLabels(out, metrics, -1);
+            out.append(' ').append(histogram.getTotalCount()).append('\n');
+        }
+        out.append("# HELP dubborpc_latency_max_micros RPC调用最大延迟（微秒）\n");
+        out.append("# TYPE dubborpc_latency_max_micros gauge\n");
+        for (int i = 0; i < methods.size(); i++) {
+            out.append("dubborpc_latency_max_micros");
+            writeLabels(out, methods.get(i), -1);
+            out.append(' ').append(snapshots.get(i).getMaxValue()).append('\n');
+        }
+    }
+
+    private static void writeCounter(StringBuilder out, List<MethodMetrics> methods, String name, String help,
+                                     ToLongFunction<MethodMetrics> getter) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        for (MethodMetrics metrics : methods) {
+            out.append(name);
+            writeLabels(out, metrics, -1);
+            out.append(' ').append(getter.applyAsLong(metrics)).append('\n');
+        }
+    }
+
+    /**
+     * 输出标签
+     *
+     * @param quantile 分位数，小于0时不输出分位数标签
+     */
+    private static void writeLabels(StringBuilder out, MethodMetrics metrics, double quantile) {
+        out.append("{side=\"").append(metrics.getSide())
+                .append("\",service=\"").append(metrics.getServiceName())
+                .append("\",method=\"").append(metrics.getMethodName()).append('"');
+        if (quantile >= 0) {
+            out.append(",quantile=\"").append(quantile).append('"');
+        }
+        out.append('}');
+    }
+}
@@ -0,0 +1,122 @@
+package com.wangguangwu.netty.dubborpc.metrics;
+
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * 单个接口在客户端或服务端的调用指标
+ * 持有该接口下各方法的指标，接口级的数值在读取时汇总，记录时只更新方法级指标
+ *
+ * @author wangguangwu
+ */
+public class ServiceMetrics extends CallMetrics {
+
+    /**
+     * 所属一侧：client 或 server
+     */
+    @Getter
+    private final String side;
+
+    /**
+     * 接口名称
+     */
+    @Getter
+    private final String serviceName;
+
+    /**
+     * 方法指标：方法名 -> 指标，重载方法共用同一份指标
+     */
+    private final ConcurrentMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param side        所属一侧：client 或 server
+     * @param serviceName 接口名称
+     */
+    public ServiceMetrics(String side, String serviceName) {
+        this.side = side;
+        this.serviceName = serviceName;
+    }
+
+    /**
+     * 获取已存在的方法指标
+     *
+     * @param methodName 方法名称
+     * @return 方法指标，不存在时返回null
+     */
+    MethodMetrics getMethod(String methodName) {
+        return methods.get(methodName);
+    }
+
+    /**
+     * 放入方法指标，已存在时返回已有的
+     *
+     * @param metrics 方法指标
+     * @return 已有的方法指标，放入成功时返回null
+     */
+    MethodMetrics putIfAbsent(MethodMetrics metrics) {
+        return methods.putIfAbsent(metrics.getMethodName(), metrics);
+    }
+
+    /**
+     * 获取该接口下全部方法的指标
+     *
+     * @return 方法指标
+     */
+    public Collection<MethodMetrics> getMethods() {
+        return methods.values();
+    }
+
+    @Override
+    public Histogram latencySnapshot() {
+        Histogram merged = new Histogram(MethodMetrics.HIGHEST_TRACKABLE_MICROS, MethodMetrics.SIGNIFICANT_DIGITS);
+        for (MethodMetrics metrics : methods.values()) {
+            merged.add(metrics.latencySnapshot());
+        }
+        return merged;
+    }
+
+    @Override
+    public long getCalls() {
+        return sum(MethodMetrics::getCalls);
+    }
+
+    @Override
+    public long getErrors() {
+        return sum(MethodMetrics::getErrors);
+    }
+
+    @Override
+    public long getTimeouts() {
+        return sum(MethodMetrics::getTimeouts);
+    }
+
+    @Override
+    public long getRejected() {
+        return sum(MethodMetrics::getRejected);
+    }
+
+    @Override
+    public long getBytesIn() {
+        return sum(MethodMetrics::getBytesIn);
+    }
+
+    @Override
+    public long getBytesOut() {
+        return sum(MethodMetrics::getBytesOut);
+    }
+
+    private long sum(ToLongFunction<MethodMetrics> getter) {
+        long total = 0;
+        for (MethodMetrics metrics : methods.values()) {
+            total += getter.applyAsLong(metrics);
+        }
+        return total;
+    }
+}
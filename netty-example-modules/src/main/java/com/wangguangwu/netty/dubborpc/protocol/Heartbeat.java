@@ -0,0 +1,24 @@
+package com.wangguangwu.netty.dubborpc.protocol;
+
+/**
+ * 心跳帧
+ * 只有协议头、没有消息体，客户端在连接空闲时发出，服务端收到后回应一个心跳帧；
+ * 双方据此判断对端是否仍然存活，长时间收不到任何数据的连接会被关闭
+ *
+ * @author wangguangwu
+ */
+public final class Heartbeat {
+
+    /**
+     * 心跳帧不携带任何状态，共享同一个实例
+     */
+    public static final Heartbeat INSTANCE = new Heartbeat();
+
+    private Heartbeat() {
+    }
+
+    @Override
+    public String toString() {
+        return "Heartbeat";
+    }
+}
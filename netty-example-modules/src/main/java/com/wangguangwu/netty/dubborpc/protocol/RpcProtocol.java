@@ -0,0 +1,134 @@
+package com.wangguangwu.netty.dubborpc.protocol;
+
+/**
+ * RPC协议常量
+ * 定义了二进制协议头的各个字段取值
+ * <p>
+ * 协议头格式（共18字节）：
+ * <pre>
+ * +---------+---------+---------+------------+---------+------------+-------------+
+ * | 魔数(2) | 版本(1) | 类型(1) | 序列化(1)  | 状态(1) | 请求ID(8)  | 消息体长度(4) |
+ * +---------+---------+---------+------------+---------+------------+-------------+
+ * </pre>
+ * 接收方只需解析协议头即可完成路由、拒绝和响应匹配，无需反序列化消息体。
+ * <p>
+ * 序列化字段的低6位是序列化器ID，高2位是标志位：{@link #FLAG_COMPRESSED} 表示消息体经过压缩，
+ * {@link #FLAG_COMPRESSION_SUPPORTED} 表示发送方能解压对端的压缩帧。请求帧不使用状态字段，
+ * 客户端在其中声明 {@link #REQUEST_FLAG_COMPRESSION_SUPPORTED}，旧版服务端会忽略它。
+ * <p>
+ * 流式调用在同一个请求ID下返回多帧响应：若干 {@link #STATUS_STREAM_ITEM} 帧和一个 {@link #STATUS_STREAM_END} 结束帧；
+ * 客户端用 {@link #TYPE_STREAM_CREDIT} 帧授予服务端可以发送的元素数（信用），服务端不会发送超过信用的元素。
+ *
+ * @author wangguangwu
+ */
+public final class RpcProtocol {
+
+    private RpcProtocol() {
+        // 私有构造函数，防止实例化
+    }
+
+    /**
+     * 魔数，用于识别新版协议帧
+     */
+    public static final short MAGIC = (short) 0xDABB;
+
+    /**
+     * 当前协议版本
+     */
+    public static final byte VERSION = 1;
+
+    /**
+     * 协议头长度
+     */
+    public static final int HEADER_LENGTH = 18;
+
+    /**
+     * 旧版协议帧的长度字段字节数，旧版格式为：长度(4字节) + 内容(N字节)
+     */
+    public static final int LEGACY_LENGTH_FIELD = 4;
+
+    /**
+     * 序列化字段中序列化器ID所占的低6位
+     */
+    public static final int SERIALIZER_ID_MASK = 0x3F;
+
+    /**
+     * 序列化字段的标志位：消息体经过Snappy压缩
+     */
+    public static final int FLAG_COMPRESSED = 0x80;
+
+    /**
+     * 序列化字段的标志位：发送方能解压对端的压缩帧，服务端只对声明过支持压缩的客户端设置
+     */
+    public static final int FLAG_COMPRESSION_SUPPORTED = 0x40;
+
+    /**
+     * 请求帧状态字段的标志位：客户端能解压压缩帧
+     */
+    public static final byte REQUEST_FLAG_COMPRESSION_SUPPORTED = 1;
+
+    /**
+     * 消息类型：请求
+     */
+    public static final byte TYPE_REQUEST = 1;
+
+    /**
+     * 消息类型：响应
+     */
+    public static final byte TYPE_RESPONSE = 2;
+
+    /**
+     * 消息类型：流式调用的信用，客户端发往服务端，消息体为4字节的信用数，小于等于0表示取消流
+     */
+    public static final byte TYPE_STREAM_CREDIT = 3;
+
+    /**
+     * 消息类型：心跳，只有协议头，客户端空闲时发出，服务端原样回应
+     */
+    public static final byte TYPE_HEARTBEAT = 4;
+
+    /**
+     * 响应状态：成功
+     */
+    public static final byte STATUS_OK = 0;
+
+    /**
+     * 响应状态：服务调用异常
+     */
+    public static final byte STATUS_ERROR = 1;
+
+    /**
+     * 响应状态：请求被拒绝（如不支持的序列化方式）
+     */
+    public static final byte STATUS_BAD_REQUEST = 2;
+
+    /**
+     * 响应状态：服务端过载，请求被拒绝
+     */
+    public static final byte STATUS_OVERLOADED = 3;
+
+    /**
+     * 响应状态：超过服务端的并发限制，请求被限流
+     */
+    public static final byte STATUS_LIMITED = 4;
+
+    /**
+     * 响应状态：流式调用的一个元素，结果即元素
+     */
+    public static final byte STATUS_STREAM_ITEM = 5;
+
+    /**
+     * 响应状态：流式调用结束，带错误信息时表示流异常结束
+     */
+    public static final byte STATUS_STREAM_END = 6;
+
+    /**
+     * 判断响应状态是否表示请求被服务端拒绝、未被执行，这类请求可以安全地改投其他提供者
+     *
+     * @param status 响应状态
+     * @return 过载或限流时返回true
+     */
+    public static boolean isRejected(byte status) {
+        return status == STATUS_OVERLOADED || status == STATUS_LIMITED;
+    }
+}
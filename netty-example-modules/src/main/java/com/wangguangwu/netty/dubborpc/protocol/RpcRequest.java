@@ -1,5 +1,6 @@
 package com.wangguangwu.netty.dubborpc.protocol;
 
+import com.wangguangwu.netty.dubborpc.metrics.MethodMetrics;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -25,8 +26,29 @@ public class RpcRequest implements Serializable {
 
     /**
      * 请求ID，用于唯一标识一次RPC请求
+     * 由协议头携带，不参与消息体序列化
      */
-    private String requestId;
+    private transient long requestId;
+
+    /**
+     * 序列化器ID，由协议头携带，记录该请求消息体使用的序列化方式
+     */
+    private transient byte serializerId;
+
+    /**
+     * 收到的帧长度（含协议头），由解码器填写，用于统计收到的字节数
+     */
+    private transient int frameLength;
+
+    /**
+     * 调用开始的时间（纳秒）：服务端为收到请求的时间，客户端为发出请求的时间，用于统计延迟
+     */
+    private transient long startNanos;
+
+    /**
+     * 所属方法的调用指标，不为null时编码器把写出的帧长度计入其发出字节数
+     */
+    private transient MethodMetrics metrics;
 
     /**
      * 接口名称，即服务的全限定类名
@@ -38,6 +60,11 @@ public class RpcRequest implements Serializable {
      */
     private String methodName;
 
+    /**
+     * 方法ID，由方法名和参数类型计算得到，服务端据此直接定位调用器，0表示未携带
+     */
+    private int methodId;
+
     /**
      * 参数类型数组
      */
@@ -51,9 +78,10 @@ public class RpcRequest implements Serializable {
     @Override
     public String toString() {
         return "RpcRequest{" +
-                "requestId='" + requestId + '\'' +
+                "requestId=" + requestId +
                 ", interfaceName='" + interfaceName + '\'' +
                 ", methodName='" + methodName + '\'' +
+                ", methodId=" + methodId +
                 ", parameterTypes=" + Arrays.toString(parameterTypes) +
                 ", parameters=" + Arrays.toString(parameters) +
                 '}';
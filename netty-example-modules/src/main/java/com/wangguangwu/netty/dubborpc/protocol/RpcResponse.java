@@ -1,5 +1,6 @@
 package com.wangguangwu.netty.dubborpc.protocol;
 
+import com.wangguangwu.netty.dubborpc.metrics.MethodMetrics;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -24,8 +25,34 @@ public class RpcResponse implements Serializable {
 
     /**
      * 请求ID，与请求对象中的ID对应
+     * 由协议头携带，不参与消息体序列化
      */
-    private String requestId;
+    private transient long requestId;
+
+    /**
+     * 响应状态，由协议头携带，取值见 {@link RpcProtocol}
+     */
+    private transient byte status = RpcProtocol.STATUS_OK;
+
+    /**
+     * 序列化器ID，由协议头携带，服务端按请求使用的序列化方式回写响应
+     */
+    private transient byte serializerId;
+
+    /**
+     * 已按 serializerId 编码好的消息体（如结果缓存命中时），不为null时编码器直接写出，不再序列化
+     */
+    private transient byte[] encodedBody;
+
+    /**
+     * 收到的帧长度（含协议头），由解码器填写，用于统计收到的字节数
+     */
+    private transient int frameLength;
+
+    /**
+     * 所属方法的调用指标，不为null时编码器把写出的帧长度计入其发出字节数
+     */
+    private transient MethodMetrics metrics;
 
     /**
      * 错误信息，如果调用成功则为null
@@ -49,7 +76,8 @@ public class RpcResponse implements Serializable {
     @Override
     public String toString() {
         return "RpcResponse{" +
-                "requestId='" + requestId + '\'' +
+                "requestId=" + requestId +
+                ", status=" + status +
                 ", errorMessage='" + errorMessage + '\'' +
                 ", result=" + result +
                 '}';
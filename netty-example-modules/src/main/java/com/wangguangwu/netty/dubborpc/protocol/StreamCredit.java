@@ -0,0 +1,40 @@
+package com.wangguangwu.netty.dubborpc.protocol;
+
+import lombok.Getter;
+
+/**
+ * 流式调用的信用帧
+ * 客户端每消费一批元素就授予服务端相应的信用，服务端只在信用范围内发送元素，
+ * 消费慢的客户端不会被大量元素淹没。只有协议头和4字节的信用数，不经过序列化器
+ *
+ * @author wangguangwu
+ */
+@Getter
+public class StreamCredit {
+
+    /**
+     * 流式调用的请求ID
+     */
+    private final long requestId;
+
+    /**
+     * 授予的信用数，小于等于0表示取消流
+     */
+    private final int credits;
+
+    /**
+     * 构造函数
+     *
+     * @param requestId 流式调用的请求ID
+     * @param credits   授予的信用数，小于等于0表示取消流
+     */
+    public StreamCredit(long requestId, int credits) {
+        this.requestId = requestId;
+        this.credits = credits;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamCredit{requestId=" + requestId + ", credits=" + credits + "}";
+    }
+}
@@ -2,6 +2,11 @@ package com.wangguangwu.netty.dubborpc.provider;
 
 import com.wangguangwu.netty.dubborpc.api.GreetingService;
 
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
 /**
  * 问候服务实现类
  * 这是实际提供服务的类，将通过RPC暴露给客户端
@@ -12,15 +17,16 @@ public class GreetingServiceImpl implements GreetingService {
 
     /**
      * 请求计数器，用于跟踪处理的请求数量
+     * 服务方法可能在多个业务线程上并发执行，因此使用原子计数
      */
-    private static int counter = 0;
+    private static final AtomicInteger COUNTER = new AtomicInteger(0);
 
     @Override
     public String greet(String name) {
         System.out.println("服务端收到问候请求，名称: " + name);
         
         // 增加计数器
-        counter++;
+        int count = COUNTER.incrementAndGet();
         
         // 模拟服务处理延迟
         try {
@@ -30,6 +36,20 @@ public class GreetingServiceImpl implements GreetingService {
         }
         
         // 返回格式化的问候语
-        return "Greetings, " + name + "! (请求次数: " + counter + ")";
+        return "Greetings, " + name + "! (请求次数: " + count + ")";
+    }
+
+    @Override
+    public CompletableFuture<String> greetAsync(String name) {
+        return CompletableFuture.supplyAsync(() -> greet(name));
+    }
+
+    @Override
+    public Iterator<String> greetStream(String name, int count) {
+        System.out.println("服务端收到流式问候请求，名称: " + name + "，次数: " + count);
+        // 元素在客户端授予信用后才逐个生成
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> "Greetings, " + name + "! (" + i + "/" + count + ")")
+                .iterator();
     }
 }
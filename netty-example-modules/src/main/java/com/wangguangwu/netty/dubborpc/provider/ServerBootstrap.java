@@ -1,6 +1,9 @@
 package com.wangguangwu.netty.dubborpc.provider;
 
 import com.wangguangwu.netty.dubborpc.api.GreetingService;
+import com.wangguangwu.netty.dubborpc.cluster.ProviderEndpoint;
+import com.wangguangwu.netty.dubborpc.discovery.ProviderInfo;
+import com.wangguangwu.netty.dubborpc.discovery.ProviderPublisher;
 import com.wangguangwu.netty.dubborpc.transport.server.NettyServer;
 
 /**
@@ -21,7 +24,14 @@ public class ServerBootstrap {
         // Register service
         server.registerService(GreetingService.class, greetingService);
 
+        // Publish to the discovery directory so clients can find this provider, remove it on exit
+        ProviderPublisher publisher = new ProviderPublisher(ProviderInfo.defaultDirectory(),
+                "127.0.0.1", 8080, ProviderEndpoint.DEFAULT_WEIGHT, server::getInFlightRequests);
+        Runtime.getRuntime().addShutdownHook(new Thread(publisher::close));
+
         try {
+            publisher.publish(GreetingService.class);
+
             // Start server
             System.out.println("RPC server is starting...");
             server.start();
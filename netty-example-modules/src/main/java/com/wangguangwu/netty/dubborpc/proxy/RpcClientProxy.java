@@ -2,43 +2,63 @@ package com.wangguangwu.netty.dubborpc.proxy;
 
 import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
 import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
-import com.wangguangwu.netty.dubborpc.transport.RpcFuture;
-import com.wangguangwu.netty.dubborpc.transport.RpcRequestManager;
-import com.wangguangwu.netty.dubborpc.transport.client.NettyClient;
+import com.wangguangwu.netty.dubborpc.serialize.TypeAllowlist;
+import com.wangguangwu.netty.dubborpc.transport.client.BlockingStreamIterator;
+import com.wangguangwu.netty.dubborpc.transport.client.RpcClient;
 import com.wangguangwu.netty.dubborpc.util.IdGenerator;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.concurrent.TimeUnit;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
 
 /**
  * RPC客户端代理
  * 使用动态代理将接口方法调用转换为RPC请求
+ * <p>
+ * 返回 {@link Flow.Publisher} 的方法为流式调用，返回的发布者每被订阅一次就发起一次调用；
+ * 返回 {@link Iterator} 的方法立即发起流式调用，返回 {@link BlockingStreamIterator}，按窗口 {@value BlockingStreamIterator#WINDOW_PROPERTY} 消费。
  *
  * @author wangguangwu
  */
 public class RpcClientProxy implements InvocationHandler {
 
     /**
-     * Netty客户端
+     * RPC客户端，可以是单个服务端的 NettyClient 或多个服务提供者的 ClusterClient
      */
-    private final NettyClient client;
+    private final RpcClient client;
 
     /**
      * 请求超时时间（毫秒）
      */
     private final long timeoutMillis;
 
+    /**
+     * 方法 -> 方法ID，避免每次调用重新计算签名
+     */
+    private final Map<Method, Integer> methodIds = new ConcurrentHashMap<>();
+
+    /**
+     * 以迭代器消费流式调用时的窗口大小
+     */
+    private final int streamWindow;
+
     /**
      * 构造函数
      *
-     * @param client        Netty客户端
+     * @param client        RPC客户端
      * @param timeoutMillis 请求超时时间（毫秒）
      */
-    public RpcClientProxy(NettyClient client, long timeoutMillis) {
+    public RpcClientProxy(RpcClient client, long timeoutMillis) {
         this.client = client;
         this.timeoutMillis = timeoutMillis;
+        this.streamWindow = Integer.getInteger(BlockingStreamIterator.WINDOW_PROPERTY,
+                BlockingStreamIterator.DEFAULT_WINDOW);
     }
 
     /**
@@ -50,6 +70,8 @@ public class RpcClientProxy implements InvocationHandler {
      */
     @SuppressWarnings("unchecked")
     public <T> T getProxy(Class<T> interfaceClass) {
+        // 方法的参数类型和返回类型加入二进制序列化的类型白名单，用于解码响应
+        TypeAllowlist.getINSTANCE().allowService(interfaceClass);
         // 使用JDK动态代理创建代理对象
         return (T) Proxy.newProxyInstance(
                 interfaceClass.getClassLoader(),
@@ -73,15 +95,27 @@ public class RpcClientProxy implements InvocationHandler {
         if (Object.class == method.getDeclaringClass()) {
             return method.invoke(this, args);
         }
-        
+
+        // 流式方法：发布者每次被订阅时发起调用，请求ID按调用分配，因此每次订阅使用新的请求对象
+        Class<?> returnType = method.getReturnType();
+        if (returnType == Flow.Publisher.class) {
+            return (Flow.Publisher<Object>) subscriber ->
+                    client.streamCall(newRequest(method, args), subscriber, timeoutMillis);
+        }
+        if (returnType == Iterator.class) {
+            BlockingStreamIterator<Object> iterator = new BlockingStreamIterator<>(streamWindow);
+            client.streamCall(newRequest(method, args), iterator, timeoutMillis);
+            return iterator;
+        }
+
         // 创建RPC请求
-        RpcRequest request = new RpcRequest();
-        request.setRequestId(IdGenerator.generateId());
-        request.setInterfaceName(method.getDeclaringClass().getName());
-        request.setMethodName(method.getName());
-        request.setParameterTypes(method.getParameterTypes());
-        request.setParameters(args);
-        
+        RpcRequest request = newRequest(method, args);
+
+        // 返回 CompletableFuture/CompletionStage 的方法异步调用，不阻塞调用方线程
+        if (returnType == CompletableFuture.class || returnType == CompletionStage.class) {
+            return client.asyncCall(request, timeoutMillis).thenApply(RpcClientProxy::extractResult);
+        }
+
         // 发送请求并等待响应
         try {
             // 同步调用
@@ -89,13 +123,7 @@ public class RpcClientProxy implements InvocationHandler {
             
             // 处理响应
             if (result instanceof RpcResponse response) {
-                // 检查是否有错误
-                if (response.getErrorMessage() != null) {
-                    throw new RuntimeException("RPC调用失败: " + response.getErrorMessage());
-                }
-                
-                // 返回结果
-                return response.getResult();
+                return extractResult(response);
             } else {
                 throw new RuntimeException("未知的响应类型: " + result.getClass().getName());
             }
@@ -103,4 +131,38 @@ public class RpcClientProxy implements InvocationHandler {
             throw new RuntimeException("RPC调用异常: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * 创建RPC请求
+     *
+     * @param method 方法
+     * @param args   参数
+     * @return RPC请求
+     */
+    private RpcRequest newRequest(Method method, Object[] args) {
+        RpcRequest request = new RpcRequest();
+        request.setInterfaceName(method.getDeclaringClass().getName());
+        request.setMethodName(method.getName());
+        request.setMethodId(methodIds.computeIfAbsent(method,
+                m -> IdGenerator.generateMethodId(m.getName(), m.getParameterTypes())));
+        request.setParameterTypes(method.getParameterTypes());
+        request.setParameters(args);
+        return request;
+    }
+
+    /**
+     * 从响应中取出调用结果
+     *
+     * @param response RPC响应
+     * @return 调用结果
+     */
+    private static Object extractResult(RpcResponse response) {
+        // 检查是否有错误
+        if (response.getErrorMessage() != null) {
+            throw new RuntimeException("RPC调用失败: " + response.getErrorMessage());
+        }
+
+        // 返回结果
+        return response.getResult();
+    }
 }
@@ -0,0 +1,113 @@
+package com.wangguangwu.netty.dubborpc.registry;
+
+import com.wangguangwu.netty.dubborpc.cache.Idempotent;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.concurrent.Flow;
+
+/**
+ * 服务方法调用器
+ * 在服务注册时将接口方法解析为绑定了服务实例的 MethodHandle，调用时不再进行反射查找
+ *
+ * @author wangguangwu
+ */
+@Getter
+public class MethodInvoker {
+
+    /**
+     * 空参数数组
+     */
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    /**
+     * 统一的调用签名：(Object[])Object
+     */
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * 方法ID，由方法名和参数类型计算得到，客户端和服务端计算结果一致
+     */
+    private final int methodId;
+
+    /**
+     * 方法名称
+     */
+    private final String methodName;
+
+    /**
+     * 参数类型
+     */
+    private final Class<?>[] parameterTypes;
+
+    /**
+     * 绑定了服务实例、参数展开为数组的方法句柄
+     */
+    private final MethodHandle handle;
+
+    /**
+     * 结果缓存的有效期（毫秒），方法标注了 {@link Idempotent} 时有效，小于等于0表示不过期
+     */
+    private final long cacheTtlMillis;
+
+    /**
+     * 是否为幂等方法，幂等方法的结果可以被缓存
+     */
+    private final boolean idempotent;
+
+    /**
+     * 是否为流式方法：返回 {@link Flow.Publisher} 或 {@link Iterator} 的方法，结果按元素分多帧返回
+     */
+    private final boolean streaming;
+
+    /**
+     * 构造函数
+     *
+     * @param method          接口方法
+     * @param serviceInstance 服务实例
+     * @param methodId        方法ID
+     * @throws IllegalAccessException 方法不可访问
+     */
+    MethodInvoker(Method method, Object serviceInstance, int methodId) throws IllegalAccessException {
+        this.methodId = methodId;
+        this.methodName = method.getName();
+        this.parameterTypes = method.getParameterTypes();
+        this.streaming = isStreaming(method.getReturnType());
+        Idempotent annotation = method.getAnnotation(Idempotent.class);
+        // 流式方法的结果是元素序列，不做结果缓存
+        this.idempotent = annotation != null && !streaming;
+        this.cacheTtlMillis = annotation != null ? annotation.ttlMillis() : 0;
+
+        method.setAccessible(true);
+        this.handle = MethodHandles.lookup()
+                .unreflect(method)
+                .bindTo(serviceInstance)
+                .asSpreader(Object[].class, parameterTypes.length)
+                .asType(INVOKE_TYPE);
+    }
+
+    /**
+     * 判断返回类型是否表示流式方法
+     *
+     * @param returnType 方法的返回类型
+     * @return 返回 {@link Flow.Publisher} 或 {@link Iterator} 时返回true
+     */
+    public static boolean isStreaming(Class<?> returnType) {
+        return returnType == Flow.Publisher.class || returnType == Iterator.class;
+    }
+
+    /**
+     * 调用服务方法
+     *
+     * @param args 方法参数，无参方法可以为null
+     * @return 方法返回值
+     * @throws Throwable 服务方法抛出的异常
+     */
+    public Object invoke(Object[] args) throws Throwable {
+        return (Object) handle.invokeExact(args == null ? EMPTY_ARGS : args);
+    }
+}
@@ -0,0 +1,114 @@
+package com.wangguangwu.netty.dubborpc.registry;
+
+import com.wangguangwu.netty.dubborpc.util.IdGenerator;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 服务描述
+ * 在注册时一次性解析服务接口的全部方法，建立"方法ID -> 调用器"和"方法名 -> 调用器"两张表
+ *
+ * @author wangguangwu
+ */
+public class ServiceDescriptor {
+
+    /**
+     * 服务接口
+     */
+    @Getter
+    private final Class<?> interfaceClass;
+
+    /**
+     * 服务实例
+     */
+    @Getter
+    private final Object serviceInstance;
+
+    /**
+     * 方法ID -> 调用器，注册后只读；以 int 为键，按ID查找时不装箱
+     */
+    private final IntObjectMap<MethodInvoker> invokersById = new IntObjectHashMap<>();
+
+    /**
+     * 方法名 -> 同名重载方法的调用器，用于未携带方法ID的旧版请求
+     */
+    private final Map<String, MethodInvoker[]> invokersByName = new HashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param interfaceClass  服务接口
+     * @param serviceInstance 服务实例
+     */
+    ServiceDescriptor(Class<?> interfaceClass, Object serviceInstance) {
+        this.interfaceClass = interfaceClass;
+        this.serviceInstance = serviceInstance;
+
+        Map<String, List<MethodInvoker>> byName = new HashMap<>();
+        Set<Integer> collidedIds = new HashSet<>();
+        for (Method method : interfaceClass.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            int methodId = IdGenerator.generateMethodId(method.getName(), method.getParameterTypes());
+            MethodInvoker invoker;
+            try {
+                invoker = new MethodInvoker(method, serviceInstance, methodId);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("无法访问服务方法: " + method, e);
+            }
+            byName.computeIfAbsent(method.getName(), k -> new ArrayList<>()).add(invoker);
+
+            // 方法ID冲突时两个方法都退回按名称查找
+            if (invokersById.containsKey(methodId)) {
+                collidedIds.add(methodId);
+            } else {
+                invokersById.put(methodId, invoker);
+            }
+        }
+        for (int collidedId : collidedIds) {
+            invokersById.remove(collidedId);
+        }
+        byName.forEach((name, invokers) -> invokersByName.put(name, invokers.toArray(new MethodInvoker[0])));
+    }
+
+    /**
+     * 查找方法调用器
+     * 优先按方法ID查找，未携带方法ID时按方法名和参数类型匹配
+     *
+     * @param methodId       方法ID，0表示未携带
+     * @param methodName     方法名称
+     * @param parameterTypes 参数类型
+     * @return 方法调用器，如果未找到则返回null
+     */
+    public MethodInvoker findInvoker(int methodId, String methodName, Class<?>[] parameterTypes) {
+        if (methodId != 0) {
+            MethodInvoker invoker = invokersById.get(methodId);
+            if (invoker != null && invoker.getMethodName().equals(methodName)) {
+                return invoker;
+            }
+        }
+        MethodInvoker[] candidates = invokersByName.get(methodName);
+        if (candidates == null) {
+            return null;
+        }
+        Class<?>[] types = parameterTypes == null ? new Class<?>[0] : parameterTypes;
+        for (MethodInvoker candidate : candidates) {
+            if (Arrays.equals(candidate.getParameterTypes(), types)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
@@ -1,5 +1,8 @@
 package com.wangguangwu.netty.dubborpc.registry;
 
+import com.wangguangwu.netty.dubborpc.serialize.TypeAllowlist;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 import lombok.Getter;
 
 import java.util.Map;
@@ -13,6 +16,11 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class ServiceRegistry {
 
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ServiceRegistry.class);
+
     /**
      * 单例实例
      * -- GETTER --
@@ -25,9 +33,9 @@ public class ServiceRegistry {
     private static final ServiceRegistry INSTANCE = new ServiceRegistry();
 
     /**
-     * 服务映射表，接口名称 -> 服务实例
+     * 服务映射表，接口名称 -> 服务描述
      */
-    private final Map<String, Object> serviceMap = new ConcurrentHashMap<>();
+    private final Map<String, ServiceDescriptor> serviceMap = new ConcurrentHashMap<>();
 
     /**
      * 私有构造函数，防止外部实例化
@@ -55,8 +63,11 @@ public class ServiceRegistry {
         }
         
         String serviceName = interfaceClass.getName();
-        serviceMap.put(serviceName, serviceInstance);
-        System.out.println("注册服务: " + serviceName);
+        // 注册时一次性解析全部方法，调用时不再反射查找
+        serviceMap.put(serviceName, new ServiceDescriptor(interfaceClass, serviceInstance));
+        // 方法的参数类型和返回类型加入二进制序列化的类型白名单
+        TypeAllowlist.getINSTANCE().allowService(interfaceClass);
+        LOGGER.info("注册服务: {}", serviceName);
     }
 
     /**
@@ -66,6 +77,17 @@ public class ServiceRegistry {
      * @return 服务实例，如果未找到则返回null
      */
     public Object getService(String interfaceName) {
+        ServiceDescriptor descriptor = serviceMap.get(interfaceName);
+        return descriptor != null ? descriptor.getServiceInstance() : null;
+    }
+
+    /**
+     * 获取服务描述
+     *
+     * @param interfaceName 接口名称
+     * @return 服务描述，如果未找到则返回null
+     */
+    public ServiceDescriptor getServiceDescriptor(String interfaceName) {
         return serviceMap.get(interfaceName);
     }
 
@@ -76,10 +98,11 @@ public class ServiceRegistry {
      * @return 被移除的服务实例，如果未找到则返回null
      */
     public Object removeService(String interfaceName) {
-        Object removed = serviceMap.remove(interfaceName);
+        ServiceDescriptor removed = serviceMap.remove(interfaceName);
         if (removed != null) {
-            System.out.println("移除服务: " + interfaceName);
+            LOGGER.info("移除服务: {}", interfaceName);
+            return removed.getServiceInstance();
         }
-        return removed;
+        return null;
     }
 }
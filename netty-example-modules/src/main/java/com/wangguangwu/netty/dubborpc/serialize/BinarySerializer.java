@@ -0,0 +1,593 @@
+package com.wangguangwu.netty.dubborpc.serialize;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 紧凑二进制序列化器
+ * 针对RPC请求和响应设计的二进制格式，相比JSON省去了字段名和文本数字的编解码开销
+ * <p>
+ * 格式要点：
+ * <ul>
+ *     <li>长度和整数使用变长编码（varint），int/long 使用 zigzag 编码</li>
+ *     <li>参数类型优先使用一字节类型码，只有非常用类型才写出类名</li>
+ *     <li>接口名、方法名和类名在编码端缓存UTF-8字节，在解码端复用已有的String实例</li>
+ *     <li>参数和返回值使用类型标签，支持基本类型、字符串、数组、List 和 Map，
+ *     其他对象以"类名 + JSON"的形式兜底</li>
+ *     <li>按名称出现的类只在 {@link TypeAllowlist} 中解析，不在白名单中的类名作为解码错误拒绝</li>
+ *     <li>长度和元素个数在分配之前先与剩余字节数比较，负数或超出剩余字节数的长度同样作为解码错误拒绝</li>
+ *     <li>数组、List 和 Map 最多嵌套 {@value #MAX_DEPTH} 层，更深的值在编码和解码时都作为错误拒绝，
+ *     避免几个字节一层的畸形输入在解码器中递归到栈溢出</li>
+ * </ul>
+ *
+ * @author wangguangwu
+ */
+public class BinarySerializer implements Serializer {
+
+    /**
+     * 二进制序列化器ID
+     */
+    public static final byte SERIALIZER_ID = 2;
+
+    /**
+     * 值的最大嵌套层数
+     */
+    static final int MAX_DEPTH = 64;
+
+    // ---------------- 消息标签 ----------------
+
+    private static final byte MSG_REQUEST = 1;
+    private static final byte MSG_RESPONSE = 2;
+    private static final byte MSG_VALUE = 3;
+
+    // ---------------- 值类型标签 ----------------
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_TRUE = 1;
+    private static final byte TAG_FALSE = 2;
+    private static final byte TAG_BYTE = 3;
+    private static final byte TAG_SHORT = 4;
+    private static final byte TAG_CHAR = 5;
+    private static final byte TAG_INT = 6;
+    private static final byte TAG_LONG = 7;
+    private static final byte TAG_FLOAT = 8;
+    private static final byte TAG_DOUBLE = 9;
+    private static final byte TAG_STRING = 10;
+    private static final byte TAG_BYTE_ARRAY = 11;
+    private static final byte TAG_BOOLEAN_ARRAY = 12;
+    private static final byte TAG_INT_ARRAY = 13;
+    private static final byte TAG_LONG_ARRAY = 14;
+    private static final byte TAG_DOUBLE_ARRAY = 15;
+    private static final byte TAG_OBJECT_ARRAY = 16;
+    private static final byte TAG_LIST = 17;
+    private static final byte TAG_MAP = 18;
+    private static final byte TAG_OBJECT = 19;
+
+    /**
+     * 常用类型表，类型码为下标加1，类型码0表示后面跟随类名
+     */
+    private static final Class<?>[] KNOWN_TYPES = {
+            boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class,
+            Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class, Float.class,
+            Double.class, String.class, Object.class, byte[].class, boolean[].class, int[].class, long[].class,
+            double[].class, String[].class, Object[].class, List.class, Map.class
+    };
+
+    /**
+     * 常用类型 -> 类型码
+     */
+    private static final Map<Class<?>, Integer> KNOWN_TYPE_CODES = new IdentityHashMap<>();
+
+    static {
+        for (int i = 0; i < KNOWN_TYPES.length; i++) {
+            KNOWN_TYPE_CODES.put(KNOWN_TYPES[i], i + 1);
+        }
+    }
+
+    /**
+     * 编码端名称缓存的最大条目数
+     */
+    private static final int MAX_ENCODED_NAMES = 4096;
+
+    /**
+     * 解码端名称缓存的槽位数，必须为2的幂
+     */
+    private static final int NAME_SLOTS = 1024;
+
+    /**
+     * 编码端名称缓存：名称 -> UTF-8字节
+     */
+    private final Map<String, byte[]> encodedNames = new ConcurrentHashMap<>();
+
+    /**
+     * 解码端名称缓存：按字节哈希定位槽位，命中时直接复用String实例
+     */
+    private final NameEntry[] decodedNames = new NameEntry[NAME_SLOTS];
+
+    @Override
+    public byte getSerializerId() {
+        return SERIALIZER_ID;
+    }
+
+    @Override
+    public byte[] serialize(Object obj) {
+        ByteBuf buf = Unpooled.buffer();
+        serialize(obj, buf);
+        return ByteBufUtil.getBytes(buf);
+    }
+
+    @Override
+    public void serialize(Object obj, ByteBuf out) {
+        if (obj instanceof RpcRequest request) {
+            out.writeByte(MSG_REQUEST);
+            writeName(out, request.getInterfaceName());
+            writeName(out, request.getMethodName());
+            out.writeInt(request.getMethodId());
+            Class<?>[] parameterTypes = request.getParameterTypes();
+            int typeCount = parameterTypes == null ? 0 : parameterTypes.length;
+            writeVarInt(out, typeCount);
+            for (int i = 0; i < typeCount; i++) {
+                writeType(out, parameterTypes[i]);
+            }
+            Object[] parameters = request.getParameters();
+            int parameterCount = parameters == null ? 0 : parameters.length;
+            writeVarInt(out, parameterCount);
+            for (int i = 0; i < parameterCount; i++) {
+                writeValue(out, parameters[i], 0);
+            }
+        } else if (obj instanceof RpcResponse response) {
+            out.writeByte(MSG_RESPONSE);
+            writeValue(out, response.getErrorMessage(), 0);
+            writeValue(out, response.getResult(), 0);
+        } else {
+            out.writeByte(MSG_VALUE);
+            writeValue(out, obj, 0);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> clazz) {
+        return deserialize(Unpooled.wrappedBuffer(bytes), clazz);
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuf buf, Class<T> clazz) {
+        byte messageTag = buf.readByte();
+        Object obj = switch (messageTag) {
+            case MSG_REQUEST -> readRequest(buf);
+            case MSG_RESPONSE -> readResponse(buf);
+            case MSG_VALUE -> readValue(buf, 0);
+            default -> throw new IllegalArgumentException("未知的消息标签: " + messageTag);
+        };
+        return clazz.cast(obj);
+    }
+
+    private RpcRequest readRequest(ByteBuf buf) {
+        RpcRequest request = new RpcRequest();
+        request.setInterfaceName(readName(buf));
+        request.setMethodName(readName(buf));
+        request.setMethodId(buf.readInt());
+        int typeCount = readLength(buf, 1);
+        Class<?>[] parameterTypes = new Class<?>[typeCount];
+        for (int i = 0; i < typeCount; i++) {
+            parameterTypes[i] = readType(buf);
+        }
+        request.setParameterTypes(parameterTypes);
+        int parameterCount = readLength(buf, 1);
+        Object[] parameters = new Object[parameterCount];
+        for (int i = 0; i < parameterCount; i++) {
+            parameters[i] = readValue(buf, 0);
+        }
+        request.setParameters(parameters);
+        return request;
+    }
+
+    private RpcResponse readResponse(ByteBuf buf) {
+        RpcResponse response = new RpcResponse();
+        response.setErrorMessage((String) readValue(buf, 0));
+        response.setResult(readValue(buf, 0));
+        return response;
+    }
+
+    // ---------------- 值编解码 ----------------
+
+    private void writeValue(ByteBuf out, Object value, int depth) {
+        checkDepth(depth);
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(TAG_STRING);
+            writeString(out, s);
+        } else if (value instanceof Integer i) {
+            out.writeByte(TAG_INT);
+            writeVarInt(out, zigzag(i));
+        } else if (value instanceof Long l) {
+            out.writeByte(TAG_LONG);
+            writeVarLong(out, zigzag(l));
+        } else if (value instanceof Boolean b) {
+            out.writeByte(b ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Double d) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof Float f) {
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat(f);
+        } else if (value instanceof Byte b) {
+            out.writeByte(TAG_BYTE);
+            out.writeByte(b);
+        } else if (value instanceof Short s) {
+            out.writeByte(TAG_SHORT);
+            out.writeShort(s);
+        } else if (value instanceof Character c) {
+            out.writeByte(TAG_CHAR);
+            out.writeChar(c);
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(TAG_BYTE_ARRAY);
+            writeVarInt(out, bytes.length);
+            out.writeBytes(bytes);
+        } else if (value instanceof boolean[] booleans) {
+            out.writeByte(TAG_BOOLEAN_ARRAY);
+            writeVarInt(out, booleans.length);
+            for (boolean b : booleans) {
+                out.writeBoolean(b);
+            }
+        } else if (value instanceof int[] ints) {
+            out.writeByte(TAG_INT_ARRAY);
+            writeVarInt(out, ints.length);
+            for (int i : ints) {
+                writeVarInt(out, zigzag(i));
+            }
+        } else if (value instanceof long[] longs) {
+            out.writeByte(TAG_LONG_ARRAY);
+            writeVarInt(out, longs.length);
+            for (long l : longs) {
+                writeVarLong(out, zigzag(l));
+            }
+        } else if (value instanceof double[] doubles) {
+            out.writeByte(TAG_DOUBLE_ARRAY);
+            writeVarInt(out, doubles.length);
+            for (double d : doubles) {
+                out.writeDouble(d);
+            }
+        } else if (value instanceof Object[] array) {
+            out.writeByte(TAG_OBJECT_ARRAY);
+            writeType(out, array.getClass().getComponentType());
+            writeVarInt(out, array.length);
+            for (Object element : array) {
+                writeValue(out, element, depth + 1);
+            }
+        } else if (value instanceof List<?> list) {
+            out.writeByte(TAG_LIST);
+            writeVarInt(out, list.size());
+            for (Object element : list) {
+                writeValue(out, element, depth + 1);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(TAG_MAP);
+            writeVarInt(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(out, entry.getKey(), depth + 1);
+                writeValue(out, entry.getValue(), depth + 1);
+            }
+        } else {
+            // 其他对象以"类名 + JSON"兜底
+            out.writeByte(TAG_OBJECT);
+            writeName(out, value.getClass().getName());
+            byte[] json = JSON.toJSONBytes(value, SerializerFeature.DisableCircularReferenceDetect);
+            writeVarInt(out, json.length);
+            out.writeBytes(json);
+        }
+    }
+
+    private Object readValue(ByteBuf buf, int depth) {
+        checkDepth(depth);
+        byte tag = buf.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_BYTE:
+                return buf.readByte();
+            case TAG_SHORT:
+                return buf.readShort();
+            case TAG_CHAR:
+                return buf.readChar();
+            case TAG_INT:
+                return unzigzag(readVarInt(buf));
+            case TAG_LONG:
+                return unzigzag(readVarLong(buf));
+            case TAG_FLOAT:
+                return buf.readFloat();
+            case TAG_DOUBLE:
+                return buf.readDouble();
+            case TAG_STRING:
+                return readString(buf);
+            case TAG_BYTE_ARRAY: {
+                byte[] bytes = new byte[readLength(buf, 1)];
+                buf.readBytes(bytes);
+                return bytes;
+            }
+            case TAG_BOOLEAN_ARRAY: {
+                boolean[] booleans = new boolean[readLength(buf, 1)];
+                for (int i = 0; i < booleans.length; i++) {
+                    booleans[i] = buf.readBoolean();
+                }
+                return booleans;
+            }
+            case TAG_INT_ARRAY: {
+                int[] ints = new int[readLength(buf, 1)];
+                for (int i = 0; i < ints.length; i++) {
+                    ints[i] = unzigzag(readVarInt(buf));
+                }
+                return ints;
+            }
+            case TAG_LONG_ARRAY: {
+                long[] longs = new long[readLength(buf, 1)];
+                for (int i = 0; i < longs.length; i++) {
+                    longs[i] = unzigzag(readVarLong(buf));
+                }
+                return longs;
+            }
+            case TAG_DOUBLE_ARRAY: {
+                double[] doubles = new double[readLength(buf, Double.BYTES)];
+                for (int i = 0; i < doubles.length; i++) {
+                    doubles[i] = buf.readDouble();
+                }
+                return doubles;
+            }
+            case TAG_OBJECT_ARRAY: {
+                Class<?> componentType = readType(buf);
+                if (componentType.isPrimitive()) {
+                    throw new IllegalArgumentException("对象数组的元素类型不能是基本类型: " + componentType);
+                }
+                int length = readLength(buf, 1);
+                Object[] array = (Object[]) Array.newInstance(componentType, length);
+                for (int i = 0; i < length; i++) {
+                    array[i] = readValue(buf, depth + 1);
+                }
+                return array;
+            }
+            case TAG_LIST: {
+                int size = readLength(buf, 1);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buf, depth + 1));
+                }
+                return list;
+            }
+            case TAG_MAP: {
+                // 每个键值对至少两个标签字节
+                int size = readLength(buf, 2);
+                Map<Object, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(buf, depth + 1), readValue(buf, depth + 1));
+                }
+                return map;
+            }
+            case TAG_OBJECT: {
+                Class<?> type = TypeAllowlist.getINSTANCE().resolve(readName(buf));
+                byte[] json = new byte[readLength(buf, 1)];
+                buf.readBytes(json);
+                return JSON.parseObject(json, type);
+            }
+            default:
+                throw new IllegalArgumentException("未知的类型标签: " + tag);
+        }
+    }
+
+    /**
+     * 检查嵌套层数，防止畸形或自引用的值递归到栈溢出
+     *
+     * @throws IllegalArgumentException 嵌套超过 {@link #MAX_DEPTH} 层
+     */
+    private static void checkDepth(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("值的嵌套层数超过上限: " + MAX_DEPTH);
+        }
+    }
+
+    // ---------------- 类型编解码 ----------------
+
+    private void writeType(ByteBuf out, Class<?> type) {
+        Integer code = KNOWN_TYPE_CODES.get(type);
+        if (code != null) {
+            out.writeByte(code);
+        } else {
+            out.writeByte(0);
+            writeName(out, type.getName());
+        }
+    }
+
+    private Class<?> readType(ByteBuf buf) {
+        int code = buf.readUnsignedByte();
+        if (code == 0) {
+            return TypeAllowlist.getINSTANCE().resolve(readName(buf));
+        }
+        if (code > KNOWN_TYPES.length) {
+            throw new IllegalArgumentException("未知的类型码: " + code);
+        }
+        return KNOWN_TYPES[code - 1];
+    }
+
+    // ---------------- 字符串编解码 ----------------
+
+    private void writeString(ByteBuf out, String s) {
+        writeVarInt(out, ByteBufUtil.utf8Bytes(s));
+        ByteBufUtil.writeUtf8(out, s);
+    }
+
+    private String readString(ByteBuf buf) {
+        int length = readLength(buf, 1);
+        String s = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return s;
+    }
+
+    /**
+     * 写出名称（接口名、方法名、类名），UTF-8字节在编码端缓存
+     */
+    private void writeName(ByteBuf out, String name) {
+        if (name == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = encodedNames.get(name);
+        if (bytes == null) {
+            bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (encodedNames.size() < MAX_ENCODED_NAMES) {
+                encodedNames.putIfAbsent(name, bytes);
+            }
+        }
+        // 长度加1，0表示null
+        writeVarInt(out, bytes.length + 1);
+        out.writeBytes(bytes);
+    }
+
+    /**
+     * 读取名称，命中解码端缓存时直接复用已有的String实例
+     */
+    private String readName(ByteBuf buf) {
+        int length = readVarInt(buf) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > buf.readableBytes()) {
+            throw new IllegalArgumentException("名称长度超出剩余字节数: " + length);
+        }
+        int index = buf.readerIndex();
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buf.getByte(index + i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (NAME_SLOTS - 1);
+
+        NameEntry entry = decodedNames[slot];
+        if (entry != null && entry.matches(buf, index, length)) {
+            buf.skipBytes(length);
+            return entry.value;
+        }
+
+        byte[] bytes = new byte[length];
+        buf.readBytes(bytes);
+        String name = new String(bytes, StandardCharsets.UTF_8);
+        decodedNames[slot] = new NameEntry(bytes, name);
+        return name;
+    }
+
+    /**
+     * 解码端名称缓存条目，字段不可变，可在线程间安全发布
+     */
+    private static final class NameEntry {
+
+        private final byte[] bytes;
+
+        private final String value;
+
+        NameEntry(byte[] bytes, String value) {
+            this.bytes = bytes;
+            this.value = value;
+        }
+
+        boolean matches(ByteBuf buf, int index, int length) {
+            if (bytes.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] != buf.getByte(index + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // ---------------- 变长整数 ----------------
+
+    /**
+     * 读取长度或元素个数，在分配之前校验
+     *
+     * @param minBytesPerElement 每个元素至少占用的字节数
+     * @return 长度
+     * @throws IllegalArgumentException 长度为负数，或剩余字节数不足以容纳这么多元素
+     */
+    private static int readLength(ByteBuf buf, int minBytesPerElement) {
+        int length = readVarInt(buf);
+        if (length < 0 || length > buf.readableBytes() / minBytesPerElement) {
+            throw new IllegalArgumentException("长度非法: " + length + "，剩余字节数: " + buf.readableBytes());
+        }
+        return length;
+    }
+
+    private static void writeVarInt(ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuf buf) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buf.readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("varint 格式错误");
+    }
+
+    private static void writeVarLong(ByteBuf out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(ByteBuf buf) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("varlong 格式错误");
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
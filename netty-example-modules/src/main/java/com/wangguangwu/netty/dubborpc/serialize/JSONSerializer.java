@@ -2,6 +2,15 @@ package com.wangguangwu.netty.dubborpc.serialize;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.serializer.SerializerFeature;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 
 /**
  * JSON序列化器
@@ -11,6 +20,16 @@ import com.alibaba.fastjson.serializer.SerializerFeature;
  */
 public class JSONSerializer implements Serializer {
 
+    /**
+     * JSON序列化器ID
+     */
+    public static final byte SERIALIZER_ID = 1;
+
+    @Override
+    public byte getSerializerId() {
+        return SERIALIZER_ID;
+    }
+
     /**
      * 将对象序列化为字节数组
      *
@@ -23,6 +42,22 @@ public class JSONSerializer implements Serializer {
         return JSON.toJSONBytes(obj, SerializerFeature.DisableCircularReferenceDetect);
     }
 
+    /**
+     * 将对象直接序列化到ByteBuf
+     * FastJSON 使用线程本地的字符和字节缓冲完成编码，再写入目标缓冲区
+     *
+     * @param obj 要序列化的对象
+     * @param out 目标缓冲区
+     */
+    @Override
+    public void serialize(Object obj, ByteBuf out) {
+        try (OutputStream os = new ByteBufOutputStream(out)) {
+            JSON.writeJSONString(os, obj, SerializerFeature.DisableCircularReferenceDetect);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * 将字节数组反序列化为对象
      *
@@ -36,4 +71,43 @@ public class JSONSerializer implements Serializer {
         // 使用FastJSON将JSON字符串转换为对象
         return JSON.parseObject(bytes, clazz);
     }
+
+    /**
+     * 直接从ByteBuf反序列化对象
+     * 堆内缓冲区直接解析底层数组，堆外缓冲区通过输入流解析（FastJSON内部复用线程本地缓冲）
+     *
+     * @param buf   消息体缓冲区
+     * @param clazz 目标类型
+     * @param <T>   目标类型
+     * @return 反序列化后的对象
+     */
+    @Override
+    public <T> T deserialize(ByteBuf buf, Class<T> clazz) {
+        int length = buf.readableBytes();
+        if (buf.hasArray()) {
+            int offset = buf.arrayOffset() + buf.readerIndex();
+            T obj = JSON.parseObject(buf.array(), offset, length, StandardCharsets.UTF_8, clazz);
+            buf.skipBytes(length);
+            return obj;
+        }
+        try (InputStream in = new ByteBufInputStream(buf, length)) {
+            return deserialize(in, clazz);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 从输入流反序列化对象
+     *
+     * @param in    输入流
+     * @param clazz 目标类型
+     * @param <T>   目标类型
+     * @return 反序列化后的对象
+     * @throws IOException 读取输入流失败
+     */
+    @Override
+    public <T> T deserialize(InputStream in, Class<T> clazz) throws IOException {
+        return JSON.parseObject(in, StandardCharsets.UTF_8, clazz);
+    }
 }
@@ -1,5 +1,11 @@
 package com.wangguangwu.netty.dubborpc.serialize;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * 序列化器接口
  * 定义了对象序列化和反序列化的方法
@@ -7,7 +13,14 @@ package com.wangguangwu.netty.dubborpc.serialize;
  * @author wangguangwu
  */
 public interface Serializer {
-    
+
+    /**
+     * 获取序列化器ID，写入协议头的序列化字段
+     *
+     * @return 序列化器ID
+     */
+    byte getSerializerId();
+
     /**
      * 将对象序列化为字节数组
      *
@@ -16,6 +29,19 @@ public interface Serializer {
      */
     byte[] serialize(Object obj);
 
+    /**
+     * 将对象直接序列化到ByteBuf
+     * <p>
+     * 默认实现先序列化为字节数组再写入缓冲区，支持流式写入的序列化器应覆盖此方法，
+     * 直接写入目标缓冲区以避免中间字节数组。
+     *
+     * @param obj 要序列化的对象
+     * @param out 目标缓冲区
+     */
+    default void serialize(Object obj, ByteBuf out) {
+        out.writeBytes(serialize(obj));
+    }
+
     /**
      * 将字节数组反序列化为对象
      *
@@ -25,4 +51,36 @@ public interface Serializer {
      * @return 反序列化后的对象
      */
     <T> T deserialize(byte[] bytes, Class<T> clazz);
+
+    /**
+     * 直接从ByteBuf反序列化对象，读取缓冲区中全部可读字节
+     * <p>
+     * 默认实现先复制为字节数组再反序列化，支持流式读取的序列化器应覆盖此方法，
+     * 直接在缓冲区上读取以避免每帧分配一个字节数组。
+     *
+     * @param buf   消息体缓冲区
+     * @param clazz 目标类型
+     * @param <T>   目标类型
+     * @return 反序列化后的对象
+     */
+    default <T> T deserialize(ByteBuf buf, Class<T> clazz) {
+        byte[] bytes = ByteBufUtil.getBytes(buf);
+        buf.skipBytes(buf.readableBytes());
+        return deserialize(bytes, clazz);
+    }
+
+    /**
+     * 从输入流反序列化对象，读取到流结束为止
+     * <p>
+     * 默认实现先读取全部字节再反序列化。
+     *
+     * @param in    输入流
+     * @param clazz 目标类型
+     * @param <T>   目标类型
+     * @return 反序列化后的对象
+     * @throws IOException 读取输入流失败
+     */
+    default <T> T deserialize(InputStream in, Class<T> clazz) throws IOException {
+        return deserialize(in.readAllBytes(), clazz);
+    }
 }
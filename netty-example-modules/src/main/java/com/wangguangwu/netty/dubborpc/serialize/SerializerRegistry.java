@@ -0,0 +1,115 @@
+package com.wangguangwu.netty.dubborpc.serialize;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
+import lombok.Getter;
+
+/**
+ * 序列化器注册表
+ * 按协议头中的一字节序列化器ID管理所有可用的序列化器
+ * <p>
+ * 解码器根据每一帧的序列化器ID选择反序列化方式，服务端按客户端使用的格式回写响应，
+ * 因此新旧格式可以在同一集群中并存，逐步切换。
+ *
+ * @author wangguangwu
+ */
+public class SerializerRegistry {
+
+    /**
+     * 单例实例
+     * -- GETTER --
+     * 获取单例实例
+     *
+     * @return 序列化器注册表实例
+     */
+    @Getter
+    private static final SerializerRegistry INSTANCE = new SerializerRegistry();
+
+    /**
+     * 指定默认序列化器ID的系统属性，例如 -Ddubborpc.serializer=2
+     */
+    public static final String DEFAULT_SERIALIZER_PROPERTY = "dubborpc.serializer";
+
+    /**
+     * 序列化器表，下标为无符号序列化器ID
+     * 注册时复制整个数组后替换，读取无需加锁
+     */
+    private volatile Serializer[] serializers = new Serializer[256];
+
+    /**
+     * 私有构造函数，默认注册JSON和二进制序列化器
+     */
+    private SerializerRegistry() {
+        register(new JSONSerializer());
+        register(new BinarySerializer());
+    }
+
+    /**
+     * 注册序列化器，相同ID的序列化器会被覆盖
+     *
+     * @param serializer 序列化器
+     */
+    public synchronized void register(Serializer serializer) {
+        if (serializer == null) {
+            throw new IllegalArgumentException("序列化器不能为空");
+        }
+        byte id = serializer.getSerializerId();
+        if (id <= 0 || id > RpcProtocol.SERIALIZER_ID_MASK) {
+            throw new IllegalArgumentException("序列化器ID必须在1到" + RpcProtocol.SERIALIZER_ID_MASK + "之间: "
+                    + serializer.getClass().getName());
+        }
+        Serializer[] copy = serializers.clone();
+        copy[id & 0xFF] = serializer;
+        serializers = copy;
+    }
+
+    /**
+     * 注册序列化器，已存在相同ID、相同类型的序列化器时保留已有实例
+     *
+     * @param serializer 序列化器
+     * @return 注册表中该ID对应的序列化器
+     * @throws IllegalArgumentException 该ID已被另一种序列化器占用
+     */
+    public synchronized Serializer registerIfAbsent(Serializer serializer) {
+        if (serializer == null) {
+            throw new IllegalArgumentException("序列化器不能为空");
+        }
+        Serializer existing = getSerializer(serializer.getSerializerId());
+        if (existing != null) {
+            if (existing.getClass() != serializer.getClass()) {
+                throw new IllegalArgumentException("序列化器ID " + serializer.getSerializerId() + " 已被 "
+                        + existing.getClass().getName() + " 占用，不能再注册 " + serializer.getClass().getName());
+            }
+            return existing;
+        }
+        register(serializer);
+        return serializer;
+    }
+
+    /**
+     * 获取序列化器
+     *
+     * @param id 序列化器ID
+     * @return 序列化器，如果未注册则返回null
+     */
+    public Serializer getSerializer(byte id) {
+        return serializers[id & 0xFF];
+    }
+
+    /**
+     * 获取默认序列化器
+     * 优先使用系统属性 {@value #DEFAULT_SERIALIZER_PROPERTY} 指定的序列化器，未指定时使用JSON
+     *
+     * @return 默认序列化器
+     */
+    public Serializer getDefaultSerializer() {
+        String configured = System.getProperty(DEFAULT_SERIALIZER_PROPERTY);
+        if (configured == null || configured.isBlank()) {
+            return getSerializer(JSONSerializer.SERIALIZER_ID);
+        }
+        Serializer serializer = getSerializer(Byte.parseByte(configured.trim()));
+        if (serializer == null) {
+            throw new IllegalArgumentException("未注册的序列化器ID: " + configured);
+        }
+        return serializer;
+    }
+}
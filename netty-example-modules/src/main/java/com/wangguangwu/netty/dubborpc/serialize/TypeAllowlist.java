@@ -0,0 +1,159 @@
+package com.wangguangwu.netty.dubborpc.serialize;
+
+import lombok.Getter;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 二进制序列化的类型白名单
+ * {@link BinarySerializer} 只按名称解析白名单中的类，对端发来的其他类名一律作为解码错误拒绝，
+ * 不会加载、实例化任意类。
+ * <p>
+ * 白名单由三部分组成：
+ * <ul>
+ *     <li>常见的JDK值类型（Set 实现、日期时间、BigDecimal 等），带类型码的类型不经过名称解析</li>
+ *     <li>注册的服务接口中方法的参数类型和返回类型，包括泛型参数和数组元素类型：
+ *     服务端在 ServiceRegistry 注册服务时加入，客户端在 RpcClientProxy 创建代理时加入</li>
+ *     <li>通过 {@link #allow(Type)} 显式加入的类型，例如参数声明为父类、实际传入子类的情况</li>
+ * </ul>
+ *
+ * @author wangguangwu
+ */
+public final class TypeAllowlist {
+
+    /**
+     * 默认允许的JDK值类型
+     */
+    private static final Class<?>[] JDK_VALUE_TYPES = {
+            HashSet.class, LinkedHashSet.class, TreeSet.class, Date.class, BigDecimal.class, BigInteger.class,
+            UUID.class, Instant.class, Duration.class, LocalDate.class, LocalTime.class, LocalDateTime.class
+    };
+
+    /**
+     * 单例实例
+     * -- GETTER --
+     * 获取单例实例
+     *
+     * @return 类型白名单实例
+     */
+    @Getter
+    private static final TypeAllowlist INSTANCE = new TypeAllowlist();
+
+    /**
+     * 允许的类型：类名 -> 类对象
+     */
+    private final Map<String, Class<?>> types = new ConcurrentHashMap<>();
+
+    private TypeAllowlist() {
+        for (Class<?> type : JDK_VALUE_TYPES) {
+            allow(type);
+        }
+    }
+
+    /**
+     * 加入服务接口全部方法的参数类型和返回类型
+     *
+     * @param interfaceClass 服务接口
+     */
+    public void allowService(Class<?> interfaceClass) {
+        Set<Type> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Method method : interfaceClass.getMethods()) {
+            if (method.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            for (Type parameterType : method.getGenericParameterTypes()) {
+                allow(parameterType, visited);
+            }
+            allow(method.getGenericReturnType(), visited);
+        }
+    }
+
+    /**
+     * 加入类型，泛型参数和数组元素类型一并加入
+     *
+     * @param type 类型
+     */
+    public void allow(Type type) {
+        allow(type, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    /**
+     * 按名称解析类型
+     *
+     * @param className 类名
+     * @return 类对象
+     * @throws IllegalArgumentException 类型不在白名单中
+     */
+    public Class<?> resolve(String className) {
+        Class<?> type = className == null ? null : types.get(className);
+        if (type == null) {
+            throw new IllegalArgumentException("类型不在白名单中: " + className);
+        }
+        return type;
+    }
+
+    /**
+     * 判断类型是否在白名单中
+     *
+     * @param className 类名
+     * @return 在白名单中时返回true
+     */
+    public boolean isAllowed(String className) {
+        return className != null && types.containsKey(className);
+    }
+
+    private void allow(Type type, Set<Type> visited) {
+        if (type == null || !visited.add(type)) {
+            return;
+        }
+        if (type instanceof Class<?> clazz) {
+            if (clazz.isPrimitive()) {
+                return;
+            }
+            types.putIfAbsent(clazz.getName(), clazz);
+            if (clazz.isArray()) {
+                allow(clazz.getComponentType(), visited);
+            }
+        } else if (type instanceof ParameterizedType parameterized) {
+            allow(parameterized.getRawType(), visited);
+            for (Type argument : parameterized.getActualTypeArguments()) {
+                allow(argument, visited);
+            }
+        } else if (type instanceof GenericArrayType array) {
+            allow(array.getGenericComponentType(), visited);
+        } else if (type instanceof WildcardType wildcard) {
+            for (Type bound : wildcard.getUpperBounds()) {
+                allow(bound, visited);
+            }
+            for (Type bound : wildcard.getLowerBounds()) {
+                allow(bound, visited);
+            }
+        } else if (type instanceof TypeVariable<?> variable) {
+            for (Type bound : variable.getBounds()) {
+                allow(bound, visited);
+            }
+        }
+    }
+}
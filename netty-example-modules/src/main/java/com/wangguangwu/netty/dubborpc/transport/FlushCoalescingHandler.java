@@ -0,0 +1,210 @@
+package com.wangguangwu.netty.dubborpc.transport;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 刷新合并处理器
+ * 把同一事件循环周期内（或配置的时间窗口内）的多次 flush 合并为一次系统调用
+ * <p>
+ * 合并规则：
+ * <ul>
+ *     <li>读取过程中请求的 flush 推迟到 channelReadComplete 时统一执行</li>
+ *     <li>其余 flush 提交到事件循环末尾执行；配置了时间窗口时延迟窗口时长后执行</li>
+ *     <li>待刷新的消息数达到上限时立即 flush，上限为1时等同于不合并</li>
+ *     <li>通道不可写、关闭或发生异常时立即 flush</li>
+ * </ul>
+ * 需要放在 pipeline 最前面（靠近网络一侧），以便看到所有出站的 write 和 flush。
+ *
+ * @author wangguangwu
+ */
+public class FlushCoalescingHandler extends ChannelDuplexHandler {
+
+    /**
+     * 单次 flush 最多合并消息数的系统属性名，设置为1即关闭合并
+     */
+    public static final String MAX_MESSAGES_PROPERTY = "dubborpc.flush.maxMessages";
+
+    /**
+     * 合并时间窗口（微秒）的系统属性名，0表示只合并同一事件循环周期内的写入
+     */
+    public static final String WINDOW_MICROS_PROPERTY = "dubborpc.flush.windowMicros";
+
+    /**
+     * 默认单次 flush 最多合并的消息数
+     */
+    private static final int DEFAULT_MAX_MESSAGES = 256;
+
+    /**
+     * 单次 flush 最多合并的消息数
+     */
+    private final int maxPendingMessages;
+
+    /**
+     * 合并时间窗口（纳秒）
+     */
+    private final long windowNanos;
+
+    /**
+     * 刷新统计，同一端的所有连接共享
+     */
+    private final FlushStats stats;
+
+    /**
+     * 自上次实际 flush 以来写入的消息数
+     */
+    private int pendingMessages;
+
+    /**
+     * 是否有尚未执行的 flush 请求
+     */
+    private boolean flushRequested;
+
+    /**
+     * 是否处于读取过程中
+     */
+    private boolean readInProgress;
+
+    /**
+     * 是否已提交延迟 flush 任务
+     */
+    private boolean flushScheduled;
+
+    /**
+     * 延迟 flush 任务
+     */
+    private Runnable flushTask;
+
+    /**
+     * 构造函数
+     *
+     * @param maxPendingMessages 单次 flush 最多合并的消息数
+     * @param windowMicros       合并时间窗口（微秒），0表示只合并同一事件循环周期内的写入
+     * @param stats              刷新统计
+     */
+    public FlushCoalescingHandler(int maxPendingMessages, long windowMicros, FlushStats stats) {
+        if (maxPendingMessages <= 0) {
+            throw new IllegalArgumentException("maxPendingMessages必须大于0: " + maxPendingMessages);
+        }
+        if (windowMicros < 0) {
+            throw new IllegalArgumentException("windowMicros不能为负数: " + windowMicros);
+        }
+        this.maxPendingMessages = maxPendingMessages;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.stats = stats;
+    }
+
+    /**
+     * 按系统属性 {@value #MAX_MESSAGES_PROPERTY} 和 {@value #WINDOW_MICROS_PROPERTY} 创建处理器
+     *
+     * @param stats 刷新统计
+     * @return 刷新合并处理器
+     */
+    public static FlushCoalescingHandler fromSystemProperties(FlushStats stats) {
+        return new FlushCoalescingHandler(
+                Integer.getInteger(MAX_MESSAGES_PROPERTY, DEFAULT_MAX_MESSAGES),
+                Long.getLong(WINDOW_MICROS_PROPERTY, 0L),
+                stats);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        flushTask = () -> {
+            flushScheduled = false;
+            if (flushRequested) {
+                flushNow(ctx);
+            }
+        };
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        pendingMessages++;
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        flushRequested = true;
+        if (pendingMessages >= maxPendingMessages) {
+            flushNow(ctx);
+        } else if (!readInProgress) {
+            scheduleFlush(ctx);
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        readInProgress = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        readInProgress = false;
+        flushIfRequested(ctx);
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (!ctx.channel().isWritable()) {
+            // 通道不可写时尽快把已写入的数据交给网络
+            flushIfRequested(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        flushIfRequested(ctx);
+        ctx.fireExceptionCaught(cause);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) {
+        flushIfRequested(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+        flushIfRequested(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        flushIfRequested(ctx);
+    }
+
+    private void scheduleFlush(ChannelHandlerContext ctx) {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        if (windowNanos > 0) {
+            ctx.executor().schedule(flushTask, windowNanos, TimeUnit.NANOSECONDS);
+        } else {
+            ctx.executor().execute(flushTask);
+        }
+    }
+
+    private void flushIfRequested(ChannelHandlerContext ctx) {
+        if (flushRequested) {
+            flushNow(ctx);
+        }
+    }
+
+    private void flushNow(ChannelHandlerContext ctx) {
+        flushRequested = false;
+        if (pendingMessages > 0) {
+            stats.recordFlush(pendingMessages);
+            pendingMessages = 0;
+        }
+        ctx.flush();
+    }
+}
@@ -0,0 +1,66 @@
+package com.wangguangwu.netty.dubborpc.transport;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 刷新统计
+ * 记录实际写出的消息数和实际执行的 flush 次数，二者之比即每次 flush 平均合并的消息数
+ *
+ * @author wangguangwu
+ */
+public class FlushStats {
+
+    /**
+     * 写出的消息数
+     */
+    private final LongAdder messages = new LongAdder();
+
+    /**
+     * 实际执行的 flush 次数
+     */
+    private final LongAdder flushes = new LongAdder();
+
+    /**
+     * 记录一次 flush
+     *
+     * @param messageCount 本次 flush 写出的消息数
+     */
+    void recordFlush(int messageCount) {
+        messages.add(messageCount);
+        flushes.increment();
+    }
+
+    /**
+     * 获取写出的消息数
+     *
+     * @return 消息数
+     */
+    public long getMessages() {
+        return messages.sum();
+    }
+
+    /**
+     * 获取实际执行的 flush 次数
+     *
+     * @return flush 次数
+     */
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    /**
+     * 获取每次 flush 平均写出的消息数
+     *
+     * @return 平均消息数，尚未 flush 时为0
+     */
+    public double getMessagesPerFlush() {
+        long flushCount = flushes.sum();
+        return flushCount == 0 ? 0 : (double) messages.sum() / flushCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FlushStats{messages=%d, flushes=%d, messagesPerFlush=%.2f}",
+                getMessages(), getFlushes(), getMessagesPerFlush());
+    }
+}
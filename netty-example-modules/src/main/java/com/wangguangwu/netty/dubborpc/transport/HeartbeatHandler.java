@@ -0,0 +1,133 @@
+package com.wangguangwu.netty.dubborpc.transport;
+
+import com.wangguangwu.netty.dubborpc.codec.RpcDecoder;
+import com.wangguangwu.netty.dubborpc.protocol.Heartbeat;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 心跳处理器
+ * 与放在 pipeline 最前面的 {@link IdleStateHandler} 配合使用，由 {@link #newIdleStateHandler()} 创建：
+ * <ul>
+ *     <li>客户端：连接上持续 {@value #INTERVAL_PROPERTY} 没有写出数据时发送心跳帧</li>
+ *     <li>服务端：收到心跳帧时回应一个心跳帧</li>
+ *     <li>双方：持续 {@value #TIMEOUT_PROPERTY} 没有读到任何数据时认为对端已失效，关闭连接</li>
+ * </ul>
+ * 心跳帧在这里被消费，不会传给后面的RPC处理器。旧版协议的对端不发心跳，服务端不会因为空闲关闭这类连接。
+ *
+ * @author wangguangwu
+ */
+public class HeartbeatHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(HeartbeatHandler.class);
+
+    /**
+     * 心跳间隔（毫秒）的系统属性名，设为0关闭心跳和空闲检测
+     */
+    public static final String INTERVAL_PROPERTY = "dubborpc.heartbeat.intervalMillis";
+
+    /**
+     * 空闲超时（毫秒）的系统属性名，默认为心跳间隔的3倍
+     */
+    public static final String TIMEOUT_PROPERTY = "dubborpc.heartbeat.timeoutMillis";
+
+    /**
+     * 默认心跳间隔（毫秒）
+     */
+    public static final long DEFAULT_INTERVAL_MILLIS = 5000;
+
+    /**
+     * 默认空闲超时相对心跳间隔的倍数
+     */
+    private static final int DEFAULT_TIMEOUT_MULTIPLIER = 3;
+
+    /**
+     * 是否为客户端，客户端主动发送心跳
+     */
+    private final boolean client;
+
+    /**
+     * 心跳间隔（毫秒）
+     */
+    private final long intervalMillis;
+
+    /**
+     * 空闲超时（毫秒）
+     */
+    private final long timeoutMillis;
+
+    /**
+     * 构造函数
+     *
+     * @param client         是否为客户端
+     * @param intervalMillis 心跳间隔（毫秒），小于等于0时不发送心跳、也不做空闲检测
+     * @param timeoutMillis  空闲超时（毫秒）
+     */
+    public HeartbeatHandler(boolean client, long intervalMillis, long timeoutMillis) {
+        if (intervalMillis > 0 && timeoutMillis <= intervalMillis) {
+            throw new IllegalArgumentException("空闲超时必须大于心跳间隔: " + timeoutMillis + " <= " + intervalMillis);
+        }
+        this.client = client;
+        this.intervalMillis = intervalMillis;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 按系统属性 {@value #INTERVAL_PROPERTY} 和 {@value #TIMEOUT_PROPERTY} 创建处理器
+     *
+     * @param client 是否为客户端
+     * @return 心跳处理器
+     */
+    public static HeartbeatHandler fromSystemProperties(boolean client) {
+        long interval = Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_MILLIS);
+        long timeout = Long.getLong(TIMEOUT_PROPERTY, interval * DEFAULT_TIMEOUT_MULTIPLIER);
+        return new HeartbeatHandler(client, interval, timeout);
+    }
+
+    /**
+     * 创建配套的空闲检测处理器，应放在 pipeline 最前面，以便看到所有读写
+     *
+     * @return 空闲检测处理器，关闭心跳时所有空闲时间均为0，不产生事件
+     */
+    public IdleStateHandler newIdleStateHandler() {
+        if (intervalMillis <= 0) {
+            return new IdleStateHandler(0, 0, 0);
+        }
+        return new IdleStateHandler(timeoutMillis, client ? intervalMillis : 0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof Heartbeat) {
+            if (!client) {
+                ctx.writeAndFlush(Heartbeat.INSTANCE);
+            }
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (!(evt instanceof IdleStateEvent event)) {
+            super.userEventTriggered(ctx, evt);
+            return;
+        }
+        if (event.state() == IdleState.WRITER_IDLE) {
+            ctx.writeAndFlush(Heartbeat.INSTANCE);
+        } else if (event.state() == IdleState.READER_IDLE && (client || !RpcDecoder.isLegacy(ctx.channel()))) {
+            LOGGER.warn("连接空闲超过 {}ms，关闭连接: {}", timeoutMillis, ctx.channel().remoteAddress());
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.wangguangwu.netty.dubborpc.transport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 进行中请求表
+ * 以原始 long 类型的请求ID为键，避免装箱和 Map.Entry 节点分配
+ * <p>
+ * 表被拆分为若干分段（stripe），每个分段是一张独立加锁的开放寻址哈希表（线性探测，删除时向后移位），
+ * 不同分段上的注册和响应通知互不竞争。
+ *
+ * @author wangguangwu
+ */
+public final class InFlightRequestTable {
+
+    /**
+     * 分段数量，必须是2的幂
+     */
+    private static final int STRIPES = 32;
+
+    /**
+     * 选择分段时右移的位数，取哈希值的高位
+     */
+    private static final int STRIPE_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(STRIPES);
+
+    /**
+     * 每个分段的初始容量，必须是2的幂
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 黄金分割常数，用于打散连续的请求ID
+     */
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    /**
+     * 分段数组
+     */
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * 构造函数
+     */
+    public InFlightRequestTable() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 添加请求，已存在相同ID时覆盖
+     *
+     * @param requestId 请求ID
+     * @param future    RPC Future
+     */
+    public void put(long requestId, RpcFuture future) {
+        long hash = hash(requestId);
+        stripeFor(hash).put(requestId, (int) hash, future);
+    }
+
+    /**
+     * 获取请求
+     *
+     * @param requestId 请求ID
+     * @return RPC Future，如果不存在则返回null
+     */
+    public RpcFuture get(long requestId) {
+        long hash = hash(requestId);
+        return stripeFor(hash).get(requestId, (int) hash);
+    }
+
+    /**
+     * 移除请求
+     *
+     * @param requestId 请求ID
+     * @return 被移除的RPC Future，如果不存在则返回null
+     */
+    public RpcFuture remove(long requestId) {
+        long hash = hash(requestId);
+        return stripeFor(hash).remove(requestId, (int) hash, null);
+    }
+
+    /**
+     * 仅当请求ID仍对应指定的Future时移除
+     *
+     * @param requestId 请求ID
+     * @param expected  期望的RPC Future
+     * @return 是否移除成功
+     */
+    public boolean remove(long requestId, RpcFuture expected) {
+        long hash = hash(requestId);
+        return stripeFor(hash).remove(requestId, (int) hash, expected) != null;
+    }
+
+    /**
+     * 移除全部请求
+     *
+     * @return 被移除的RPC Future
+     */
+    public List<RpcFuture> removeAll() {
+        List<RpcFuture> removed = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.drainTo(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * 获取进行中的请求数
+     *
+     * @return 请求数
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * 判断是否没有进行中的请求
+     *
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private static long hash(long requestId) {
+        return requestId * GOLDEN_RATIO;
+    }
+
+    private Stripe stripeFor(long hash) {
+        return stripes[(int) (hash >>> STRIPE_SHIFT)];
+    }
+
+    /**
+     * 分段：独立加锁的开放寻址哈希表，负载因子不超过0.5
+     */
+    private static final class Stripe {
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+
+        private RpcFuture[] values = new RpcFuture[INITIAL_CAPACITY];
+
+        private int size;
+
+        synchronized void put(long key, int hash, RpcFuture value) {
+            int mask = keys.length - 1;
+            int i = hash & mask;
+            while (values[i] != null) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (++size > keys.length >>> 1) {
+                resize();
+            }
+        }
+
+        synchronized RpcFuture get(long key, int hash) {
+            int mask = keys.length - 1;
+            for (int i = hash & mask; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        synchronized RpcFuture remove(long key, int hash, RpcFuture expected) {
+            int mask = keys.length - 1;
+            for (int i = hash & mask; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    RpcFuture value = values[i];
+                    if (expected != null && value != expected) {
+                        return null;
+                    }
+                    removeAt(i, mask);
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void drainTo(List<RpcFuture> target) {
+            if (size == 0) {
+                return;
+            }
+            for (RpcFuture value : values) {
+                if (value != null) {
+                    target.add(value);
+                }
+            }
+            Arrays.fill(values, null);
+            size = 0;
+        }
+
+        /**
+         * 删除槽位并把后续探测链上的元素前移，保证查找不会在空槽处提前终止
+         */
+        private void removeAt(int hole, int mask) {
+            values[hole] = null;
+            size--;
+            for (int i = (hole + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+                int home = (int) hash(keys[i]) & mask;
+                // 元素的起始槽位不在 (hole, i] 区间内时才能前移到空槽
+                boolean reachable = hole <= i ? (home > hole && home <= i) : (home > hole || home <= i);
+                if (!reachable) {
+                    keys[hole] = keys[i];
+                    values[hole] = values[i];
+                    values[i] = null;
+                    hole = i;
+                }
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            RpcFuture[] oldValues = values;
+            keys = new long[oldKeys.length << 1];
+            values = new RpcFuture[oldKeys.length << 1];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] != null) {
+                    int i = (int) hash(oldKeys[j]) & mask;
+                    while (values[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+    }
+}
@@ -2,37 +2,37 @@ package com.wangguangwu.netty.dubborpc.transport;
 
 import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
 import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import io.netty.util.Timeout;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 /**
  * RPC异步结果处理类
- * 用于等待RPC调用结果返回
+ * 既可以阻塞等待RPC调用结果，也可以注册完成回调或转换为 {@link CompletableFuture}，
+ * 异步调用不会占用调用方线程
  *
  * @author wangguangwu
  */
 public class RpcFuture {
 
     /**
-     * 用于等待结果的闭锁
+     * 底层的完成信号，响应到达或调用失败时完成
      */
-    private final CountDownLatch latch = new CountDownLatch(1);
+    private final CompletableFuture<RpcResponse> completion = new CompletableFuture<>();
 
     /**
-     * RPC调用响应结果
-     */
-    private RpcResponse response;
-
-    /**
-     * 调用失败的异常
+     * 请求对象
      */
-    private Throwable cause;
+    private final RpcRequest request;
 
     /**
-     * 请求对象
+     * 时间轮上的超时任务，调用完成时取消
      */
-    private final RpcRequest request;
+    private volatile Timeout timeout;
 
     /**
      * 创建一个新的RPC Future
@@ -53,12 +53,11 @@ public class RpcFuture {
      */
     public Object get(long timeout, TimeUnit timeUnit) throws Exception {
         // 等待响应到达或超时
-        if (latch.await(timeout, timeUnit)) {
-            if (cause != null) {
-                throw new RuntimeException(cause);
-            }
-            return response;
-        } else {
+        try {
+            return completion.get(timeout, timeUnit);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
             throw new RuntimeException("RPC调用超时: " + request.getRequestId());
         }
     }
@@ -69,8 +68,8 @@ public class RpcFuture {
      * @param response RPC响应
      */
     public void setResponse(RpcResponse response) {
-        this.response = response;
-        latch.countDown();
+        completion.complete(response);
+        cancelTimeout();
     }
 
     /**
@@ -79,8 +78,31 @@ public class RpcFuture {
      * @param cause 失败原因
      */
     public void setFailure(Throwable cause) {
-        this.cause = cause;
-        latch.countDown();
+        completion.completeExceptionally(cause);
+        cancelTimeout();
+    }
+
+    /**
+     * 设置时间轮上的超时任务
+     *
+     * @param timeout 超时任务
+     */
+    void setTimeout(Timeout timeout) {
+        this.timeout = timeout;
+        // 设置前调用可能已经完成
+        if (isDone()) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * 取消超时任务
+     */
+    private void cancelTimeout() {
+        Timeout current = timeout;
+        if (current != null) {
+            current.cancel();
+        }
     }
 
     /**
@@ -89,6 +111,27 @@ public class RpcFuture {
      * @return 是否已完成
      */
     public boolean isDone() {
-        return latch.getCount() == 0;
+        return completion.isDone();
+    }
+
+    /**
+     * 注册完成回调，调用完成后在完成调用的线程上执行（已完成时在当前线程立即执行）
+     *
+     * @param callback 回调，参数为响应或失败原因，二者之一为null
+     * @return 当前Future
+     */
+    public RpcFuture whenComplete(BiConsumer<RpcResponse, Throwable> callback) {
+        completion.whenComplete(callback);
+        return this;
+    }
+
+    /**
+     * 转换为 CompletableFuture
+     * 返回的是一个独立副本，调用方对其完成或取消不会影响RPC调用本身
+     *
+     * @return 以RPC响应完成的 CompletableFuture
+     */
+    public CompletableFuture<RpcResponse> toCompletableFuture() {
+        return completion.copy();
     }
 }
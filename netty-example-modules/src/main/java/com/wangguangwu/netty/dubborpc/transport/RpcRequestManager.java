@@ -1,54 +1,167 @@
 package com.wangguangwu.netty.dubborpc.transport;
 
 import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
-import lombok.Getter;
+import com.wangguangwu.netty.dubborpc.util.LogRateLimiter;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.logging.InternalLogLevel;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * RPC请求管理器
  * 管理所有进行中的RPC请求，实现请求和响应的匹配
+ * <p>
+ * 每个请求的超时由时间轮（HashedWheelTimer）统一管理：到期后移除请求、以超时异常完成Future并计数，
+ * 不依赖调用方线程，即使没有线程在等待或响应永远不会到达，请求也不会一直留在表中。
+ * <p>
+ * 每个连接（NettyClient）持有独立的请求管理器：请求ID是连接内自增的 long，
+ * 进行中的请求保存在以原始 long 为键的分段表 {@link InFlightRequestTable} 中。
+ * <p>
+ * 流式调用（{@link RpcStream}）同样登记在表中，直到结束帧到达才移除；它的超时是空闲超时：
+ * 已授予信用却持续没有收到元素时才算超时，流的总时长不受限制。
  *
  * @author wangguangwu
  */
 public class RpcRequestManager {
 
     /**
-     * 单例实例
-     * -- GETTER --
-     * 获取单例实例
-     *
-     * @return RpcRequestManager实例
+     * 日志记录器
      */
-    @Getter
-    private static final RpcRequestManager INSTANCE = new RpcRequestManager();
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(RpcRequestManager.class);
 
     /**
-     * 请求ID到Future的映射，用于存储和管理进行中的请求
+     * WARN 日志的限流器，超时后才到达的响应可能成批出现
      */
-    private final Map<String, RpcFuture> requestMap = new ConcurrentHashMap<>();
+    private static final LogRateLimiter WARN_LIMITER = new LogRateLimiter(LOGGER);
 
     /**
      * 默认RPC调用超时时间（秒）
      */
-    private static final long DEFAULT_TIMEOUT = 30;
+    public static final long DEFAULT_TIMEOUT = 30;
+
+    /**
+     * 时间轮刻度（毫秒）
+     */
+    private static final long TICK_MILLIS = 10;
+
+    /**
+     * 时间轮槽位数
+     */
+    private static final int TICKS_PER_WHEEL = 512;
+
+    /**
+     * 请求超时时间轮，所有请求管理器共享一个
+     */
+    private static final HashedWheelTimer TIMEOUT_TIMER = new HashedWheelTimer(
+            new DefaultThreadFactory("rpc-timeout", true), TICK_MILLIS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+
+    /**
+     * 请求ID到Future的映射，用于存储和管理进行中的请求
+     */
+    private final InFlightRequestTable requestMap = new InFlightRequestTable();
 
     /**
-     * 私有构造函数，防止外部实例化
+     * 连接内的请求ID序列
      */
-    private RpcRequestManager() {
+    private final AtomicLong requestIdSequence = new AtomicLong();
+
+    /**
+     * 超时请求计数
+     */
+    private final LongAdder timeoutCount = new LongAdder();
+
+    /**
+     * 分配下一个请求ID，在当前连接内唯一
+     *
+     * @return 请求ID
+     */
+    public long nextRequestId() {
+        return requestIdSequence.incrementAndGet();
     }
 
     /**
-     * 注册请求
+     * 注册请求，使用默认超时时间
      *
      * @param requestId 请求ID
      * @param future    RPC Future
      */
-    public void registerRequest(String requestId, RpcFuture future) {
+    public void registerRequest(long requestId, RpcFuture future) {
+        registerRequest(requestId, future, TimeUnit.SECONDS.toMillis(DEFAULT_TIMEOUT));
+    }
+
+    /**
+     * 注册请求，并在时间轮上登记超时
+     *
+     * @param requestId     请求ID
+     * @param future        RPC Future
+     * @param timeoutMillis 超时时间（毫秒）
+     */
+    public void registerRequest(long requestId, RpcFuture future, long timeoutMillis) {
         requestMap.put(requestId, future);
+        future.setTimeout(TIMEOUT_TIMER.newTimeout(
+                timeout -> expire(requestId, future), timeoutMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 注册流式调用，并在时间轮上登记空闲超时
+     *
+     * @param requestId         请求ID
+     * @param stream            流式调用
+     * @param idleTimeoutMillis 空闲超时时间（毫秒）
+     */
+    public void registerStream(long requestId, RpcStream stream, long idleTimeoutMillis) {
+        requestMap.put(requestId, stream);
+        scheduleIdleCheck(requestId, stream, idleTimeoutMillis, idleTimeoutMillis);
+    }
+
+    private void scheduleIdleCheck(long requestId, RpcStream stream, long idleTimeoutMillis, long delayMillis) {
+        stream.setTimeout(TIMEOUT_TIMER.newTimeout(
+                timeout -> checkIdle(requestId, stream, idleTimeoutMillis), delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 检查流式调用是否空闲超时，未超时则按剩余时间重新登记
+     */
+    private void checkIdle(long requestId, RpcStream stream, long idleTimeoutMillis) {
+        if (stream.isDone()) {
+            return;
+        }
+        long idleMillis = stream.getIdleMillis();
+        if (idleMillis < idleTimeoutMillis) {
+            scheduleIdleCheck(requestId, stream, idleTimeoutMillis, idleTimeoutMillis - idleMillis);
+            return;
+        }
+        if (requestMap.remove(requestId, stream)) {
+            timeoutCount.increment();
+            stream.setFailure(new TimeoutException("RPC流式调用超时: " + requestId));
+        }
+    }
+
+    /**
+     * 请求到期：移除请求并以超时异常完成Future
+     */
+    private void expire(long requestId, RpcFuture future) {
+        // 只有仍在表中的请求才算超时，响应已到达的请求可能来不及取消定时任务
+        if (requestMap.remove(requestId, future)) {
+            timeoutCount.increment();
+            future.setFailure(new TimeoutException("RPC调用超时: " + requestId));
+        }
+    }
+
+    /**
+     * 获取累计超时请求数
+     *
+     * @return 超时请求数
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
     }
 
     /**
@@ -57,7 +170,7 @@ public class RpcRequestManager {
      * @param requestId 请求ID
      * @return RPC Future，如果不存在则返回null
      */
-    public RpcFuture getRequest(String requestId) {
+    public RpcFuture getRequest(long requestId) {
         return requestMap.get(requestId);
     }
 
@@ -67,7 +180,7 @@ public class RpcRequestManager {
      * @param requestId 请求ID
      * @return 被移除的RPC Future，如果不存在则返回null
      */
-    public RpcFuture removeRequest(String requestId) {
+    public RpcFuture removeRequest(long requestId) {
         return requestMap.remove(requestId);
     }
 
@@ -77,13 +190,28 @@ public class RpcRequestManager {
      * @param requestId 请求ID
      * @param response  RPC响应
      */
-    public void notifyResponse(String requestId, RpcResponse response) {
+    public void notifyResponse(long requestId, RpcResponse response) {
         RpcFuture future = removeRequest(requestId);
         if (future != null) {
             future.setResponse(response);
-        } else {
-            System.err.println("未找到对应的请求: " + requestId);
+        } else if (WARN_LIMITER.tryAcquire(InternalLogLevel.WARN)) {
+            // 通常是超时后才到达的响应
+            LOGGER.warn("未找到对应的请求: {}", requestId);
+        }
+    }
+
+    /**
+     * 以指定异常完成全部进行中的请求，用于连接断开时立即失败，不必等到各自超时
+     *
+     * @param cause 失败原因
+     * @return 失败的请求数
+     */
+    public int failAll(Throwable cause) {
+        List<RpcFuture> futures = requestMap.removeAll();
+        for (RpcFuture future : futures) {
+            future.setFailure(cause);
         }
+        return futures.size();
     }
 
     /**
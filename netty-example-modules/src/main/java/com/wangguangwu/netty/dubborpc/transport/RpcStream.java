@@ -0,0 +1,201 @@
+package com.wangguangwu.netty.dubborpc.transport;
+
+import com.wangguangwu.netty.dubborpc.metrics.MethodMetrics;
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import com.wangguangwu.netty.dubborpc.protocol.StreamCredit;
+import io.netty.channel.Channel;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端的一次流式调用
+ * 与普通调用一样登记在请求管理器中：元素帧交给订阅者，结束帧或其他终止响应完成调用并结束订阅。
+ * <p>
+ * 本身就是交给订阅者的 {@link Flow.Subscription}：订阅者的 request(n) 直接作为信用发给服务端，
+ * 服务端发送的元素不会超过订阅者请求的数量；cancel() 通知服务端停止发送。
+ * 订阅者的回调在IO线程上执行，不应阻塞。
+ *
+ * @author wangguangwu
+ */
+public class RpcStream extends RpcFuture implements Flow.Subscription {
+
+    /**
+     * 发送请求和信用的通道
+     */
+    private final Channel channel;
+
+    /**
+     * 请求ID
+     */
+    private final long requestId;
+
+    /**
+     * 请求对象
+     */
+    private final RpcRequest request;
+
+    /**
+     * 订阅者
+     */
+    private final Flow.Subscriber<Object> subscriber;
+
+    /**
+     * 所属的请求管理器，取消时从中移除
+     */
+    private final RpcRequestManager requestManager;
+
+    /**
+     * 已授予服务端、尚未收到元素的信用
+     */
+    private final AtomicLong outstanding = new AtomicLong();
+
+    /**
+     * 订阅是否已结束
+     */
+    private final AtomicBoolean terminated = new AtomicBoolean();
+
+    /**
+     * 最近一次收到元素或授予信用的时间（纳秒）
+     */
+    private volatile long lastActivityNanos = System.nanoTime();
+
+    /**
+     * 构造函数
+     *
+     * @param request        请求对象，请求ID已分配
+     * @param channel        发送请求和信用的通道
+     * @param subscriber     订阅者
+     * @param requestManager 所属的请求管理器
+     */
+    public RpcStream(RpcRequest request, Channel channel, Flow.Subscriber<Object> subscriber,
+                     RpcRequestManager requestManager) {
+        super(request);
+        this.channel = channel;
+        this.requestId = request.getRequestId();
+        this.request = request;
+        this.subscriber = subscriber;
+        this.requestManager = requestManager;
+    }
+
+    /**
+     * 无法发起流式调用时通知订阅者：先交给它一个空的订阅，再以异常结束
+     *
+     * @param subscriber 订阅者
+     * @param cause      失败原因
+     */
+    public static void reject(Flow.Subscriber<?> subscriber, Throwable cause) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onError(cause);
+    }
+
+    /**
+     * 收到一个元素帧
+     *
+     * @param frame 元素帧，结果即元素
+     */
+    public void onItem(RpcResponse frame) {
+        MethodMetrics metrics = request.getMetrics();
+        if (metrics != null) {
+            metrics.addBytesIn(frame.getFrameLength());
+        }
+        Object item = frame.getResult();
+        outstanding.decrementAndGet();
+        lastActivityNanos = System.nanoTime();
+        if (!terminated.get()) {
+            subscriber.onNext(item);
+        }
+    }
+
+    /**
+     * 收到终止响应：正常的结束帧完成订阅，带错误信息的结束帧或被拒绝等其他响应以异常结束订阅
+     *
+     * @param response RPC响应
+     */
+    @Override
+    public void setResponse(RpcResponse response) {
+        boolean first = terminated.compareAndSet(false, true);
+        super.setResponse(response);
+        if (!first) {
+            return;
+        }
+        if (response.getStatus() == RpcProtocol.STATUS_STREAM_END && response.getErrorMessage() == null) {
+            subscriber.onComplete();
+        } else {
+            subscriber.onError(new RuntimeException("RPC流式调用失败: " + response.getErrorMessage()));
+        }
+    }
+
+    /**
+     * 调用失败（超时、请求发送失败等），通知服务端停止发送并以异常结束订阅
+     *
+     * @param cause 失败原因
+     */
+    @Override
+    public void setFailure(Throwable cause) {
+        boolean first = terminated.compareAndSet(false, true);
+        super.setFailure(cause);
+        if (first) {
+            sendCredit(0);
+            subscriber.onError(cause);
+        }
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            cancel();
+            subscriber.onError(new IllegalArgumentException("请求的元素数必须大于0: " + n));
+            return;
+        }
+        if (terminated.get()) {
+            return;
+        }
+        lastActivityNanos = System.nanoTime();
+        // 请求总数按 Long.MAX_VALUE 封顶，视为不限数量
+        outstanding.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+        sendCredit((int) Math.min(n, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public void cancel() {
+        if (!terminated.compareAndSet(false, true)) {
+            return;
+        }
+        requestManager.removeRequest(requestId);
+        sendCredit(0);
+        super.setFailure(new CancellationException("RPC流式调用已取消: " + requestId));
+    }
+
+    /**
+     * 获取空闲时间：有未用完的信用、却没有收到元素的时长，订阅者没有请求元素时不算空闲
+     *
+     * @return 空闲时间（毫秒）
+     */
+    long getIdleMillis() {
+        if (outstanding.get() <= 0) {
+            lastActivityNanos = System.nanoTime();
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastActivityNanos);
+    }
+
+    private void sendCredit(int credits) {
+        if (channel.isActive()) {
+            channel.writeAndFlush(new StreamCredit(requestId, credits));
+        }
+    }
+}
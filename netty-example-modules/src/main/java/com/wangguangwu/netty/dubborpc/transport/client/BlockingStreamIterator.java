@@ -0,0 +1,180 @@
+package com.wangguangwu.netty.dubborpc.transport.client;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * 以阻塞迭代器的方式消费流式调用
+ * 订阅时向服务端请求一个窗口的元素，调用方每取走半个窗口再补充同样数量的信用，
+ * 因此缓冲的元素不超过一个窗口，调用方消费得慢时服务端随之放慢发送。
+ * <p>
+ * 流异常结束时 hasNext/next 抛出异常；提前停止消费时应调用 {@link #close()} 通知服务端取消。
+ * 迭代器只能由一个线程使用。
+ *
+ * @param <T> 元素类型
+ * @author wangguangwu
+ */
+public class BlockingStreamIterator<T> implements Iterator<T>, Flow.Subscriber<Object>, AutoCloseable {
+
+    /**
+     * 窗口大小的系统属性名
+     */
+    public static final String WINDOW_PROPERTY = "dubborpc.stream.window";
+
+    /**
+     * 默认窗口大小
+     */
+    public static final int DEFAULT_WINDOW = 64;
+
+    /**
+     * 流正常结束的信号
+     */
+    private static final Object END = new Object();
+
+    /**
+     * 代表null元素，阻塞队列不能存放null
+     */
+    private static final Object NULL_ITEM = new Object();
+
+    /**
+     * 窗口大小
+     */
+    private final int window;
+
+    /**
+     * 补充信用的批量
+     */
+    private final int replenish;
+
+    /**
+     * 已到达、尚未取走的元素和结束信号
+     */
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * 订阅
+     */
+    private volatile Flow.Subscription subscription;
+
+    /**
+     * 已取出、尚未返回给调用方的元素
+     */
+    private Object next;
+
+    /**
+     * 自上次补充信用以来取走的元素数
+     */
+    private int consumed;
+
+    /**
+     * 流是否已结束
+     */
+    private boolean finished;
+
+    /**
+     * 构造函数
+     *
+     * @param window 窗口大小，即最多缓冲的元素数
+     */
+    public BlockingStreamIterator(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("窗口大小必须大于0: " + window);
+        }
+        this.window = window;
+        this.replenish = Math.max(1, window / 2);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription s) {
+        subscription = s;
+        s.request(window);
+    }
+
+    @Override
+    public void onNext(Object item) {
+        queue.offer(item == null ? NULL_ITEM : item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        queue.offer(new Failure(throwable));
+    }
+
+    @Override
+    public void onComplete() {
+        queue.offer(END);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+
+        Object signal;
+        try {
+            signal = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException("等待流式调用的元素时被中断", e);
+        }
+        if (signal == END) {
+            finished = true;
+            return false;
+        }
+        if (signal instanceof Failure failure) {
+            finished = true;
+            throw new RuntimeException(failure.cause().getMessage(), failure.cause());
+        }
+
+        next = signal;
+        // 取走半个窗口后补充信用
+        if (++consumed >= replenish) {
+            subscription.request(consumed);
+            consumed = 0;
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object item = next;
+        next = null;
+        return item == NULL_ITEM ? null : (T) item;
+    }
+
+    /**
+     * 停止消费，通知服务端取消流
+     */
+    @Override
+    public void close() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        next = null;
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    /**
+     * 流异常结束的信号
+     *
+     * @param cause 异常
+     */
+    private record Failure(Throwable cause) {
+    }
+}
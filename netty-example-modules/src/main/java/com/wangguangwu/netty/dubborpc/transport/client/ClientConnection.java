@@ -0,0 +1,271 @@
+package com.wangguangwu.netty.dubborpc.transport.client;
+
+import com.wangguangwu.netty.dubborpc.codec.RpcDecoder;
+import com.wangguangwu.netty.dubborpc.codec.RpcEncoder;
+import com.wangguangwu.netty.dubborpc.metrics.MethodMetrics;
+import com.wangguangwu.netty.dubborpc.metrics.RpcMetrics;
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import com.wangguangwu.netty.dubborpc.serialize.Serializer;
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
+import com.wangguangwu.netty.dubborpc.transport.FlushCoalescingHandler;
+import com.wangguangwu.netty.dubborpc.transport.FlushStats;
+import com.wangguangwu.netty.dubborpc.transport.HeartbeatHandler;
+import com.wangguangwu.netty.dubborpc.transport.RpcFuture;
+import com.wangguangwu.netty.dubborpc.transport.RpcRequestManager;
+import com.wangguangwu.netty.dubborpc.transport.RpcStream;
+import com.wangguangwu.netty.dubborpc.util.LogRateLimiter;
+import com.wangguangwu.netty.dubborpc.util.LogSampler;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.util.internal.logging.InternalLogLevel;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 客户端连接
+ * 连接池中的一条TCP连接，持有独立的请求管理器（连接内唯一的请求ID和进行中请求表），
+ * 并统计进行中的请求数供连接池选择
+ * <p>
+ * 连接空闲时发送心跳，持续收不到数据时由 {@link HeartbeatHandler} 关闭；
+ * 连接关闭时立即以异常完成其上全部进行中的请求，不必等到各自超时。
+ * <p>
+ * 每次调用的结果、收发字节数和从发出请求到调用完成的延迟记入 {@link RpcMetrics} 的客户端指标。
+ *
+ * @author wangguangwu
+ */
+public class ClientConnection {
+
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ClientConnection.class);
+
+    /**
+     * 逐条消息日志的采样器
+     */
+    private static final LogSampler SAMPLER = new LogSampler(LOGGER);
+
+    /**
+     * WARN 日志的限流器，异常按时间限流而不是随机采样
+     */
+    private static final LogRateLimiter WARN_LIMITER = new LogRateLimiter(LOGGER);
+
+    /**
+     * 连接通道
+     */
+    @Getter
+    private final Channel channel;
+
+    /**
+     * 本连接的请求管理器
+     */
+    @Getter
+    private final RpcRequestManager requestManager;
+
+    /**
+     * 进行中的请求数
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 构造函数，连接关闭时以异常完成其上全部进行中的请求
+     *
+     * @param channel        已连接的通道
+     * @param requestManager 通道的RPC客户端处理器使用的请求管理器
+     */
+    ClientConnection(Channel channel, RpcRequestManager requestManager) {
+        this.channel = channel;
+        this.requestManager = requestManager;
+        String address = String.valueOf(channel.remoteAddress());
+        channel.closeFuture().addListener(future -> {
+            int failed = requestManager.failAll(new IOException("连接已断开: " + address));
+            if (failed > 0) {
+                LOGGER.warn("连接已断开: {}，{} 个进行中的请求已失败", address, failed);
+            }
+        });
+    }
+
+    /**
+     * 建立连接
+     *
+     * @param bootstrap          客户端启动器，已配置好事件循环组和通道选项
+     * @param hostname           服务器地址
+     * @param port               服务器端口
+     * @param serializer         默认序列化器
+     * @param serializerRegistry 序列化器注册表
+     * @param flushStats         请求写出的刷新统计
+     * @return 已连接的客户端连接
+     * @throws InterruptedException 等待连接时被中断
+     */
+    static ClientConnection connect(Bootstrap bootstrap, String hostname, int port,
+                                    Serializer serializer, SerializerRegistry serializerRegistry,
+                                    FlushStats flushStats) throws InterruptedException {
+        RpcRequestManager requestManager = new RpcRequestManager();
+        Channel channel = connectAsync(bootstrap, hostname, port, serializer, serializerRegistry,
+                flushStats, requestManager).sync().channel();
+        return new ClientConnection(channel, requestManager);
+    }
+
+    /**
+     * 异步建立连接，不阻塞当前线程，用于在IO线程上重连
+     *
+     * @param bootstrap          客户端启动器，已配置好事件循环组和通道选项
+     * @param hostname           服务器地址
+     * @param port               服务器端口
+     * @param serializer         默认序列化器
+     * @param serializerRegistry 序列化器注册表
+     * @param flushStats         请求写出的刷新统计
+     * @param requestManager     新连接使用的请求管理器
+     * @return 连接结果
+     */
+    static ChannelFuture connectAsync(Bootstrap bootstrap, String hostname, int port,
+                                      Serializer serializer, SerializerRegistry serializerRegistry,
+                                      FlushStats flushStats, RpcRequestManager requestManager) {
+        return bootstrap.clone()
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        HeartbeatHandler heartbeatHandler = HeartbeatHandler.fromSystemProperties(true);
+                        ch.pipeline()
+                                // 添加空闲检测，需要看到所有读写
+                                .addLast(heartbeatHandler.newIdleStateHandler())
+                                // 添加刷新合并处理器，合并同一周期内的请求写出
+                                .addLast(FlushCoalescingHandler.fromSystemProperties(flushStats))
+                                // 添加RPC响应解码器
+                                .addLast(new RpcDecoder(RpcResponse.class, serializerRegistry))
+                                // 添加RPC请求编码器
+                                .addLast(new RpcEncoder(RpcRequest.class, serializer, serializerRegistry))
+                                // 添加心跳处理器，空闲时发送心跳，对端失效时关闭连接
+                                .addLast(heartbeatHandler)
+                                // 添加RPC客户端处理器
+                                .addLast(new RpcClientHandler(requestManager));
+                    }
+                })
+                .connect(hostname, port);
+    }
+
+    /**
+     * 发送请求
+     * 请求ID由本连接的请求管理器分配，调用方设置的值会被覆盖
+     *
+     * @param request       请求对象
+     * @param timeoutMillis 超时时间(毫秒)
+     * @return RPC调用的Future对象
+     */
+    public RpcFuture sendRequest(RpcRequest request, long timeoutMillis) {
+        // 创建RPC Future
+        RpcFuture future = new RpcFuture(request);
+        // 分配本连接内唯一的请求ID并注册请求
+        request.setRequestId(requestManager.nextRequestId());
+        MethodMetrics metrics = attachMetrics(request);
+        requestManager.registerRequest(request.getRequestId(), future, timeoutMillis);
+
+        inFlight.incrementAndGet();
+        future.whenComplete((response, cause) -> {
+            inFlight.decrementAndGet();
+            metrics.record(System.nanoTime() - request.getStartNanos(), response, cause);
+            if (response != null) {
+                metrics.addBytesIn(response.getFrameLength());
+            }
+        });
+
+        // 发送请求
+        channel.writeAndFlush(request).addListener((ChannelFutureListener) channelFuture -> {
+            if (channelFuture.isSuccess()) {
+                if (SAMPLER.isSampled(InternalLogLevel.DEBUG)) {
+                    LOGGER.debug("请求发送成功: {}", request.getRequestId());
+                }
+            } else {
+                if (WARN_LIMITER.tryAcquire(InternalLogLevel.WARN, request.getMetrics())) {
+                    LOGGER.warn("请求发送失败: {}", request.getRequestId(), channelFuture.cause());
+                }
+                requestManager.removeRequest(request.getRequestId());
+                future.setFailure(channelFuture.cause());
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * 发起流式调用
+     * 请求与订阅者在 onSubscribe 中授予的信用一起写出，元素到达时在IO线程上回调订阅者
+     *
+     * @param request           请求对象
+     * @param subscriber        订阅者
+     * @param idleTimeoutMillis 空闲超时时间(毫秒)
+     * @return 流式调用
+     */
+    public RpcStream openStream(RpcRequest request, Flow.Subscriber<Object> subscriber, long idleTimeoutMillis) {
+        request.setRequestId(requestManager.nextRequestId());
+        MethodMetrics metrics = attachMetrics(request);
+        RpcStream stream = new RpcStream(request, channel, subscriber, requestManager);
+        requestManager.registerStream(request.getRequestId(), stream, idleTimeoutMillis);
+
+        inFlight.incrementAndGet();
+        stream.whenComplete((response, cause) -> {
+            inFlight.decrementAndGet();
+            metrics.record(System.nanoTime() - request.getStartNanos(), response, cause);
+            if (response != null) {
+                metrics.addBytesIn(response.getFrameLength());
+            }
+        });
+
+        channel.write(request).addListener((ChannelFutureListener) channelFuture -> {
+            if (!channelFuture.isSuccess()) {
+                LOGGER.warn("流式请求发送失败: {}", request.getRequestId(), channelFuture.cause());
+                requestManager.removeRequest(request.getRequestId());
+                stream.setFailure(channelFuture.cause());
+            }
+        });
+        // 订阅者在 onSubscribe 中请求的元素作为信用帧排在请求之后，与请求一起 flush
+        subscriber.onSubscribe(stream);
+        channel.flush();
+        return stream;
+    }
+
+    /**
+     * 为请求关联方法指标并记下开始时间，请求写出时由编码器计入发出字节数
+     */
+    private static MethodMetrics attachMetrics(RpcRequest request) {
+        MethodMetrics metrics = RpcMetrics.getCLIENT().forMethod(request.getInterfaceName(), request.getMethodName());
+        request.setMetrics(metrics);
+        request.setStartNanos(System.nanoTime());
+        return metrics;
+    }
+
+    /**
+     * 获取进行中的请求数
+     *
+     * @return 请求数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 判断连接是否可用
+     *
+     * @return 是否可用
+     */
+    public boolean isActive() {
+        return channel.isActive();
+    }
+
+    /**
+     * 关闭连接
+     */
+    public void close() {
+        channel.close();
+    }
+}
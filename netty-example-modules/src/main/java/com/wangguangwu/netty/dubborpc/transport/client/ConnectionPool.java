@@ -0,0 +1,326 @@
+package com.wangguangwu.netty.dubborpc.transport.client;
+
+import com.wangguangwu.netty.dubborpc.serialize.Serializer;
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
+import com.wangguangwu.netty.dubborpc.transport.FlushStats;
+import com.wangguangwu.netty.dubborpc.transport.RpcRequestManager;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+import lombok.Getter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 连接池
+ * 对同一个服务端地址维持多条连接，请求分配给进行中请求数最少的连接
+ * <p>
+ * 连接断开后（对端关闭、心跳超时或IO异常）自动重连：在IO线程上异步连接，失败时按指数退避重试，
+ * 首次等待 {@value #RECONNECT_INITIAL_DELAY_PROPERTY}，每次翻倍，最长 {@value #RECONNECT_MAX_DELAY_PROPERTY}，
+ * 并加入随机抖动，避免大量客户端同时重连。重连期间该位置的连接不可用，请求分配给其余连接。
+ * <p>
+ * 关闭或连接失败后可以再次调用 {@link #connect}，上一轮安排的重连不会再放入连接。
+ *
+ * @author wangguangwu
+ */
+public class ConnectionPool {
+
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ConnectionPool.class);
+
+    /**
+     * 首次重连等待时间（毫秒）的系统属性名
+     */
+    public static final String RECONNECT_INITIAL_DELAY_PROPERTY = "dubborpc.reconnect.initialDelayMillis";
+
+    /**
+     * 最长重连等待时间（毫秒）的系统属性名
+     */
+    public static final String RECONNECT_MAX_DELAY_PROPERTY = "dubborpc.reconnect.maxDelayMillis";
+
+    /**
+     * 默认首次重连等待时间（毫秒）
+     */
+    private static final long DEFAULT_RECONNECT_INITIAL_DELAY = 100;
+
+    /**
+     * 默认最长重连等待时间（毫秒）
+     */
+    private static final long DEFAULT_RECONNECT_MAX_DELAY = 10_000;
+
+    /**
+     * 服务器地址
+     */
+    @Getter
+    private final String hostname;
+
+    /**
+     * 服务器端口
+     */
+    @Getter
+    private final int port;
+
+    /**
+     * 连接数组，重连成功后替换对应位置的连接
+     */
+    private final AtomicReferenceArray<ClientConnection> connections;
+
+    /**
+     * 首次重连等待时间（毫秒）
+     */
+    private final long reconnectInitialDelay;
+
+    /**
+     * 最长重连等待时间（毫秒）
+     */
+    private final long reconnectMaxDelay;
+
+    /**
+     * 客户端启动器，重连时使用
+     */
+    private Bootstrap bootstrap;
+
+    /**
+     * 默认序列化器
+     */
+    private Serializer serializer;
+
+    /**
+     * 序列化器注册表
+     */
+    private SerializerRegistry serializerRegistry;
+
+    /**
+     * 请求写出的刷新统计
+     */
+    private FlushStats flushStats;
+
+    /**
+     * 连接池是否已关闭，关闭后不再重连
+     */
+    private volatile boolean closed;
+
+    /**
+     * 第几轮连接，每次 {@link #connect} 加一，上一轮的重连和断开事件不再生效
+     */
+    private volatile int generation;
+
+    /**
+     * 构造函数
+     *
+     * @param hostname 服务器地址
+     * @param port     服务器端口
+     * @param size     连接数
+     */
+    public ConnectionPool(String hostname, int port, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("连接数必须大于0: " + size);
+        }
+        this.hostname = hostname;
+        this.port = port;
+        this.connections = new AtomicReferenceArray<>(size);
+        this.reconnectInitialDelay = Math.max(1, Long.getLong(RECONNECT_INITIAL_DELAY_PROPERTY,
+                DEFAULT_RECONNECT_INITIAL_DELAY));
+        this.reconnectMaxDelay = Math.max(reconnectInitialDelay, Long.getLong(RECONNECT_MAX_DELAY_PROPERTY,
+                DEFAULT_RECONNECT_MAX_DELAY));
+    }
+
+    /**
+     * 建立全部连接，任意一条失败时关闭已建立的连接
+     * 连接池关闭或上次连接失败后可以再次调用，重新建立全部连接
+     *
+     * @param bootstrap          客户端启动器
+     * @param serializer         默认序列化器
+     * @param serializerRegistry 序列化器注册表
+     * @param flushStats         请求写出的刷新统计
+     * @throws InterruptedException 等待连接时被中断
+     */
+    public void connect(Bootstrap bootstrap, Serializer serializer, SerializerRegistry serializerRegistry,
+                        FlushStats flushStats) throws InterruptedException {
+        this.bootstrap = bootstrap;
+        this.serializer = serializer;
+        this.serializerRegistry = serializerRegistry;
+        this.flushStats = flushStats;
+        int current = ++generation;
+        for (int i = 0; i < connections.length(); i++) {
+            ClientConnection stale = connections.getAndSet(i, null);
+            if (stale != null) {
+                stale.close();
+            }
+        }
+        closed = false;
+        try {
+            for (int i = 0; i < connections.length(); i++) {
+                install(i, current, ClientConnection.connect(bootstrap, hostname, port,
+                        serializer, serializerRegistry, flushStats));
+            }
+        } catch (RuntimeException | InterruptedException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 把连接放入指定位置，连接断开时安排重连
+     */
+    private void install(int slot, int current, ClientConnection connection) {
+        if (isStale(current)) {
+            connection.close();
+            return;
+        }
+        connections.set(slot, connection);
+        connection.getChannel().closeFuture().addListener(future -> {
+            if (!isStale(current) && connections.get(slot) == connection) {
+                LOGGER.warn("与服务端的连接已断开，准备重连: {}:{}", hostname, port);
+                scheduleReconnect(slot, current, 0);
+            }
+        });
+        // 放入前连接池可能已经关闭
+        if (closed) {
+            connection.close();
+        }
+    }
+
+    /**
+     * 判断某一轮连接是否已失效：连接池已关闭，或已经开始了新一轮连接
+     */
+    private boolean isStale(int current) {
+        return closed || generation != current;
+    }
+
+    /**
+     * 按指数退避安排一次重连
+     *
+     * @param slot    连接位置
+     * @param current 第几轮连接
+     * @param attempt 已失败的重连次数
+     */
+    private void scheduleReconnect(int slot, int current, int attempt) {
+        if (isStale(current)) {
+            return;
+        }
+        long delay = reconnectDelay(attempt);
+        bootstrap.config().group().schedule(() -> reconnect(slot, current, attempt), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 异步重连，失败时再次安排重连
+     */
+    private void reconnect(int slot, int current, int attempt) {
+        if (isStale(current)) {
+            return;
+        }
+        RpcRequestManager requestManager = new RpcRequestManager();
+        ClientConnection.connectAsync(bootstrap, hostname, port, serializer, serializerRegistry,
+                flushStats, requestManager).addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                LOGGER.info("已重新连接到服务端: {}:{}，重试次数: {}", hostname, port, attempt + 1);
+                install(slot, current, new ClientConnection(future.channel(), requestManager));
+            } else {
+                scheduleReconnect(slot, current, attempt + 1);
+            }
+        });
+    }
+
+    /**
+     * 计算重连等待时间：指数增长并封顶，再随机减少至多20%
+     *
+     * @param attempt 已失败的重连次数
+     * @return 等待时间（毫秒）
+     */
+    long reconnectDelay(int attempt) {
+        long delay = attempt >= 30 ? reconnectMaxDelay : Math.min(reconnectMaxDelay, reconnectInitialDelay << attempt);
+        return delay - ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    /**
+     * 选择进行中请求数最少的可用连接
+     * 从随机位置开始扫描，请求数相同时避免总是选中第一条连接
+     *
+     * @return 客户端连接
+     * @throws IllegalStateException 没有可用连接
+     */
+    public ClientConnection select() {
+        int size = connections.length();
+        int start = size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size);
+        ClientConnection selected = null;
+        int minInFlight = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            ClientConnection connection = connections.get((start + i) % size);
+            if (connection == null || !connection.isActive()) {
+                continue;
+            }
+            int inFlight = connection.getInFlight();
+            if (inFlight < minInFlight) {
+                selected = connection;
+                minInFlight = inFlight;
+                if (inFlight == 0) {
+                    break;
+                }
+            }
+        }
+        if (selected == null) {
+            throw new IllegalStateException("没有可用的连接: " + hostname + ":" + port);
+        }
+        return selected;
+    }
+
+    /**
+     * 获取连接数
+     *
+     * @return 连接数
+     */
+    public int size() {
+        return connections.length();
+    }
+
+    /**
+     * 获取当前可用的连接数
+     *
+     * @return 连接数
+     */
+    public int getActiveCount() {
+        int active = 0;
+        for (int i = 0; i < connections.length(); i++) {
+            ClientConnection connection = connections.get(i);
+            if (connection != null && connection.isActive()) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * 获取全部连接上进行中的请求数
+     *
+     * @return 请求数
+     */
+    public int getInFlight() {
+        int inFlight = 0;
+        for (int i = 0; i < connections.length(); i++) {
+            ClientConnection connection = connections.get(i);
+            if (connection != null) {
+                inFlight += connection.getInFlight();
+            }
+        }
+        return inFlight;
+    }
+
+    /**
+     * 关闭全部连接，不再重连
+     */
+    public void close() {
+        closed = true;
+        for (int i = 0; i < connections.length(); i++) {
+            ClientConnection connection = connections.get(i);
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+}
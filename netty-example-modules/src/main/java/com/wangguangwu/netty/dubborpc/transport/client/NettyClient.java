@@ -1,28 +1,54 @@
 package com.wangguangwu.netty.dubborpc.transport.client;
 
-import com.wangguangwu.netty.dubborpc.codec.RpcDecoder;
-import com.wangguangwu.netty.dubborpc.codec.RpcEncoder;
+import com.wangguangwu.netty.dubborpc.metrics.MetricsHttpServer;
 import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
 import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
-import com.wangguangwu.netty.dubborpc.serialize.JSONSerializer;
 import com.wangguangwu.netty.dubborpc.serialize.Serializer;
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
+import com.wangguangwu.netty.dubborpc.transport.FlushStats;
 import com.wangguangwu.netty.dubborpc.transport.RpcFuture;
 import com.wangguangwu.netty.dubborpc.transport.RpcRequestManager;
+import com.wangguangwu.netty.dubborpc.transport.RpcStream;
+import com.wangguangwu.netty.transport.NettyTransport;
 import io.netty.bootstrap.Bootstrap;
-import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+import lombok.Getter;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Netty客户端
  * 负责与RPC服务器建立连接并发送请求
+ * <p>
+ * 每个服务端地址维持一个连接池，可以打开多条连接，请求分配给进行中请求数最少的连接；
+ * 所有客户端共享同一个事件循环组，创建多个客户端不会重复创建IO线程。
+ * <p>
+ * 连接空闲时发送心跳，对端失效时关闭连接并立即失败其上的请求，之后由连接池按指数退避自动重连。
  *
  * @author wangguangwu
  */
-public class NettyClient {
+public class NettyClient implements RpcClient {
+
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(NettyClient.class);
+
+    /**
+     * 每个服务端地址连接数的系统属性名
+     */
+    public static final String CONNECTIONS_PROPERTY = "dubborpc.connections";
+
+    /**
+     * 默认连接数
+     */
+    private static final int DEFAULT_CONNECTIONS = 1;
 
     /**
      * 服务器地址
@@ -35,30 +61,36 @@ public class NettyClient {
     private final int port;
 
     /**
-     * 客户端通道
+     * 连接池
      */
-    private Channel channel;
+    private final ConnectionPool connectionPool;
 
     /**
-     * 事件循环组
+     * 请求写出的刷新统计
      */
-    private EventLoopGroup group;
+    @Getter
+    private final FlushStats flushStats = new FlushStats();
 
     /**
-     * 客户端处理器
+     * 是否已启动，保证每个客户端只持有一次共享事件循环组的引用
      */
-    private RpcClientHandler clientHandler;
+    private final AtomicBoolean started = new AtomicBoolean();
 
     /**
-     * 请求管理器
+     * 事件循环组，启动后引用共享的事件循环组
      */
-    private final RpcRequestManager requestManager;
+    private EventLoopGroup group;
 
     /**
-     * 序列化器
+     * 默认序列化器
      */
     private final Serializer serializer;
 
+    /**
+     * 序列化器注册表
+     */
+    private final SerializerRegistry serializerRegistry;
+
     /**
      * 构造函数
      *
@@ -66,82 +98,109 @@ public class NettyClient {
      * @param port     服务器端口
      */
     public NettyClient(String hostname, int port) {
+        this(hostname, port, SerializerRegistry.getINSTANCE().getDefaultSerializer());
+    }
+
+    /**
+     * 构造函数，连接数取系统属性 {@value #CONNECTIONS_PROPERTY}，未设置时为1
+     *
+     * @param hostname   服务器地址
+     * @param port       服务器端口
+     * @param serializer 序列化器
+     */
+    public NettyClient(String hostname, int port, Serializer serializer) {
+        this(hostname, port, serializer, Integer.getInteger(CONNECTIONS_PROPERTY, DEFAULT_CONNECTIONS));
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param hostname    服务器地址
+     * @param port        服务器端口
+     * @param serializer  序列化器
+     * @param connections 连接数
+     */
+    public NettyClient(String hostname, int port, Serializer serializer, int connections) {
         this.hostname = hostname;
         this.port = port;
-        this.requestManager = RpcRequestManager.getINSTANCE();
-        this.serializer = new JSONSerializer();
+        this.connectionPool = new ConnectionPool(hostname, port, connections);
+        this.serializerRegistry = SerializerRegistry.getINSTANCE();
+        this.serializer = serializerRegistry.registerIfAbsent(serializer);
     }
 
     /**
-     * 启动客户端
+     * 启动客户端，重复调用时直接返回
      *
      * @throws Exception 启动异常
      */
     public void start() throws Exception {
-        group = new NioEventLoopGroup();
-        clientHandler = new RpcClientHandler();
+        if (!started.compareAndSet(false, true)) {
+            LOGGER.warn("RPC客户端已启动: {}:{}", hostname, port);
+            return;
+        }
+        // 按需开启指标抓取端点
+        MetricsHttpServer.startFromSystemProperties();
+        group = SharedEventLoopGroup.acquire();
 
-        Bootstrap bootstrap = new Bootstrap();
-        bootstrap.group(group)
-                .channel(NioSocketChannel.class)
+        Bootstrap bootstrap = NettyTransport.newBootstrap(group)
                 .option(ChannelOption.TCP_NODELAY, true)
-                .option(ChannelOption.SO_KEEPALIVE, true)
-                .handler(new ChannelInitializer<SocketChannel>() {
-                    @Override
-                    protected void initChannel(SocketChannel ch) {
-                        ch.pipeline()
-                                // 添加RPC响应解码器
-                                .addLast(new RpcDecoder(RpcResponse.class, serializer))
-                                // 添加RPC请求编码器
-                                .addLast(new RpcEncoder(RpcRequest.class, serializer))
-                                // 添加RPC客户端处理器
-                                .addLast(clientHandler);
-                    }
-                });
+                .option(ChannelOption.SO_KEEPALIVE, true);
 
         // 连接服务器
-        ChannelFuture future = bootstrap.connect(hostname, port).sync();
-        channel = future.channel();
+        try {
+            connectionPool.connect(bootstrap, serializer, serializerRegistry, flushStats);
+        } catch (Exception e) {
+            SharedEventLoopGroup.release();
+            group = null;
+            started.set(false);
+            throw e;
+        }
 
-        System.out.println("RPC客户端已连接到服务器: " + hostname + ":" + port);
+        LOGGER.info("RPC客户端已连接到服务器: {}:{}，连接数: {}", hostname, port, connectionPool.size());
     }
 
     /**
-     * 关闭客户端
+     * 获取当前可用的连接数，断开后尚未重连成功的连接不计入
+     *
+     * @return 连接数
+     */
+    public int getActiveConnections() {
+        return connectionPool.getActiveCount();
+    }
+
+    /**
+     * 关闭客户端，只有已启动的客户端才释放共享事件循环组的引用
      */
     public void shutdown() {
-        if (channel != null) {
-            channel.close();
-        }
-        if (group != null) {
-            group.shutdownGracefully();
+        connectionPool.close();
+        if (started.compareAndSet(true, false)) {
+            SharedEventLoopGroup.release();
+            group = null;
         }
-        System.out.println("RPC客户端已关闭");
+        LOGGER.info("RPC客户端已关闭");
     }
 
     /**
-     * 发送请求
+     * 发送请求，使用默认超时时间
+     * 请求ID由所选连接的请求管理器分配，调用方设置的值会被覆盖
      *
      * @param request 请求对象
      * @return RPC调用的Future对象
      */
     public RpcFuture sendRequest(RpcRequest request) {
-        // 创建RPC Future
-        RpcFuture future = new RpcFuture(request);
-        // 注册请求
-        requestManager.registerRequest(request.getRequestId(), future);
-
-        // 发送请求
-        channel.writeAndFlush(request).addListener((ChannelFutureListener) channelFuture -> {
-            if (channelFuture.isSuccess()) {
-                System.out.println("请求发送成功: " + request.getRequestId());
-            } else {
-                System.err.println("请求发送失败: " + request.getRequestId());
-                future.setFailure(channelFuture.cause());
-            }
-        });
-
-        return future;
+        return sendRequest(request, TimeUnit.SECONDS.toMillis(RpcRequestManager.DEFAULT_TIMEOUT));
+    }
+
+    /**
+     * 发送请求，选择进行中请求数最少的连接
+     * 超时由请求管理器的时间轮负责，到期后Future以超时异常完成
+     *
+     * @param request       请求对象
+     * @param timeoutMillis 超时时间(毫秒)
+     * @return RPC调用的Future对象
+     */
+    public RpcFuture sendRequest(RpcRequest request, long timeoutMillis) {
+        return connectionPool.select().sendRequest(request, timeoutMillis);
     }
 
     /**
@@ -152,8 +211,47 @@ public class NettyClient {
      * @return 响应结果
      * @throws Exception 调用异常
      */
+    @Override
     public Object syncCall(RpcRequest request, long timeoutMillis) throws Exception {
-        RpcFuture future = sendRequest(request);
+        RpcFuture future = sendRequest(request, timeoutMillis);
         return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
     }
+
+    /**
+     * 异步调用，不阻塞调用方线程
+     * 没有可用的连接（如全部连接正在重连）时返回以 {@link IllegalStateException} 完成的 Future，不在调用方线程抛出
+     *
+     * @param request       请求对象
+     * @param timeoutMillis 超时时间(毫秒)
+     * @return 以RPC响应完成的 CompletableFuture，超时则以 {@link java.util.concurrent.TimeoutException} 异常完成
+     */
+    @Override
+    public CompletableFuture<RpcResponse> asyncCall(RpcRequest request, long timeoutMillis) {
+        ClientConnection connection;
+        try {
+            connection = connectionPool.select();
+        } catch (IllegalStateException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return connection.sendRequest(request, timeoutMillis).toCompletableFuture();
+    }
+
+    /**
+     * 流式调用，在进行中请求数最少的连接上发起
+     *
+     * @param request           请求对象
+     * @param subscriber        订阅者
+     * @param idleTimeoutMillis 空闲超时时间(毫秒)
+     */
+    @Override
+    public void streamCall(RpcRequest request, Flow.Subscriber<Object> subscriber, long idleTimeoutMillis) {
+        ClientConnection connection;
+        try {
+            connection = connectionPool.select();
+        } catch (IllegalStateException e) {
+            RpcStream.reject(subscriber, e);
+            return;
+        }
+        connection.openStream(request, subscriber, idleTimeoutMillis);
+    }
 }
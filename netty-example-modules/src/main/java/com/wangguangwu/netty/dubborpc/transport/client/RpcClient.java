@@ -0,0 +1,47 @@
+package com.wangguangwu.netty.dubborpc.transport.client;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * RPC客户端
+ * 客户端代理通过该接口发送请求，既可以是连接单个服务端的 {@link NettyClient}，
+ * 也可以是在多个服务提供者之间负载均衡的集群客户端
+ *
+ * @author wangguangwu
+ */
+public interface RpcClient {
+
+    /**
+     * 同步调用
+     *
+     * @param request       请求对象
+     * @param timeoutMillis 超时时间(毫秒)
+     * @return 响应结果
+     * @throws Exception 调用异常
+     */
+    Object syncCall(RpcRequest request, long timeoutMillis) throws Exception;
+
+    /**
+     * 异步调用，不阻塞调用方线程
+     * 发送失败（如没有可用的连接）时返回以异常完成的 Future，不在调用方线程抛出
+     *
+     * @param request       请求对象
+     * @param timeoutMillis 超时时间(毫秒)
+     * @return 以RPC响应完成的 CompletableFuture
+     */
+    CompletableFuture<RpcResponse> asyncCall(RpcRequest request, long timeoutMillis);
+
+    /**
+     * 流式调用，服务端按订阅者请求的数量逐个发送元素
+     * 订阅者的回调在IO线程上执行，不应阻塞；无法发起调用时先 onSubscribe 再 onError
+     *
+     * @param request           请求对象
+     * @param subscriber        订阅者
+     * @param idleTimeoutMillis 空闲超时时间(毫秒)：已请求元素却持续没有收到时以超时结束
+     */
+    void streamCall(RpcRequest request, Flow.Subscriber<Object> subscriber, long idleTimeoutMillis);
+}
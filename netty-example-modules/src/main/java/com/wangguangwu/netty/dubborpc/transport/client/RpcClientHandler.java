@@ -1,18 +1,34 @@
 package com.wangguangwu.netty.dubborpc.transport.client;
 
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
 import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
 import com.wangguangwu.netty.dubborpc.transport.RpcRequestManager;
+import com.wangguangwu.netty.dubborpc.transport.RpcStream;
+import com.wangguangwu.netty.dubborpc.util.LogSampler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.internal.logging.InternalLogLevel;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
 /**
  * RPC客户端处理器
- * 处理服务端返回的RPC响应
+ * 处理服务端返回的RPC响应，流式调用的元素帧交给对应的 {@link RpcStream}
  *
  * @author wangguangwu
  */
 public class RpcClientHandler extends SimpleChannelInboundHandler<RpcResponse> {
 
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(RpcClientHandler.class);
+
+    /**
+     * 逐条消息日志的采样器
+     */
+    private static final LogSampler SAMPLER = new LogSampler(LOGGER);
+
     /**
      * 请求管理器
      */
@@ -20,24 +36,35 @@ public class RpcClientHandler extends SimpleChannelInboundHandler<RpcResponse> {
 
     /**
      * 构造函数
+     *
+     * @param requestManager 所属连接的请求管理器
      */
-    public RpcClientHandler() {
-        this.requestManager = RpcRequestManager.getINSTANCE();
+    public RpcClientHandler(RpcRequestManager requestManager) {
+        this.requestManager = requestManager;
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, RpcResponse response) {
-        String requestId = response.getRequestId();
-        System.out.println("RPC客户端收到响应: " + requestId);
-        
+        long requestId = response.getRequestId();
+
+        // 流式调用的元素交给对应的流，流保留在请求表中直到结束帧到达
+        if (response.getStatus() == RpcProtocol.STATUS_STREAM_ITEM) {
+            if (requestManager.getRequest(requestId) instanceof RpcStream stream) {
+                stream.onItem(response);
+            }
+            return;
+        }
+        if (SAMPLER.isSampled(InternalLogLevel.DEBUG)) {
+            LOGGER.debug("RPC客户端收到响应: requestId={}, status={}", requestId, response.getStatus());
+        }
+
         // 将响应传递给对应的请求
         requestManager.notifyResponse(requestId, response);
     }
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-        System.err.println("RPC客户端异常: " + cause.getMessage());
-        cause.printStackTrace();
+        LOGGER.warn("RPC客户端异常，关闭连接: {}", ctx.channel().remoteAddress(), cause);
         ctx.close();
     }
 }
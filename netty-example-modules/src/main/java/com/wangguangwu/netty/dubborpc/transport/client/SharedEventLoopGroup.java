@@ -0,0 +1,51 @@
+package com.wangguangwu.netty.dubborpc.transport.client;
+
+import com.wangguangwu.netty.transport.NettyTransport;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * 客户端共享事件循环组
+ * 同一进程内的所有 NettyClient 共用一个事件循环组，按引用计数管理：
+ * 第一个客户端启动时创建，最后一个客户端关闭时释放；epoll 可用时使用 epoll 事件循环
+ *
+ * @author wangguangwu
+ */
+final class SharedEventLoopGroup {
+
+    /**
+     * 共享的事件循环组
+     */
+    private static EventLoopGroup group;
+
+    /**
+     * 引用计数
+     */
+    private static int refCount;
+
+    private SharedEventLoopGroup() {
+        // 私有构造函数，防止实例化
+    }
+
+    /**
+     * 获取共享事件循环组，引用计数加一
+     *
+     * @return 事件循环组
+     */
+    static synchronized EventLoopGroup acquire() {
+        if (refCount++ == 0) {
+            group = NettyTransport.newEventLoopGroup(0, new DefaultThreadFactory("rpc-client"));
+        }
+        return group;
+    }
+
+    /**
+     * 释放共享事件循环组，引用计数归零时关闭
+     */
+    static synchronized void release() {
+        if (refCount > 0 && --refCount == 0) {
+            group.shutdownGracefully();
+            group = null;
+        }
+    }
+}
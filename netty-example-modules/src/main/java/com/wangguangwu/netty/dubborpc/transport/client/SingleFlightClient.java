@@ -0,0 +1,197 @@
+package com.wangguangwu.netty.dubborpc.transport.client;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 合并相同调用的客户端（singleflight）
+ * 包装另一个 {@link RpcClient}：接口、方法和参数都相同的调用如果已有一个在途，后来的调用不再发送请求，
+ * 而是等待在途调用的响应，响应到达后分发给所有等待者。缓存失效时大量调用方同时查询同一个键，只产生一次网络往返。
+ * <p>
+ * 只适合没有副作用的方法，因此需要显式启用，并可以通过过滤条件限定参与合并的请求。
+ * 所有等待者拿到的是同一个结果对象，调用方不应修改它。
+ * 后加入的调用共享在途调用的超时时间，同步调用仍按自己的超时时间等待。流式调用不参与合并。
+ *
+ * @author wangguangwu
+ */
+public class SingleFlightClient implements RpcClient {
+
+    /**
+     * 实际发送请求的客户端
+     */
+    private final RpcClient delegate;
+
+    /**
+     * 参与合并的请求
+     */
+    private final Predicate<RpcRequest> filter;
+
+    /**
+     * 在途调用：调用键 -> 响应的Future
+     */
+    private final Map<CallKey, CompletableFuture<RpcResponse>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 实际发送的请求数
+     */
+    private final LongAdder sent = new LongAdder();
+
+    /**
+     * 被合并、没有发送的请求数
+     */
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * 构造函数，所有请求都参与合并
+     *
+     * @param delegate 实际发送请求的客户端
+     */
+    public SingleFlightClient(RpcClient delegate) {
+        this(delegate, request -> true);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param delegate 实际发送请求的客户端
+     * @param filter   参与合并的请求，其余请求直接发送
+     */
+    public SingleFlightClient(RpcClient delegate, Predicate<RpcRequest> filter) {
+        this.delegate = delegate;
+        this.filter = filter;
+    }
+
+    @Override
+    public Object syncCall(RpcRequest request, long timeoutMillis) throws Exception {
+        if (!filter.test(request)) {
+            return delegate.syncCall(request, timeoutMillis);
+        }
+        try {
+            return asyncCall(request, timeoutMillis).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<RpcResponse> asyncCall(RpcRequest request, long timeoutMillis) {
+        if (!filter.test(request)) {
+            return delegate.asyncCall(request, timeoutMillis);
+        }
+
+        CallKey key = new CallKey(request);
+        CompletableFuture<RpcResponse> existing = inFlight.get(key);
+        if (existing == null) {
+            CompletableFuture<RpcResponse> created = new CompletableFuture<>();
+            existing = inFlight.putIfAbsent(key, created);
+            if (existing == null) {
+                sent.increment();
+                send(key, created, request, timeoutMillis);
+                return created.copy();
+            }
+        }
+        coalesced.increment();
+        // 每个等待者拿到独立的Future，取消自己的等待不影响其他等待者
+        return existing.copy();
+    }
+
+    @Override
+    public void streamCall(RpcRequest request, Flow.Subscriber<Object> subscriber, long idleTimeoutMillis) {
+        // 每个订阅者按自己的节奏消费，流式调用不合并
+        delegate.streamCall(request, subscriber, idleTimeoutMillis);
+    }
+
+    /**
+     * 发送请求，完成时先移出在途表再分发响应，之后的相同调用会重新发送
+     */
+    private void send(CallKey key, CompletableFuture<RpcResponse> shared, RpcRequest request, long timeoutMillis) {
+        delegate.asyncCall(request, timeoutMillis).whenComplete((response, cause) -> {
+            inFlight.remove(key, shared);
+            if (cause != null) {
+                shared.completeExceptionally(cause);
+            } else {
+                shared.complete(response);
+            }
+        });
+    }
+
+    /**
+     * 获取实际发送的请求数
+     *
+     * @return 请求数
+     */
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * 获取被合并、没有发送的请求数
+     *
+     * @return 请求数
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "SingleFlightClient{sent=" + getSent() + ", coalesced=" + getCoalesced()
+                + ", inFlight=" + inFlight.size() + "}";
+    }
+
+    /**
+     * 调用键：接口、方法和参数都相同的调用视为相同调用
+     */
+    private static final class CallKey {
+
+        private final String interfaceName;
+
+        private final String methodName;
+
+        private final Class<?>[] parameterTypes;
+
+        private final Object[] parameters;
+
+        private final int hash;
+
+        CallKey(RpcRequest request) {
+            this.interfaceName = request.getInterfaceName();
+            this.methodName = request.getMethodName();
+            this.parameterTypes = request.getParameterTypes();
+            this.parameters = request.getParameters();
+            this.hash = Objects.hash(interfaceName, methodName,
+                    Arrays.hashCode(parameterTypes), Arrays.deepHashCode(parameters));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CallKey other)) {
+                return false;
+            }
+            return hash == other.hash
+                    && Objects.equals(interfaceName, other.interfaceName)
+                    && Objects.equals(methodName, other.methodName)
+                    && Arrays.equals(parameterTypes, other.parameterTypes)
+                    && Arrays.deepEquals(parameters, other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
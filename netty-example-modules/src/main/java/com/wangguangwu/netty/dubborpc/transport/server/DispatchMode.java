@@ -0,0 +1,30 @@
+package com.wangguangwu.netty.dubborpc.transport.server;
+
+/**
+ * 请求分发模式
+ * 决定服务方法在哪个线程上执行
+ *
+ * @author wangguangwu
+ */
+public enum DispatchMode {
+
+    /**
+     * 直接在Netty工作线程（EventLoop）上执行，适合耗时极短的服务
+     */
+    INLINE,
+
+    /**
+     * 所有服务共享一个业务线程池
+     */
+    SHARED_POOL,
+
+    /**
+     * 每个服务接口使用独立的业务线程池，慢服务不会拖累其他服务
+     */
+    PER_SERVICE_POOL,
+
+    /**
+     * 每个连接绑定一个有序执行器，同一连接上的请求按到达顺序依次执行
+     */
+    PER_CONNECTION
+}
@@ -1,29 +1,47 @@
 package com.wangguangwu.netty.dubborpc.transport.server;
 
+import com.wangguangwu.netty.dubborpc.cache.ResultCache;
 import com.wangguangwu.netty.dubborpc.codec.RpcDecoder;
 import com.wangguangwu.netty.dubborpc.codec.RpcEncoder;
+import com.wangguangwu.netty.dubborpc.limit.AdmissionController;
+import com.wangguangwu.netty.dubborpc.metrics.MetricsHttpServer;
 import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
 import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
 import com.wangguangwu.netty.dubborpc.registry.ServiceRegistry;
-import com.wangguangwu.netty.dubborpc.serialize.JSONSerializer;
 import com.wangguangwu.netty.dubborpc.serialize.Serializer;
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
+import com.wangguangwu.netty.dubborpc.transport.FlushCoalescingHandler;
+import com.wangguangwu.netty.dubborpc.transport.FlushStats;
+import com.wangguangwu.netty.dubborpc.transport.HeartbeatHandler;
+import com.wangguangwu.netty.transport.NettyTransport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Netty服务端
  * 负责启动服务器并接收客户端请求
+ * <p>
+ * 回应客户端的心跳帧，并关闭持续 {@value HeartbeatHandler#TIMEOUT_PROPERTY} 没有收到任何数据的连接，
+ * 及时释放已失效客户端占用的连接和流。
  *
  * @author wangguangwu
  */
 public class NettyServer {
 
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(NettyServer.class);
+
     /**
      * 服务器端口
      */
@@ -35,10 +53,43 @@ public class NettyServer {
     private final ServiceRegistry serviceRegistry;
 
     /**
-     * 序列化器
+     * 默认序列化器
      */
     private final Serializer serializer;
 
+    /**
+     * 序列化器注册表
+     */
+    private final SerializerRegistry serializerRegistry;
+
+    /**
+     * 请求分发器，决定服务方法在哪个线程上执行
+     */
+    private final RequestDispatcher dispatcher;
+
+    /**
+     * 响应写出的刷新统计
+     */
+    @Getter
+    private final FlushStats flushStats = new FlushStats();
+
+    /**
+     * 进行中的请求数，作为服务端负载
+     */
+    private final LongAdder inFlightRequests = new LongAdder();
+
+    /**
+     * 准入控制，配置服务级、方法级并发限制和自适应限流
+     */
+    @Getter
+    private final AdmissionController admissionController = AdmissionController.fromSystemProperties();
+
+    /**
+     * 幂等方法的结果缓存，{@code -Ddubborpc.cache.maxEntries=0} 时为null
+     */
+    @Getter
+    private final ResultCache resultCache;
+
     /**
      * Boss线程组，用于接收连接
      */
@@ -55,48 +106,81 @@ public class NettyServer {
      * @param port 服务器端口
      */
     public NettyServer(int port) {
+        this(port, SerializerRegistry.getINSTANCE().getDefaultSerializer());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param port       服务器端口
+     * @param serializer 序列化器
+     */
+    public NettyServer(int port, Serializer serializer) {
+        this(port, serializer, RequestDispatcher.createDefault());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param port       服务器端口
+     * @param serializer 序列化器
+     * @param dispatcher 请求分发器
+     */
+    public NettyServer(int port, Serializer serializer, RequestDispatcher dispatcher) {
         this.port = port;
+        this.dispatcher = dispatcher;
         this.serviceRegistry = ServiceRegistry.getINSTANCE();
-        this.serializer = new JSONSerializer();
+        this.serializerRegistry = SerializerRegistry.getINSTANCE();
+        this.serializer = serializerRegistry.registerIfAbsent(serializer);
+        this.resultCache = ResultCache.fromSystemProperties(serializerRegistry);
     }
 
     /**
      * 启动服务器
      */
     public void start() {
+        // 按需开启指标抓取端点
+        MetricsHttpServer.startFromSystemProperties();
         try {
-            // 创建线程组
-            bossGroup = new NioEventLoopGroup(1);
-            workerGroup = new NioEventLoopGroup();
+            // 创建线程组，epoll 可用时使用 epoll，boss 线程数等于 SO_REUSEPORT 接收通道数
+            bossGroup = NettyTransport.newBossGroup();
+            workerGroup = NettyTransport.newEventLoopGroup();
 
             // 创建服务器启动器
-            ServerBootstrap bootstrap = new ServerBootstrap();
-            bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
-                    .option(ChannelOption.SO_BACKLOG, 128)
+            ServerBootstrap bootstrap = NettyTransport.newServerBootstrap(bossGroup, workerGroup);
+            bootstrap.option(ChannelOption.SO_BACKLOG, 128)
                     .childOption(ChannelOption.SO_KEEPALIVE, true)
                     .childHandler(new ChannelInitializer<SocketChannel>() {
                         @Override
                         protected void initChannel(SocketChannel ch) {
+                            HeartbeatHandler heartbeatHandler = HeartbeatHandler.fromSystemProperties(false);
                             // 添加编解码器和处理器
                             ch.pipeline()
+                                    // 添加空闲检测，需要看到所有读写
+                                    .addLast(heartbeatHandler.newIdleStateHandler())
+                                    // 添加刷新合并处理器，合并同一周期内的响应写出
+                                    .addLast(FlushCoalescingHandler.fromSystemProperties(flushStats))
                                     // 添加RPC请求解码器
-                                    .addLast(new RpcDecoder(RpcRequest.class, serializer))
+                                    .addLast(new RpcDecoder(RpcRequest.class, serializerRegistry))
                                     // 添加RPC响应编码器
-                                    .addLast(new RpcEncoder(RpcResponse.class, serializer))
+                                    .addLast(new RpcEncoder(RpcResponse.class, serializer, serializerRegistry))
+                                    // 添加心跳处理器，回应客户端心跳，关闭长时间没有数据的连接
+                                    .addLast(heartbeatHandler)
                                     // 添加RPC服务端处理器
-                                    .addLast(new RpcServerHandler(serviceRegistry));
+                                    .addLast(new RpcServerHandler(serviceRegistry, dispatcher, inFlightRequests,
+                                            admissionController, resultCache));
                         }
                     });
 
             // 绑定端口并启动服务器
-            ChannelFuture future = bootstrap.bind(port).sync();
-            System.out.println("RPC服务器已启动，监听端口: " + port);
+            ChannelFuture future = NettyTransport.bind(bootstrap, port).sync();
+            LOGGER.info("RPC服务器已启动，监听端口: {}，传输: {}，接收通道数: {}",
+                    port, NettyTransport.name(), NettyTransport.getAcceptors());
 
             // 等待服务器关闭
             future.channel().closeFuture().sync();
         } catch (Exception e) {
-            e.printStackTrace();
+            LOGGER.error("RPC服务器运行异常，端口: {}", port, e);
         } finally {
             shutdown();
         }
@@ -112,7 +196,17 @@ public class NettyServer {
         if (workerGroup != null) {
             workerGroup.shutdownGracefully();
         }
-        System.out.println("RPC服务器已关闭");
+        dispatcher.shutdown();
+        LOGGER.info("RPC服务器已关闭");
+    }
+
+    /**
+     * 获取进行中的请求数
+     *
+     * @return 请求数
+     */
+    public long getInFlightRequests() {
+        return inFlightRequests.sum();
     }
 
     /**
@@ -0,0 +1,156 @@
+package com.wangguangwu.netty.dubborpc.transport.server;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.RejectedExecutionHandlers;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求分发器
+ * 根据分发模式为每个请求选择执行线程，所有业务线程池都使用有界队列，
+ * 队列满时抛出 {@link java.util.concurrent.RejectedExecutionException}，由调用方返回"服务端过载"响应。
+ *
+ * @author wangguangwu
+ */
+public class RequestDispatcher {
+
+    /**
+     * 通道属性：连接绑定的有序执行器
+     */
+    private static final AttributeKey<EventExecutor> CONNECTION_EXECUTOR =
+            AttributeKey.valueOf("rpc.connectionExecutor");
+
+    /**
+     * 默认业务线程数
+     */
+    private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * 默认队列容量
+     */
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * 分发模式
+     */
+    @Getter
+    private final DispatchMode mode;
+
+    /**
+     * 每个线程池的线程数
+     */
+    private final int threads;
+
+    /**
+     * 每个线程池（或每个有序执行器）的队列容量
+     */
+    private final int queueCapacity;
+
+    /**
+     * 共享业务线程池，SHARED_POOL 模式使用
+     */
+    private final ThreadPoolExecutor sharedPool;
+
+    /**
+     * 接口名称 -> 业务线程池，PER_SERVICE_POOL 模式使用
+     */
+    private final Map<String, ThreadPoolExecutor> servicePools = new ConcurrentHashMap<>();
+
+    /**
+     * 有序执行器组，PER_CONNECTION 模式使用
+     */
+    private final DefaultEventExecutorGroup connectionExecutors;
+
+    /**
+     * 构造函数
+     *
+     * @param mode          分发模式
+     * @param threads       每个线程池的线程数
+     * @param queueCapacity 每个线程池的队列容量
+     */
+    public RequestDispatcher(DispatchMode mode, int threads, int queueCapacity) {
+        if (threads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("线程数和队列容量必须大于0");
+        }
+        this.mode = mode;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.sharedPool = mode == DispatchMode.SHARED_POOL ? newPool("rpc-biz") : null;
+        // 有序执行器的队列容量由Netty限定，最小为16
+        this.connectionExecutors = mode == DispatchMode.PER_CONNECTION
+                ? new DefaultEventExecutorGroup(threads, new DefaultThreadFactory("rpc-conn"),
+                queueCapacity, RejectedExecutionHandlers.reject())
+                : null;
+    }
+
+    /**
+     * 创建默认分发器：共享业务线程池，线程数为CPU核数的2倍，队列容量1024
+     *
+     * @return 请求分发器
+     */
+    public static RequestDispatcher createDefault() {
+        return new RequestDispatcher(DispatchMode.SHARED_POOL, DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * 为请求选择执行器
+     *
+     * @param channel       请求所在的连接
+     * @param interfaceName 请求的服务接口名称
+     * @return 执行器，INLINE 模式返回null，表示直接在当前线程执行
+     */
+    public Executor select(Channel channel, String interfaceName) {
+        return switch (mode) {
+            case INLINE -> null;
+            case SHARED_POOL -> sharedPool;
+            case PER_SERVICE_POOL -> servicePools.computeIfAbsent(
+                    interfaceName == null ? "" : interfaceName, name -> newPool("rpc-biz-" + simpleName(name)));
+            case PER_CONNECTION -> connectionExecutor(channel);
+        };
+    }
+
+    /**
+     * 关闭所有业务线程池
+     */
+    public void shutdown() {
+        if (sharedPool != null) {
+            sharedPool.shutdown();
+        }
+        servicePools.values().forEach(ThreadPoolExecutor::shutdown);
+        if (connectionExecutors != null) {
+            connectionExecutors.shutdownGracefully();
+        }
+    }
+
+    private EventExecutor connectionExecutor(Channel channel) {
+        EventExecutor executor = channel.attr(CONNECTION_EXECUTOR).get();
+        if (executor == null) {
+            executor = connectionExecutors.next();
+            EventExecutor existing = channel.attr(CONNECTION_EXECUTOR).setIfAbsent(executor);
+            if (existing != null) {
+                executor = existing;
+            }
+        }
+        return executor;
+    }
+
+    private ThreadPoolExecutor newPool(String name) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new DefaultThreadFactory(name),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static String simpleName(String interfaceName) {
+        return interfaceName.substring(interfaceName.lastIndexOf('.') + 1);
+    }
+}
@@ -1,88 +1,441 @@
 package com.wangguangwu.netty.dubborpc.transport.server;
 
+import com.wangguangwu.netty.dubborpc.cache.CacheKey;
+import com.wangguangwu.netty.dubborpc.cache.ResultCache;
+import com.wangguangwu.netty.dubborpc.limit.AdmissionController;
+import com.wangguangwu.netty.dubborpc.limit.AdmissionController.Permit;
+import com.wangguangwu.netty.dubborpc.metrics.MethodMetrics;
+import com.wangguangwu.netty.dubborpc.metrics.RpcMetrics;
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
 import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
 import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import com.wangguangwu.netty.dubborpc.protocol.StreamCredit;
+import com.wangguangwu.netty.dubborpc.registry.MethodInvoker;
+import com.wangguangwu.netty.dubborpc.registry.ServiceDescriptor;
 import com.wangguangwu.netty.dubborpc.registry.ServiceRegistry;
+import com.wangguangwu.netty.dubborpc.transport.FlushCoalescingHandler;
+import com.wangguangwu.netty.dubborpc.util.LogRateLimiter;
+import com.wangguangwu.netty.dubborpc.util.LogSampler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.internal.logging.InternalLogLevel;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
-import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * RPC服务端处理器
  * 处理客户端发送的RPC请求并返回响应
+ * <p>
+ * 每个响应都以 writeAndFlush 写出，由 pipeline 前端的 {@link FlushCoalescingHandler} 把同一次读取或同一事件循环周期内的
+ * flush 合并为一次系统调用，无论请求在EventLoop上就地完成还是在业务线程中完成；
+ * 每个请求独立处理，单个请求调用或响应编码失败只影响它自己的响应。
+ * <p>
+ * 请求在分发到业务线程之前先经过 {@link AdmissionController} 的并发限制检查，超过限制的请求立即返回"限流"响应。
+ * 幂等方法在此之前先查 {@link ResultCache}，命中时直接写出缓存的响应体。
+ * <p>
+ * 流式方法（返回 {@link java.util.concurrent.Flow.Publisher} 或 {@link java.util.Iterator}）的结果由 {@link ServerStream}
+ * 按客户端授予的信用逐个元素写出，信用帧按请求ID路由到本连接上对应的流。
+ * <p>
+ * 每个请求的调用次数、结果、收发字节数和从收到请求到写出响应的延迟记入 {@link RpcMetrics} 的服务端指标，
+ * 未注册的服务和方法统一记在 {@link RpcMetrics#UNKNOWN} 名下。
  *
  * @author wangguangwu
  */
 public class RpcServerHandler extends SimpleChannelInboundHandler<RpcRequest> {
 
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(RpcServerHandler.class);
+
+    /**
+     * 逐条消息日志的采样器
+     */
+    private static final LogSampler SAMPLER = new LogSampler(LOGGER);
+
+    /**
+     * WARN 日志的限流器，异常按时间限流而不是随机采样
+     */
+    private static final LogRateLimiter WARN_LIMITER = new LogRateLimiter(LOGGER);
+
     /**
      * 服务注册表
      */
     private final ServiceRegistry serviceRegistry;
 
+    /**
+     * 请求分发器
+     */
+    private final RequestDispatcher dispatcher;
+
+    /**
+     * 服务端进行中的请求数，同一服务端的所有连接共享
+     */
+    private final LongAdder inFlightRequests;
+
+    /**
+     * 准入控制，同一服务端的所有连接共享
+     */
+    private final AdmissionController admissionController;
+
+    /**
+     * 幂等方法的结果缓存，为null时不缓存
+     */
+    private final ResultCache resultCache;
+
+    /**
+     * 本连接上进行中的流式调用：请求ID -> 流
+     */
+    private final Map<Long, ServerStream> streams = new ConcurrentHashMap<>();
+
+    /**
+     * 服务端调用指标
+     */
+    private final RpcMetrics metrics = RpcMetrics.getSERVER();
+
     /**
      * 构造函数
      *
      * @param serviceRegistry 服务注册表
      */
     public RpcServerHandler(ServiceRegistry serviceRegistry) {
+        this(serviceRegistry, new RequestDispatcher(DispatchMode.INLINE, 1, 1));
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param serviceRegistry 服务注册表
+     * @param dispatcher      请求分发器
+     */
+    public RpcServerHandler(ServiceRegistry serviceRegistry, RequestDispatcher dispatcher) {
+        this(serviceRegistry, dispatcher, new LongAdder());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param serviceRegistry  服务注册表
+     * @param dispatcher       请求分发器
+     * @param inFlightRequests 服务端进行中的请求数，收到请求时加一，写出响应时减一
+     */
+    public RpcServerHandler(ServiceRegistry serviceRegistry, RequestDispatcher dispatcher, LongAdder inFlightRequests) {
+        this(serviceRegistry, dispatcher, inFlightRequests, new AdmissionController(), null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param serviceRegistry     服务注册表
+     * @param dispatcher          请求分发器
+     * @param inFlightRequests    服务端进行中的请求数，收到请求时加一，写出响应时减一
+     * @param admissionController 准入控制
+     * @param resultCache         幂等方法的结果缓存，为null时不缓存
+     */
+    public RpcServerHandler(ServiceRegistry serviceRegistry, RequestDispatcher dispatcher, LongAdder inFlightRequests,
+                            AdmissionController admissionController, ResultCache resultCache) {
         this.serviceRegistry = serviceRegistry;
+        this.dispatcher = dispatcher;
+        this.inFlightRequests = inFlightRequests;
+        this.admissionController = admissionController;
+        this.resultCache = resultCache;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        // 信用帧交给对应的流，流已结束时忽略
+        if (msg instanceof StreamCredit credit) {
+            ServerStream stream = streams.get(credit.getRequestId());
+            if (stream != null) {
+                stream.addCredits(credit.getCredits());
+            }
+            return;
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // 连接断开，取消本连接上所有进行中的流
+        for (ServerStream stream : streams.values()) {
+            stream.cancel();
+        }
+        super.channelInactive(ctx);
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, RpcRequest request) throws Exception {
-        // 创建响应对象
-        RpcResponse response = new RpcResponse();
-        response.setRequestId(request.getRequestId());
+        inFlightRequests.increment();
+        request.setStartNanos(System.nanoTime());
+
+        // 未注册的服务直接在当前线程返回错误，不占用业务线程池
+        ServiceDescriptor descriptor = serviceRegistry.getServiceDescriptor(request.getInterfaceName());
+        if (descriptor == null) {
+            attachMetrics(request, null);
+            process(ctx, request, null, null, null, null);
+            return;
+        }
+        MethodInvoker invoker = descriptor.findInvoker(
+                request.getMethodId(), request.getMethodName(), request.getParameterTypes());
+        attachMetrics(request, invoker);
+
+        // 幂等方法先查结果缓存，命中时直接写出编码好的响应体，不执行方法、不占用并发许可，也不再序列化
+        CacheKey cacheKey = cacheKeyFor(invoker, request);
+        if (cacheKey != null) {
+            byte[] body = resultCache.get(cacheKey);
+            if (body != null) {
+                RpcResponse response = newResponse(request);
+                response.setEncodedBody(body);
+                writeResponse(ctx, request, response);
+                return;
+            }
+        }
+
+        // 超过并发限制时立即拒绝，调用方可以马上改投其他提供者，而不是在这里排队
+        Permit permit = admissionController.tryAcquire(request.getInterfaceName(), request.getMethodName());
+        if (permit == null) {
+            RpcResponse response = newResponse(request);
+            response.setStatus(RpcProtocol.STATUS_LIMITED);
+            response.setErrorMessage("服务端限流，请求被拒绝: "
+                    + request.getInterfaceName() + "." + request.getMethodName());
+            writeResponse(ctx, request, response);
+            return;
+        }
+
+        // 选择执行器，INLINE 模式直接在EventLoop上执行
+        Executor executor = dispatcher.select(ctx.channel(), request.getInterfaceName());
+
+        // 流式方法先登记流，之后到达的信用帧才能找到它；迭代器在同一个执行器上拉取
+        ServerStream stream = null;
+        if (invoker != null && invoker.isStreaming()) {
+            stream = new ServerStream(ctx, request, executor != null ? executor : ctx.executor(),
+                    inFlightRequests, streams);
+            streams.put(request.getRequestId(), stream);
+        }
+
+        if (executor == null) {
+            process(ctx, request, invoker, permit, cacheKey, stream);
+            return;
+        }
 
+        ServerStream pending = stream;
         try {
-            // 处理请求并设置响应结果
-            Object result = handleRequest(request);
+            executor.execute(() -> process(ctx, request, invoker, permit, cacheKey, pending));
+        } catch (RejectedExecutionException e) {
+            permit.drop();
+            if (stream != null) {
+                streams.remove(request.getRequestId(), stream);
+            }
+            // 队列已满，立即返回过载响应，避免队列无限增长
+            RpcResponse response = newResponse(request);
+            response.setStatus(RpcProtocol.STATUS_OVERLOADED);
+            response.setErrorMessage("服务端过载，请求被拒绝: " + request.getInterfaceName());
+            writeResponse(ctx, request, response);
+        }
+    }
+
+    /**
+     * 为请求关联方法指标并记录收到的字节数，未找到调用器的请求记在 {@link RpcMetrics#UNKNOWN} 名下
+     */
+    private void attachMetrics(RpcRequest request, MethodInvoker invoker) {
+        MethodMetrics methodMetrics = invoker != null
+                ? metrics.forMethod(request.getInterfaceName(), request.getMethodName())
+                : metrics.forMethod(RpcMetrics.UNKNOWN, RpcMetrics.UNKNOWN);
+        methodMetrics.addBytesIn(request.getFrameLength());
+        request.setMetrics(methodMetrics);
+    }
+
+    /**
+     * 为幂等方法的请求创建结果缓存键
+     *
+     * @return 缓存键，不需要缓存时返回null
+     */
+    private CacheKey cacheKeyFor(MethodInvoker invoker, RpcRequest request) {
+        if (resultCache == null || invoker == null || !invoker.isIdempotent()) {
+            return null;
+        }
+        return resultCache.keyFor(invoker, request);
+    }
+
+    /**
+     * 执行请求并发送响应
+     *
+     * @param ctx      通道上下文
+     * @param request  RPC请求对象
+     * @param invoker  收到请求时解析好的方法调用器，未找到时为null
+     * @param permit   准入许可，未经准入控制的请求为null
+     * @param cacheKey 结果缓存键，不缓存时为null
+     * @param stream   流式方法的流，普通方法为null
+     */
+    private void process(ChannelHandlerContext ctx, RpcRequest request, MethodInvoker invoker, Permit permit,
+                         CacheKey cacheKey, ServerStream stream) {
+        Object result;
+        try {
+            // 处理请求
+            result = handleRequest(request, invoker);
+        } catch (Throwable e) {
+            if (stream != null) {
+                releaseStreamPermit(permit);
+                stream.fail(e);
+                return;
+            }
+            sendResponse(ctx, request, permit, cacheKey, null, e);
+            return;
+        }
+
+        // 流式方法返回数据源后即释放许可，元素由流按客户端的信用发送
+        if (stream != null) {
+            releaseStreamPermit(permit);
+            stream.start(result);
+            return;
+        }
+
+        // 异步服务方法在结果完成后再发送响应，不占用当前线程
+        if (result instanceof CompletionStage<?> stage) {
+            stage.whenComplete((value, cause) -> sendResponse(ctx, request, permit, cacheKey, value, unwrap(cause)));
+            return;
+        }
+        sendResponse(ctx, request, permit, cacheKey, result, null);
+    }
+
+    /**
+     * 释放流式调用的准入许可，许可只覆盖方法本身的执行，不包含流的持续时间
+     */
+    private static void releaseStreamPermit(Permit permit) {
+        if (permit != null) {
+            permit.release();
+        }
+    }
+
+    /**
+     * 封装并发送响应
+     *
+     * @param ctx      通道上下文
+     * @param request  RPC请求对象
+     * @param permit   准入许可，未经准入控制的请求为null
+     * @param cacheKey 结果缓存键，不缓存时为null
+     * @param result   调用结果
+     * @param cause    调用异常，调用成功时为null
+     */
+    private void sendResponse(ChannelHandlerContext ctx, RpcRequest request, Permit permit, CacheKey cacheKey,
+                              Object result, Throwable cause) {
+        // 执行结束即释放许可，耗时包含排队和执行时间
+        if (permit != null) {
+            permit.release();
+        }
+
+        // 创建响应对象
+        RpcResponse response = newResponse(request);
+        if (cause == null) {
             response.setResult(result);
-        } catch (Exception e) {
-            response.setErrorMessage(e.getMessage());
-            e.printStackTrace();
+            // 成功结果编码一次放入缓存，编码结果同时用于本次响应，不会序列化两次
+            if (cacheKey != null) {
+                response.setEncodedBody(resultCache.put(cacheKey, response));
+            }
+        } else {
+            response.setStatus(RpcProtocol.STATUS_ERROR);
+            response.setErrorMessage(cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName());
+            // 每个方法每秒记录前若干条
+            if (WARN_LIMITER.tryAcquire(InternalLogLevel.WARN, request.getMetrics())) {
+                LOGGER.warn("RPC服务调用异常: {}.{}", request.getInterfaceName(), request.getMethodName(), cause);
+            }
         }
 
         // 发送响应
-        ctx.writeAndFlush(response);
-        System.out.println("RPC服务端已发送响应: " + response);
+        writeResponse(ctx, request, response);
+        if (SAMPLER.isSampled(InternalLogLevel.DEBUG)) {
+            LOGGER.debug("RPC服务端已发送响应: requestId={}, status={}", response.getRequestId(), response.getStatus());
+        }
+    }
+
+    /**
+     * 写出响应，flush 由 {@link FlushCoalescingHandler} 合并
+     *
+     * @param ctx      通道上下文
+     * @param request  RPC请求对象
+     * @param response RPC响应
+     */
+    private void writeResponse(ChannelHandlerContext ctx, RpcRequest request, RpcResponse response) {
+        inFlightRequests.decrement();
+        request.getMetrics().record(System.nanoTime() - request.getStartNanos(), response, null);
+        ctx.writeAndFlush(response).addListener(f -> {
+            if (!f.isSuccess()) {
+                handleWriteFailure(ctx, response, f.cause());
+            }
+        });
+    }
+
+    /**
+     * 响应写出失败时的处理
+     * 调用结果无法编码时改为返回错误响应，避免客户端一直等到超时；连接已断开或错误响应本身写出失败时不再重试
+     */
+    private void handleWriteFailure(ChannelHandlerContext ctx, RpcResponse response, Throwable cause) {
+        LOGGER.warn("RPC服务端响应写出失败: {}", response.getRequestId(), cause);
+        if (!ctx.channel().isActive() || response.getStatus() != RpcProtocol.STATUS_OK) {
+            return;
+        }
+        RpcResponse errorResponse = new RpcResponse();
+        errorResponse.setRequestId(response.getRequestId());
+        errorResponse.setSerializerId(response.getSerializerId());
+        errorResponse.setStatus(RpcProtocol.STATUS_ERROR);
+        errorResponse.setMetrics(response.getMetrics());
+        errorResponse.setErrorMessage("响应编码失败: " + cause.getMessage());
+        ctx.writeAndFlush(errorResponse);
+    }
+
+    /**
+     * 取出 CompletionException 包装的原始异常
+     */
+    private static Throwable unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            return cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * 创建与请求对应的响应对象
+     */
+    private RpcResponse newResponse(RpcRequest request) {
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(request.getRequestId());
+        // 按客户端使用的序列化方式回写
+        response.setSerializerId(request.getSerializerId());
+        response.setMetrics(request.getMetrics());
+        return response;
     }
 
     /**
      * 处理RPC请求
      *
      * @param request RPC请求对象
+     * @param invoker 收到请求时解析好的方法调用器，未找到时为null
      * @return 方法调用结果
-     * @throws Exception 处理过程中的异常
+     * @throws Throwable 处理过程中的异常
      */
-    private Object handleRequest(RpcRequest request) throws Exception {
-        // 获取服务实例
+    private Object handleRequest(RpcRequest request, MethodInvoker invoker) throws Throwable {
+        if (invoker != null) {
+            return invoker.invoke(request.getParameters());
+        }
+        // 只在出错时区分服务不存在和方法不存在
         String interfaceName = request.getInterfaceName();
-        Object serviceInstance = serviceRegistry.getService(interfaceName);
-
-        if (serviceInstance == null) {
+        if (serviceRegistry.getServiceDescriptor(interfaceName) == null) {
             throw new RuntimeException("找不到服务实现: " + interfaceName);
         }
-
-        // 获取方法参数类型和参数值
-        Class<?>[] parameterTypes = request.getParameterTypes();
-        Object[] parameters = request.getParameters();
-
-        // 获取服务实例的类对象
-        Class<?> serviceClass = serviceInstance.getClass();
-
-        // 查找并调用方法
-        Method method = serviceClass.getMethod(request.getMethodName(), parameterTypes);
-        method.setAccessible(true);
-        return method.invoke(serviceInstance, parameters);
+        throw new NoSuchMethodException(interfaceName + "." + request.getMethodName());
     }
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-        System.err.println("RPC服务端异常: " + cause.getMessage());
-        cause.printStackTrace();
+        LOGGER.warn("RPC服务端异常，关闭连接: {}", ctx.channel().remoteAddress(), cause);
         ctx.close();
     }
 }
@@ -0,0 +1,381 @@
+package com.wangguangwu.netty.dubborpc.transport.server;
+
+import com.wangguangwu.netty.dubborpc.metrics.MethodMetrics;
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 服务端的一次流式调用
+ * 把流式方法返回的数据源按元素写成 {@link RpcProtocol#STATUS_STREAM_ITEM} 帧，最后写出 {@link RpcProtocol#STATUS_STREAM_END} 帧，
+ * 发送的元素数不超过客户端授予的信用：
+ * <ul>
+ *     <li>{@link Flow.Publisher}：客户端的信用直接转成对发布者的 request(n)，由发布者按需产生元素</li>
+ *     <li>{@link Iterator}：在请求所属的执行器上拉取元素，信用用完即停，新的信用到达后继续</li>
+ * </ul>
+ * 元素由产生它的线程写入通道，多个元素合并为一次 flush。
+ * 流结束、客户端取消或连接断开时从所属连接的流表中移除，并减少服务端进行中的请求数；
+ * 整个流记为一次调用，延迟为收到请求到流结束的时长，每个帧的字节数都计入发出字节数。
+ *
+ * @author wangguangwu
+ */
+final class ServerStream {
+
+    /**
+     * 日志记录器
+     */
+    private static final InternalLogger LOGGER = InternalLoggerFactory.getInstance(ServerStream.class);
+
+    /**
+     * 通道上下文
+     */
+    private final ChannelHandlerContext ctx;
+
+    /**
+     * 请求ID
+     */
+    private final long requestId;
+
+    /**
+     * 客户端使用的序列化器ID，元素按同样的方式回写
+     */
+    private final byte serializerId;
+
+    /**
+     * 所属方法的调用指标
+     */
+    private final MethodMetrics metrics;
+
+    /**
+     * 收到请求的时间（纳秒）
+     */
+    private final long startNanos;
+
+    /**
+     * 拉取迭代器使用的执行器
+     */
+    private final Executor executor;
+
+    /**
+     * 服务端进行中的请求数，流结束时减一
+     */
+    private final LongAdder inFlightRequests;
+
+    /**
+     * 所属连接的流表
+     */
+    private final Map<Long, ServerStream> streams;
+
+    /**
+     * 信用：迭代器模式下是还可以发送的元素数，发布者模式下是尚未转交给发布者的需求
+     */
+    private final AtomicLong credits = new AtomicLong();
+
+    /**
+     * 迭代器拉取任务的排队计数，保证同一时刻只有一个线程拉取
+     */
+    private final AtomicInteger drainWip = new AtomicInteger();
+
+    /**
+     * 是否已经安排了 flush
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * 流是否已经结束
+     */
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    /**
+     * 合并 flush 的任务
+     */
+    private final Runnable flushTask = this::flush;
+
+    /**
+     * 元素写出失败时以异常结束流
+     */
+    private final ChannelFutureListener itemWriteListener = future -> {
+        if (!future.isSuccess()) {
+            finish(future.cause());
+        }
+    };
+
+    /**
+     * 迭代器数据源
+     */
+    private volatile Iterator<?> iterator;
+
+    /**
+     * 发布者数据源的订阅
+     */
+    private volatile Flow.Subscription subscription;
+
+    /**
+     * 迭代器是否已关闭，只在拉取线程上访问
+     */
+    private boolean iteratorClosed;
+
+    /**
+     * 构造函数
+     *
+     * @param ctx              通道上下文
+     * @param request          流式调用的请求
+     * @param executor         拉取迭代器使用的执行器
+     * @param inFlightRequests 服务端进行中的请求数
+     * @param streams          所属连接的流表
+     */
+    ServerStream(ChannelHandlerContext ctx, RpcRequest request, Executor executor,
+                 LongAdder inFlightRequests, Map<Long, ServerStream> streams) {
+        this.ctx = ctx;
+        this.requestId = request.getRequestId();
+        this.serializerId = request.getSerializerId();
+        this.metrics = request.getMetrics();
+        this.startNanos = request.getStartNanos();
+        this.executor = executor;
+        this.inFlightRequests = inFlightRequests;
+        this.streams = streams;
+    }
+
+    /**
+     * 开始发送流式方法返回的数据源
+     *
+     * @param source 数据源，{@link Flow.Publisher} 或 {@link Iterator}，为null时视为空流
+     */
+    void start(Object source) {
+        if (source instanceof Flow.Publisher<?> publisher) {
+            publisher.subscribe(new SourceSubscriber());
+        } else if (source instanceof Iterator<?> it) {
+            iterator = it;
+            scheduleDrain();
+        } else if (source == null) {
+            finish(null);
+        } else {
+            finish(new IllegalStateException("流式方法返回了不支持的类型: " + source.getClass().getName()));
+        }
+    }
+
+    /**
+     * 处理客户端授予的信用
+     *
+     * @param n 信用数，小于等于0表示客户端取消了流
+     */
+    void addCredits(int n) {
+        if (n <= 0) {
+            cancel();
+            return;
+        }
+        credits.addAndGet(n);
+        if (iterator != null) {
+            scheduleDrain();
+        } else {
+            requestUpstream();
+        }
+    }
+
+    /**
+     * 以异常结束流，向客户端发送带错误信息的结束帧
+     *
+     * @param cause 异常
+     */
+    void fail(Throwable cause) {
+        finish(cause);
+    }
+
+    /**
+     * 取消流：客户端取消或连接断开，不再发送任何帧
+     */
+    void cancel() {
+        if (terminate()) {
+            metrics.record(System.nanoTime() - startNanos, null, null);
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+
+    /**
+     * 结束流并发送结束帧
+     *
+     * @param cause 异常，正常结束时为null
+     */
+    private void finish(Throwable cause) {
+        if (!terminate()) {
+            return;
+        }
+        Flow.Subscription current = subscription;
+        if (cause != null && current != null) {
+            current.cancel();
+        }
+        RpcResponse end = newFrame(RpcProtocol.STATUS_STREAM_END);
+        if (cause != null) {
+            end.setErrorMessage(cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName());
+        }
+        metrics.record(System.nanoTime() - startNanos, end, null);
+        ctx.write(end);
+        scheduleFlush();
+    }
+
+    /**
+     * 标记流已结束，只有第一次调用返回true
+     */
+    private boolean terminate() {
+        if (!done.compareAndSet(false, true)) {
+            return false;
+        }
+        streams.remove(requestId, this);
+        inFlightRequests.decrement();
+        // 迭代器由拉取线程关闭，避免与正在进行的 hasNext/next 并发
+        if (iterator != null) {
+            scheduleDrain();
+        }
+        return true;
+    }
+
+    /**
+     * 把累积的信用转交给发布者
+     */
+    private void requestUpstream() {
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            long n = credits.getAndSet(0);
+            if (n > 0) {
+                current.request(n);
+            }
+        }
+    }
+
+    /**
+     * 安排一次迭代器拉取，已有拉取在进行时由它继续处理
+     */
+    private void scheduleDrain() {
+        if (drainWip.getAndIncrement() != 0) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            finish(new RejectedExecutionException("服务端过载，流式调用无法继续: " + requestId));
+        }
+    }
+
+    /**
+     * 在信用范围内拉取并写出元素
+     */
+    private void drain() {
+        int missed = 1;
+        do {
+            Iterator<?> source = iterator;
+            while (!done.get() && credits.get() > 0) {
+                Object item;
+                try {
+                    if (!source.hasNext()) {
+                        finish(null);
+                        break;
+                    }
+                    item = source.next();
+                } catch (Throwable e) {
+                    finish(e);
+                    break;
+                }
+                credits.decrementAndGet();
+                writeItem(item);
+            }
+            if (done.get() && !iteratorClosed) {
+                iteratorClosed = true;
+                closeQuietly(source);
+            }
+            missed = drainWip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * 写出一个元素
+     */
+    private void writeItem(Object item) {
+        RpcResponse response = newFrame(RpcProtocol.STATUS_STREAM_ITEM);
+        response.setResult(item);
+        ctx.write(response).addListener(itemWriteListener);
+        scheduleFlush();
+    }
+
+    /**
+     * 在EventLoop上安排一次 flush，期间写入的元素合并写出
+     */
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            ctx.executor().execute(flushTask);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        ctx.flush();
+    }
+
+    private RpcResponse newFrame(byte status) {
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(requestId);
+        response.setSerializerId(serializerId);
+        response.setStatus(status);
+        response.setMetrics(metrics);
+        return response;
+    }
+
+    private static void closeQuietly(Iterator<?> source) {
+        if (source instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                LOGGER.warn("关闭流式数据源失败", e);
+            }
+        }
+    }
+
+    /**
+     * 订阅发布者数据源，把元素写成流帧
+     */
+    private final class SourceSubscriber implements Flow.Subscriber<Object> {
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            if (done.get()) {
+                s.cancel();
+                return;
+            }
+            subscription = s;
+            requestUpstream();
+        }
+
+        @Override
+        public void onNext(Object item) {
+            if (!done.get()) {
+                writeItem(item);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            finish(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            finish(null);
+        }
+    }
+}
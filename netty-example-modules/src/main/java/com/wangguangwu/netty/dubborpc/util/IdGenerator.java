@@ -45,11 +45,34 @@ public class IdGenerator {
     }
 
     /**
-     * 生成默认的唯一ID（当前使用时间戳ID）
+     * 生成默认的唯一ID（当前使用自增ID，与协议头中的64位请求ID对应）
      *
      * @return 唯一ID
      */
-    public static String generateId() {
-        return generateTimestampId();
+    public static long generateId() {
+        return generateSequenceId();
+    }
+
+    /**
+     * 根据方法签名生成方法ID
+     * 客户端和服务端对同一方法计算出相同的ID，服务端据此直接定位调用器
+     *
+     * @param methodName     方法名称
+     * @param parameterTypes 参数类型
+     * @return 方法ID，保证不为0（0表示未携带方法ID）
+     */
+    public static int generateMethodId(String methodName, Class<?>[] parameterTypes) {
+        StringBuilder signature = new StringBuilder(methodName).append('(');
+        if (parameterTypes != null) {
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    signature.append(',');
+                }
+                signature.append(parameterTypes[i].getName());
+            }
+        }
+        signature.append(')');
+        int methodId = signature.toString().hashCode();
+        return methodId == 0 ? 1 : methodId;
     }
 }
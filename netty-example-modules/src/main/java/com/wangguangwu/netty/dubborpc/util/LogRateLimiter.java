@@ -0,0 +1,120 @@
+package com.wangguangwu.netty.dubborpc.util;
+
+import io.netty.util.internal.logging.InternalLogLevel;
+import io.netty.util.internal.logging.InternalLogger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按时间限流的日志记录器
+ * 用于 WARN/ERROR 这类不能随机丢弃的日志：每个键每秒记录前 {@value #MAX_PER_SECOND_PROPERTY} 条，
+ * 同一秒内超出的部分不再记录，下一秒重新计数。与 {@link LogSampler} 不同，异常刚开始出现时的每一条都会被记录，
+ * 只有持续的大量异常才被限流。
+ * <p>
+ * 键应当来自有限的集合（如方法指标对象），不能直接使用对端发来的字符串。
+ *
+ * <pre>{@code
+ * if (LIMITER.tryAcquire(InternalLogLevel.WARN, request.getMetrics())) {
+ *     logger.warn("RPC服务调用异常: {}", request.getMethodName(), cause);
+ * }
+ * }</pre>
+ *
+ * @author wangguangwu
+ */
+public final class LogRateLimiter {
+
+    /**
+     * 每个键每秒最多记录条数的系统属性名
+     */
+    public static final String MAX_PER_SECOND_PROPERTY = "dubborpc.log.maxPerSecond";
+
+    /**
+     * 默认每个键每秒最多记录的条数
+     */
+    private static final int DEFAULT_MAX_PER_SECOND = 10;
+
+    /**
+     * 未指定键时使用的键
+     */
+    private static final Object DEFAULT_KEY = new Object();
+
+    /**
+     * 日志记录器
+     */
+    private final InternalLogger logger;
+
+    /**
+     * 每个键每秒最多记录的条数
+     */
+    private final int maxPerSecond;
+
+    /**
+     * 每个键当前的计数窗口
+     */
+    private final Map<Object, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数，每秒条数取自系统属性
+     *
+     * @param logger 日志记录器
+     */
+    public LogRateLimiter(InternalLogger logger) {
+        this(logger, Integer.getInteger(MAX_PER_SECOND_PROPERTY, DEFAULT_MAX_PER_SECOND));
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param logger       日志记录器
+     * @param maxPerSecond 每个键每秒最多记录的条数，至少为1
+     */
+    public LogRateLimiter(InternalLogger logger, int maxPerSecond) {
+        this.logger = logger;
+        this.maxPerSecond = Math.max(1, maxPerSecond);
+    }
+
+    /**
+     * 判断本条消息是否应当记录，所有消息共用一个计数窗口
+     *
+     * @param level 日志级别
+     * @return 级别已开启且本秒内未超出条数时返回true
+     */
+    public boolean tryAcquire(InternalLogLevel level) {
+        return tryAcquire(level, DEFAULT_KEY);
+    }
+
+    /**
+     * 判断本条消息是否应当记录
+     *
+     * @param level 日志级别
+     * @param key   计数的键，例如方法指标对象，为null时使用默认键
+     * @return 级别已开启且该键本秒内未超出条数时返回true
+     */
+    public boolean tryAcquire(InternalLogLevel level, Object key) {
+        if (!logger.isEnabled(level)) {
+            return false;
+        }
+        Window window = windows.computeIfAbsent(key != null ? key : DEFAULT_KEY, k -> new Window());
+        return window.tryAcquire(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime()), maxPerSecond);
+    }
+
+    /**
+     * 一个键的计数窗口，只在记录日志的路径上加锁
+     */
+    private static final class Window {
+
+        private long second;
+
+        private int count;
+
+        synchronized boolean tryAcquire(long now, int max) {
+            if (now != second) {
+                second = now;
+                count = 0;
+            }
+            return ++count <= max;
+        }
+    }
+}
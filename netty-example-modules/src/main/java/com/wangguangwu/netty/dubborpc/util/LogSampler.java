@@ -0,0 +1,77 @@
+package com.wangguangwu.netty.dubborpc.util;
+
+import io.netty.util.internal.logging.InternalLogLevel;
+import io.netty.util.internal.logging.InternalLogger;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 逐条消息日志的采样器
+ * 每个请求、响应都可能触发的日志先经过采样：对应级别未开启时只做一次级别判断，
+ * 开启时平均每 {@value #SAMPLE_RATE_PROPERTY} 条记录一条，避免日志量随吞吐量线性增长。
+ * 调用方在采样通过后再用占位符格式化日志，未采样的消息不拼接字符串、不调用 toString。
+ *
+ * <pre>{@code
+ * if (SAMPLER.isSampled(InternalLogLevel.DEBUG)) {
+ *     logger.debug("RPC客户端收到响应: {}", requestId);
+ * }
+ * }</pre>
+ *
+ * @author wangguangwu
+ */
+public final class LogSampler {
+
+    /**
+     * 采样率的系统属性名：每N条记录一条，1表示全部记录
+     */
+    public static final String SAMPLE_RATE_PROPERTY = "dubborpc.log.sampleRate";
+
+    /**
+     * 默认采样率
+     */
+    private static final int DEFAULT_SAMPLE_RATE = 100;
+
+    /**
+     * 日志记录器
+     */
+    private final InternalLogger logger;
+
+    /**
+     * 采样率：每N条记录一条
+     */
+    private final int sampleRate;
+
+    /**
+     * 构造函数，采样率取自系统属性
+     *
+     * @param logger 日志记录器
+     */
+    public LogSampler(InternalLogger logger) {
+        this(logger, Integer.getInteger(SAMPLE_RATE_PROPERTY, DEFAULT_SAMPLE_RATE));
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param logger     日志记录器
+     * @param sampleRate 采样率：每N条记录一条，小于等于1时全部记录
+     */
+    public LogSampler(InternalLogger logger, int sampleRate) {
+        this.logger = logger;
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    /**
+     * 判断本条消息是否应当记录
+     * 随机采样，不在线程之间共享计数器
+     *
+     * @param level 日志级别
+     * @return 级别已开启且被采中时返回true
+     */
+    public boolean isSampled(InternalLogLevel level) {
+        if (!logger.isEnabled(level)) {
+            return false;
+        }
+        return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+}
@@ -1,11 +1,10 @@
 package com.wangguangwu.netty.groupchat;
 
 import com.wangguangwu.netty.groupchat.handler.GroupChatClientHandler;
+import com.wangguangwu.netty.transport.NettyTransport;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.string.StringDecoder;
 import io.netty.handler.codec.string.StringEncoder;
 import io.netty.handler.timeout.IdleStateHandler;
@@ -35,7 +34,7 @@ public class GroupChatClient {
      * 第一条消息作为用户名发送，后续消息作为聊天内容。
      */
     public void run() throws Exception {
-        EventLoopGroup group = new NioEventLoopGroup();
+        EventLoopGroup group = NettyTransport.newEventLoopGroup();
         try {
             channel = createChannel(group);
             // 用户名注册流程
@@ -88,9 +87,7 @@ public class GroupChatClient {
      * 包含重连逻辑，确保稳定连接。
      */
     private Channel createChannel(EventLoopGroup group) throws Exception {
-        Bootstrap bootstrap = new Bootstrap()
-                .group(group)
-                .channel(NioSocketChannel.class)
+        Bootstrap bootstrap = NettyTransport.newBootstrap(group)
                 // 连接超时5秒
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
                 // 保持连接
@@ -1,13 +1,13 @@
 package com.wangguangwu.netty.groupchat;
 
 import com.wangguangwu.netty.groupchat.handler.GroupChatServerHandler;
+import com.wangguangwu.netty.transport.NettyTransport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.string.StringDecoder;
 import io.netty.handler.codec.string.StringEncoder;
 import io.netty.handler.timeout.IdleStateHandler;
@@ -40,12 +40,12 @@ public class GroupChatServer {
     /**
      * Boss线程组
      */
-    private NioEventLoopGroup bossGroup;
+    private EventLoopGroup bossGroup;
 
     /**
      * Worker线程组
      */
-    private NioEventLoopGroup workerGroup;
+    private EventLoopGroup workerGroup;
 
     /**
      * 使用默认端口构造服务器
@@ -71,13 +71,12 @@ public class GroupChatServer {
             return;
         }
 
-        bossGroup = new NioEventLoopGroup(1);
-        workerGroup = new NioEventLoopGroup();
+        bossGroup = NettyTransport.newBossGroup();
+        workerGroup = NettyTransport.newEventLoopGroup();
 
         try {
-            ServerBootstrap serverBootstrap = new ServerBootstrap();
-            serverBootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+            ServerBootstrap serverBootstrap = NettyTransport.newServerBootstrap(bossGroup, workerGroup);
+            serverBootstrap
                     // 服务端连接队列大小
                     .option(ChannelOption.SO_BACKLOG, 128)
                     // TCP保活，避免死连接
@@ -100,7 +99,7 @@ public class GroupChatServer {
 
             // 绑定端口并启动
             System.out.println("[INFO] 群聊服务器启动中，端口: " + port);
-            ChannelFuture future = serverBootstrap.bind(port).sync();
+            ChannelFuture future = NettyTransport.bind(serverBootstrap, port).sync();
             running = true;
             System.out.println("[INFO] 群聊服务器启动成功，等待客户端连接...");
 
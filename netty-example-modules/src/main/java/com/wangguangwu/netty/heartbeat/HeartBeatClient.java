@@ -1,11 +1,10 @@
 package com.wangguangwu.netty.heartbeat;
 
 import com.wangguangwu.netty.heartbeat.handler.HeartBeatClientHandler;
+import com.wangguangwu.netty.transport.NettyTransport;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.string.StringDecoder;
 import io.netty.handler.codec.string.StringEncoder;
 import io.netty.handler.timeout.IdleStateHandler;
@@ -39,12 +38,11 @@ public class HeartBeatClient {
      * 启动心跳检测客户端
      */
     public static void main(String[] args) throws Exception {
-        EventLoopGroup group = new NioEventLoopGroup();
+        EventLoopGroup group = NettyTransport.newEventLoopGroup();
         
         try {
-            Bootstrap bootstrap = new Bootstrap();
-            bootstrap.group(group)
-                    .channel(NioSocketChannel.class)
+            Bootstrap bootstrap = NettyTransport.newBootstrap(group);
+            bootstrap
                     .option(ChannelOption.SO_KEEPALIVE, true)
                     .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
                     .handler(new ChannelInitializer<SocketChannel>() {
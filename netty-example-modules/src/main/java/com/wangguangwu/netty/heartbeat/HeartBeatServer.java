@@ -1,11 +1,10 @@
 package com.wangguangwu.netty.heartbeat;
 
 import com.wangguangwu.netty.heartbeat.handler.HeartBeatServerHandler;
+import com.wangguangwu.netty.transport.NettyTransport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.string.StringDecoder;
 import io.netty.handler.codec.string.StringEncoder;
 import io.netty.handler.logging.LogLevel;
@@ -47,14 +46,13 @@ public class HeartBeatServer {
      */
     public static void main(String[] args) throws Exception {
         // 创建两个线程组
-        EventLoopGroup bossGroup = new NioEventLoopGroup(1);
-        EventLoopGroup workerGroup = new NioEventLoopGroup();
+        EventLoopGroup bossGroup = NettyTransport.newBossGroup();
+        EventLoopGroup workerGroup = NettyTransport.newEventLoopGroup();
 
         try {
-            ServerBootstrap serverBootstrap = new ServerBootstrap();
+            ServerBootstrap serverBootstrap = NettyTransport.newServerBootstrap(bossGroup, workerGroup);
 
-            serverBootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+            serverBootstrap
                     // 为 bossGroup 添加日志处理器
                     .handler(new LoggingHandler(LogLevel.INFO))
                     // TCP参数配置
@@ -85,7 +83,7 @@ public class HeartBeatServer {
 
             // 启动服务器
             System.out.println("[INFO] 心跳检测服务器启动中，端口: " + PORT);
-            ChannelFuture channelFuture = serverBootstrap.bind(PORT).sync();
+            ChannelFuture channelFuture = NettyTransport.bind(serverBootstrap, PORT).sync();
             System.out.println("[INFO] 心跳检测服务器启动成功，等待客户端连接...");
 
             // 等待服务器关闭
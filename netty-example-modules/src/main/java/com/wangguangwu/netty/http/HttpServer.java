@@ -1,13 +1,12 @@
 package com.wangguangwu.netty.http;
 
+import com.wangguangwu.netty.transport.NettyTransport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
@@ -34,16 +33,14 @@ public class HttpServer {
      */
     public void start(int port) throws Exception {
         // 创建 Boss 线程组，用于接收客户端连接
-        EventLoopGroup bossGroup = new NioEventLoopGroup(1);
+        EventLoopGroup bossGroup = NettyTransport.newBossGroup();
         // 创建 Worker 线程组，用于处理客户端连接的读写操作
-        EventLoopGroup workerGroup = new NioEventLoopGroup();
+        EventLoopGroup workerGroup = NettyTransport.newEventLoopGroup();
         try {
             // 创建服务端启动对象
-            ServerBootstrap serverBootstrap = new ServerBootstrap();
+            ServerBootstrap serverBootstrap = NettyTransport.newServerBootstrap(bossGroup, workerGroup);
             // 配置服务端参数
-            serverBootstrap.group(bossGroup, workerGroup)
-                    // 指定 Channel 类型为 NioServerSocketChannel
-                    .channel(NioServerSocketChannel.class)
+            serverBootstrap
                     // 设置服务端监听地址和端口
                     .localAddress(new InetSocketAddress(port))
                     // 配置子通道（客户端连接）的处理器
@@ -66,7 +63,7 @@ public class HttpServer {
                     .childOption(ChannelOption.SO_KEEPALIVE, true);
             
             // 绑定端口并启动服务器
-            ChannelFuture channelFuture = serverBootstrap.bind(port).sync();
+            ChannelFuture channelFuture = NettyTransport.bind(serverBootstrap, port).sync();
             System.out.println("HTTP 服务器已启动，监听端口: " + port);
             
             // 等待服务器关闭
@@ -1,11 +1,10 @@
 package com.wangguangwu.netty.protocoltcp;
 
 import com.wangguangwu.netty.protocoltcp.initializer.ClientInitializer;
+import com.wangguangwu.netty.transport.NettyTransport;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 
 /**
  * 自定义协议 TCP 客户端
@@ -27,15 +26,13 @@ public class ProtocolClient {
 
     public static void main(String[] args) throws Exception {
         // 创建事件循环组
-        EventLoopGroup group = new NioEventLoopGroup();
+        EventLoopGroup group = NettyTransport.newEventLoopGroup();
 
         try {
             // 创建客户端启动对象
-            Bootstrap bootstrap = new Bootstrap();
+            Bootstrap bootstrap = NettyTransport.newBootstrap(group);
             // 配置客户端
-            bootstrap.group(group)
-                    // 设置客户端通道的实现类
-                    .channel(NioSocketChannel.class)
+            bootstrap
                     // 添加处理器
                     .handler(new ClientInitializer());
 
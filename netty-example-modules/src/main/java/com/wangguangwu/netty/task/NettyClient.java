@@ -1,13 +1,12 @@
 package com.wangguangwu.netty.task;
 
 import com.wangguangwu.netty.task.handler.NettyClientHandler;
+import com.wangguangwu.netty.transport.NettyTransport;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 
 /**
  * Netty 客户端启动类，负责连接服务器并处理事件
@@ -24,16 +23,14 @@ public class NettyClient {
      */
     public static void main(String[] args) throws Exception {
         // 创建客户端事件循环组
-        EventLoopGroup group = new NioEventLoopGroup();
+        EventLoopGroup group = NettyTransport.newEventLoopGroup();
         try {
             // 创建客户端启动对象
-            Bootstrap bootstrap = new Bootstrap();
+            Bootstrap bootstrap = NettyTransport.newBootstrap(group);
 
             // 设置相关参数
-            // 设置线程组
-            bootstrap.group(group)
-                    // 设置客户端通道的实现类(反射)
-                    .channel(NioSocketChannel.class)
+            // 线程组和通道类型已由 NettyTransport 设置（epoll 可用时使用 epoll，否则使用 NIO）
+            bootstrap
                     // 设置自定义通道初始化器
                     .handler(new ChannelInitializer<SocketChannel>() {
                         @Override
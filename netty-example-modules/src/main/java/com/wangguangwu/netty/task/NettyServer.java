@@ -1,11 +1,10 @@
 package com.wangguangwu.netty.task;
 
 import com.wangguangwu.netty.task.handler.NettyTaskServerHandler;
+import com.wangguangwu.netty.transport.NettyTransport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 
 /**
  * Netty 服务端启动类，负责监听端口并处理客户端连接（Task项目专用）
@@ -22,18 +21,16 @@ public class NettyServer {
      */
     public static void main(String[] args) throws Exception {
         // 创建 bossGroup 线程组，只处理连接请求
-        EventLoopGroup bossGroup = new NioEventLoopGroup(1);
+        EventLoopGroup bossGroup = NettyTransport.newBossGroup();
         // 创建 workerGroup 线程组，处理与客户端的数据读写
-        EventLoopGroup workerGroup = new NioEventLoopGroup();
+        EventLoopGroup workerGroup = NettyTransport.newEventLoopGroup();
         try {
             // 创建服务器端的启动对象
-            ServerBootstrap bootstrap = new ServerBootstrap();
+            ServerBootstrap bootstrap = NettyTransport.newServerBootstrap(bossGroup, workerGroup);
 
             // 设置相关参数
-            // 设置 bossGroup 和 workerGroup 线程组
-            bootstrap.group(bossGroup, workerGroup)
-                    // 设置通道类型为 NioServerSocketChannel
-                    .channel(NioServerSocketChannel.class)
+            // 线程组和通道类型已由 NettyTransport 设置（epoll 可用时使用 epoll，否则使用 NIO）
+            bootstrap
                     // 设置线程队列获取连接的个数
                     .option(ChannelOption.SO_BACKLOG, 128)
                     // 设置保持活动连接状态
@@ -51,7 +48,7 @@ public class NettyServer {
 
             // 绑定端口并同步，生成 ChannelFuture
             // 绑定端口，启动服务器
-            ChannelFuture cf = bootstrap.bind(8080).sync();
+            ChannelFuture cf = NettyTransport.bind(bootstrap, 8080).sync();
 
             // 给 ChannelFuture 注册监听器，监控关心的事件
             // 注册监听器，监听端口绑定结果
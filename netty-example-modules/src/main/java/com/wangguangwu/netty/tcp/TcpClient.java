@@ -1,10 +1,10 @@
 package com.wangguangwu.netty.tcp;
 
 import com.wangguangwu.netty.tcp.initializer.TcpClientInitializer;
+import com.wangguangwu.netty.transport.NettyTransport;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelFuture;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.EventLoopGroup;
 
 /**
  * TCP 客户端
@@ -26,15 +26,13 @@ public class TcpClient {
 
     public static void main(String[] args) throws InterruptedException {
         // 创建事件循环组
-        NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup();
+        EventLoopGroup eventLoopGroup = NettyTransport.newEventLoopGroup();
 
         try {
             // 创建客户端启动对象
-            Bootstrap bootstrap = new Bootstrap();
+            Bootstrap bootstrap = NettyTransport.newBootstrap(eventLoopGroup);
             // 配置客户端
-            bootstrap.group(eventLoopGroup)
-                    // 设置客户端通道的实现类
-                    .channel(NioSocketChannel.class)
+            bootstrap
                     // 添加处理器
                     .handler(new TcpClientInitializer());
 
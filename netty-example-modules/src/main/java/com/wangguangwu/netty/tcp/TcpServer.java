@@ -1,11 +1,10 @@
 package com.wangguangwu.netty.tcp;
 
 import com.wangguangwu.netty.tcp.initializer.TcpServerInitializer;
+import com.wangguangwu.netty.transport.NettyTransport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 
 /**
  * TCP 服务器
@@ -22,23 +21,21 @@ public class TcpServer {
 
     public static void main(String[] args) throws InterruptedException {
         // 创建 boss 线程组，用于接收客户端连接
-        EventLoopGroup bossGroup = new NioEventLoopGroup(1);
+        EventLoopGroup bossGroup = NettyTransport.newBossGroup();
         // 创建 worker 线程组，用于处理客户端业务
-        EventLoopGroup workerGroup = new NioEventLoopGroup();
+        EventLoopGroup workerGroup = NettyTransport.newEventLoopGroup();
 
         try {
             // 创建服务器启动对象
-            ServerBootstrap serverBootstrap = new ServerBootstrap();
+            ServerBootstrap serverBootstrap = NettyTransport.newServerBootstrap(bossGroup, workerGroup);
             // 配置服务器
-            serverBootstrap.group(bossGroup, workerGroup)
-                    // 使用 NioServerSocketChannel 作为服务器的通道实现
-                    .channel(NioServerSocketChannel.class)
+            serverBootstrap
                     // 添加处理器
                     .childHandler(new TcpServerInitializer());
 
             System.out.println("TCP 服务器启动中...");
             // 绑定端口并启动服务器
-            ChannelFuture channelFuture = serverBootstrap.bind(PORT).sync();
+            ChannelFuture channelFuture = NettyTransport.bind(serverBootstrap, PORT).sync();
             System.out.println("TCP 服务器启动成功，监听端口: " + PORT);
             
             // 等待服务器关闭
@@ -0,0 +1,277 @@
+package com.wangguangwu.netty.transport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketAddress;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 传输层工厂
+ * 项目中所有 Netty 服务端和客户端都通过这里创建事件循环组、选择通道类型：
+ * Linux 上 epoll 原生库可用时使用 epoll 传输，否则回退到 NIO。
+ * 同一进程内只选择一次，保证事件循环组和通道类型始终匹配。
+ * <p>
+ * 使用 epoll 时额外开启：
+ * <ul>
+ *     <li>SO_REUSEPORT：需要通过 {@value #ACCEPTORS_PROPERTY} 显式开启，服务端在同一端口上绑定多个接收通道，
+ *     分布在 boss 线程组的不同线程上，由内核在它们之间分配新连接。默认只有一个接收通道、不开启 SO_REUSEPORT，
+ *     端口被占用时照常绑定失败</li>
+ *     <li>边缘触发：服务端、客户端通道都显式设置 {@link EpollMode#EDGE_TRIGGERED}</li>
+ *     <li>TCP_FASTOPEN：服务端队列长度由 {@value #TCP_FASTOPEN_PROPERTY} 指定（默认256，0表示关闭），
+ *     客户端同时开启 TCP_FASTOPEN_CONNECT</li>
+ * </ul>
+ * 内核不支持的选项在设置时只打印警告，不影响启动。设置 {@code -Dnetty.transport.native=false} 可强制使用 NIO。
+ *
+ * @author wangguangwu
+ */
+public final class NettyTransport {
+
+    /**
+     * 是否允许使用原生传输的系统属性名，设为 false 时强制使用 NIO
+     */
+    public static final String NATIVE_PROPERTY = "netty.transport.native";
+
+    /**
+     * 服务端接收通道数的系统属性名，只在 epoll 下生效
+     */
+    public static final String ACCEPTORS_PROPERTY = "netty.transport.acceptors";
+
+    /**
+     * TCP Fast Open 队列长度的系统属性名，0表示关闭，只在 epoll 下生效
+     */
+    public static final String TCP_FASTOPEN_PROPERTY = "netty.transport.tcpFastOpen";
+
+    /**
+     * 默认的 TCP Fast Open 队列长度
+     */
+    private static final int DEFAULT_TCP_FASTOPEN = 256;
+
+    /**
+     * 是否使用 epoll 传输
+     */
+    private static final boolean EPOLL = !"false".equalsIgnoreCase(System.getProperty(NATIVE_PROPERTY))
+            && Epoll.isAvailable();
+
+    /**
+     * 服务端接收通道数，默认为1，NIO 下固定为1
+     */
+    private static final int ACCEPTORS = EPOLL ? Math.max(1, Integer.getInteger(ACCEPTORS_PROPERTY, 1)) : 1;
+
+    /**
+     * TCP Fast Open 队列长度
+     */
+    private static final int TCP_FASTOPEN = Math.max(0, Integer.getInteger(TCP_FASTOPEN_PROPERTY, DEFAULT_TCP_FASTOPEN));
+
+    private NettyTransport() {
+        // 私有构造函数，防止实例化
+    }
+
+    /**
+     * 判断是否使用 epoll 传输
+     *
+     * @return 使用 epoll 时返回true
+     */
+    public static boolean isEpoll() {
+        return EPOLL;
+    }
+
+    /**
+     * 获取传输名称，用于日志
+     *
+     * @return epoll 或 nio
+     */
+    public static String name() {
+        return EPOLL ? "epoll" : "nio";
+    }
+
+    /**
+     * 获取服务端接收通道数
+     *
+     * @return 接收通道数，NIO 下为1
+     */
+    public static int getAcceptors() {
+        return ACCEPTORS;
+    }
+
+    /**
+     * 创建 boss 线程组，线程数等于接收通道数
+     *
+     * @return 事件循环组
+     */
+    public static EventLoopGroup newBossGroup() {
+        return newEventLoopGroup(ACCEPTORS);
+    }
+
+    /**
+     * 创建默认线程数（CPU核数的两倍）的事件循环组
+     *
+     * @return 事件循环组
+     */
+    public static EventLoopGroup newEventLoopGroup() {
+        return newEventLoopGroup(0);
+    }
+
+    /**
+     * 创建事件循环组
+     *
+     * @param nThreads 线程数，0表示使用 Netty 默认值（CPU核数的两倍）
+     * @return 事件循环组
+     */
+    public static EventLoopGroup newEventLoopGroup(int nThreads) {
+        return EPOLL ? new EpollEventLoopGroup(nThreads) : new NioEventLoopGroup(nThreads);
+    }
+
+    /**
+     * 使用指定线程工厂创建事件循环组
+     *
+     * @param nThreads      线程数，0表示使用 Netty 默认值（CPU核数的两倍）
+     * @param threadFactory 线程工厂
+     * @return 事件循环组
+     */
+    public static EventLoopGroup newEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+        return EPOLL ? new EpollEventLoopGroup(nThreads, threadFactory) : new NioEventLoopGroup(nThreads, threadFactory);
+    }
+
+    /**
+     * 获取服务端通道类型
+     *
+     * @return 服务端通道类型
+     */
+    public static Class<? extends ServerChannel> serverChannelClass() {
+        return EPOLL ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    /**
+     * 获取客户端通道类型
+     *
+     * @return 客户端通道类型
+     */
+    public static Class<? extends Channel> channelClass() {
+        return EPOLL ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    /**
+     * 创建服务端启动器，已设置线程组、通道类型和 epoll 专有选项
+     *
+     * @param bossGroup   boss 线程组，建议由 {@link #newBossGroup()} 创建
+     * @param workerGroup worker 线程组
+     * @return 服务端启动器
+     */
+    public static ServerBootstrap newServerBootstrap(EventLoopGroup bossGroup, EventLoopGroup workerGroup) {
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(serverChannelClass());
+        if (EPOLL) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED)
+                    .childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+            if (ACCEPTORS > 1) {
+                bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+            }
+            if (TCP_FASTOPEN > 0) {
+                bootstrap.option(EpollChannelOption.TCP_FASTOPEN, TCP_FASTOPEN);
+            }
+        }
+        return bootstrap;
+    }
+
+    /**
+     * 创建客户端启动器，已设置线程组、通道类型和 epoll 专有选项
+     *
+     * @param group 事件循环组，必须由本类创建
+     * @return 客户端启动器
+     */
+    public static Bootstrap newBootstrap(EventLoopGroup group) {
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(channelClass());
+        if (EPOLL) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+            if (TCP_FASTOPEN > 0) {
+                bootstrap.option(EpollChannelOption.TCP_FASTOPEN_CONNECT, true);
+            }
+        }
+        return bootstrap;
+    }
+
+    /**
+     * 绑定端口
+     *
+     * @param bootstrap 服务端启动器，由 {@link #newServerBootstrap} 创建
+     * @param port      端口
+     * @return 主接收通道的绑定结果
+     * @throws InterruptedException 等待绑定时被中断
+     * @see #bind(ServerBootstrap, SocketAddress)
+     */
+    public static ChannelFuture bind(ServerBootstrap bootstrap, int port) throws InterruptedException {
+        return bind(bootstrap, new InetSocketAddress(port));
+    }
+
+    /**
+     * 绑定地址
+     * 只有一个接收通道时等同于 {@link ServerBootstrap#bind(SocketAddress)}；
+     * 开启 SO_REUSEPORT 时先用不带 SO_REUSEPORT 的套接字试绑一次，端口已被其他进程占用时直接失败，
+     * 而不是与对方分摊连接；随后同步绑定主接收通道，再在它实际监听的地址上绑定其余接收通道（端口为0时也落在同一端口），
+     * 主接收通道关闭时其余接收通道随之关闭，因此调用方只需等待返回通道的 closeFuture。
+     * 启动器上通过 {@code handler(...)} 设置的处理器会加到每个接收通道上，必须是 {@code @Sharable} 的。
+     *
+     * @param bootstrap 服务端启动器，由 {@link #newServerBootstrap} 创建
+     * @param address   监听地址
+     * @return 主接收通道的绑定结果
+     * @throws InterruptedException 等待绑定时被中断
+     * @throws ChannelException     开启 SO_REUSEPORT 时端口已被占用
+     */
+    public static ChannelFuture bind(ServerBootstrap bootstrap, SocketAddress address) throws InterruptedException {
+        if (ACCEPTORS == 1) {
+            return bootstrap.bind(address);
+        }
+        probeBind(address);
+        ChannelFuture primary = bootstrap.bind(address).sync();
+        Channel channel = primary.channel();
+        try {
+            for (int i = 1; i < ACCEPTORS; i++) {
+                Channel acceptor = bootstrap.bind(channel.localAddress()).sync().channel();
+                channel.closeFuture().addListener(future -> acceptor.close());
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return primary;
+    }
+
+    /**
+     * 不带 SO_REUSEPORT 试绑地址，检查端口是否已被占用
+     * SO_REUSEPORT 允许同一用户的进程重复绑定同一端口，不试绑的话端口冲突不会报错，而是被内核悄悄分摊连接。
+     *
+     * @param address 监听地址
+     * @throws ChannelException 端口已被占用
+     */
+    private static void probeBind(SocketAddress address) {
+        if (address instanceof InetSocketAddress inet && inet.getPort() == 0) {
+            return;
+        }
+        try (ServerSocket probe = new ServerSocket()) {
+            probe.setReuseAddress(true);
+            probe.bind(address);
+        } catch (IOException e) {
+            throw new ChannelException("地址已被占用: " + address, e);
+        }
+    }
+}
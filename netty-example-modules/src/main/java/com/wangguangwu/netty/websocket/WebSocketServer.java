@@ -1,12 +1,11 @@
 package com.wangguangwu.netty.websocket;
 
+import com.wangguangwu.netty.transport.NettyTransport;
 import com.wangguangwu.netty.websocket.handler.HttpStaticFileHandler;
 import com.wangguangwu.netty.websocket.handler.TextWebSocketFrameHandler;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
 import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
@@ -79,16 +78,15 @@ public class WebSocketServer {
      */
     public static void main(String[] args) throws Exception {
         // 创建两个线程组
-        EventLoopGroup bossGroup = new NioEventLoopGroup(1);
-        EventLoopGroup workerGroup = new NioEventLoopGroup();
+        EventLoopGroup bossGroup = NettyTransport.newBossGroup();
+        EventLoopGroup workerGroup = NettyTransport.newEventLoopGroup();
 
         try {
             // 创建服务器启动对象
-            ServerBootstrap serverBootstrap = new ServerBootstrap();
+            ServerBootstrap serverBootstrap = NettyTransport.newServerBootstrap(bossGroup, workerGroup);
 
             // 配置服务器
-            serverBootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+            serverBootstrap
                     // 为 bossGroup 添加日志处理器
                     .handler(new LoggingHandler(LogLevel.INFO))
                     // 设置TCP参数
@@ -132,7 +130,7 @@ public class WebSocketServer {
 
             // 启动服务器
             System.out.println("[INFO] WebSocket 服务器启动中，端口: " + PORT);
-            ChannelFuture channelFuture = serverBootstrap.bind(PORT).sync();
+            ChannelFuture channelFuture = NettyTransport.bind(serverBootstrap, PORT).sync();
             System.out.println("[INFO] WebSocket 服务器启动成功");
             System.out.println("[INFO] 静态文件根目录: " + WEB_ROOT);
             System.out.println("[INFO] 可通过浏览器访问 http://localhost:" + PORT + "/index.html 来测试");
@@ -0,0 +1,48 @@
+package com.wangguangwu.netty.dubborpc.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FrequencySketch 测试：计数、4位计数器饱和以及达到采样数后的衰减
+ *
+ * @author wangguangwu
+ */
+class FrequencySketchTest {
+
+    @Test
+    void countsIncrements() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        assertEquals(0, sketch.frequency(42));
+        for (int i = 0; i < 5; i++) {
+            sketch.increment(42);
+        }
+        assertEquals(5, sketch.frequency(42));
+        assertEquals(0, sketch.frequency(43));
+    }
+
+    @Test
+    void saturatesAtFifteen() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment(7);
+        }
+        assertEquals(15, sketch.frequency(7));
+    }
+
+    @Test
+    void halvesCountersAfterSampleSize() {
+        // 容量16时每记录160次衰减一次
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment(1);
+        }
+        for (int key = 1000; key < 1160; key++) {
+            sketch.increment(key);
+        }
+        int frequency = sketch.frequency(1);
+        assertTrue(frequency >= 7 && frequency < 15, "衰减后的频率: " + frequency);
+    }
+}
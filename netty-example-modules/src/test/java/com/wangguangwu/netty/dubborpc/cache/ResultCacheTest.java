@@ -0,0 +1,165 @@
+package com.wangguangwu.netty.dubborpc.cache;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import com.wangguangwu.netty.dubborpc.registry.MethodInvoker;
+import com.wangguangwu.netty.dubborpc.registry.ServiceRegistry;
+import com.wangguangwu.netty.dubborpc.serialize.BinarySerializer;
+import com.wangguangwu.netty.dubborpc.serialize.JSONSerializer;
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ResultCache 测试：命中、TTL 过期、容量淘汰以及 TinyLFU 的频率准入
+ *
+ * @author wangguangwu
+ */
+class ResultCacheTest {
+
+    private static final SerializerRegistry SERIALIZERS = SerializerRegistry.getINSTANCE();
+
+    private static MethodInvoker shortLived;
+
+    private static MethodInvoker longLived;
+
+    /**
+     * 测试用的服务接口
+     */
+    public interface LookupService {
+        @Idempotent(ttlMillis = 50)
+        String shortLived(int id);
+
+        @Idempotent(ttlMillis = 0)
+        String longLived(int id);
+    }
+
+    @BeforeAll
+    static void registerService() {
+        ServiceRegistry registry = ServiceRegistry.getINSTANCE();
+        registry.registerService(LookupService.class, new LookupService() {
+            @Override
+            public String shortLived(int id) {
+                return "s" + id;
+            }
+
+            @Override
+            public String longLived(int id) {
+                return "l" + id;
+            }
+        });
+        Class<?>[] types = {int.class};
+        shortLived = registry.getServiceDescriptor(LookupService.class.getName()).findInvoker(0, "shortLived", types);
+        longLived = registry.getServiceDescriptor(LookupService.class.getName()).findInvoker(0, "longLived", types);
+    }
+
+    @Test
+    void keysDependOnArgumentsAndSerializer() {
+        ResultCache cache = new ResultCache(100, ResultCache.EvictionPolicy.LRU, SERIALIZERS);
+        assertEquals(cache.keyFor(longLived, request(1, JSONSerializer.SERIALIZER_ID)),
+                cache.keyFor(longLived, request(1, JSONSerializer.SERIALIZER_ID)));
+        assertNotEquals(cache.keyFor(longLived, request(1, JSONSerializer.SERIALIZER_ID)),
+                cache.keyFor(longLived, request(2, JSONSerializer.SERIALIZER_ID)));
+        assertNotEquals(cache.keyFor(longLived, request(1, JSONSerializer.SERIALIZER_ID)),
+                cache.keyFor(longLived, request(1, BinarySerializer.SERIALIZER_ID)));
+        assertNotEquals(cache.keyFor(longLived, request(1, JSONSerializer.SERIALIZER_ID)),
+                cache.keyFor(shortLived, request(1, JSONSerializer.SERIALIZER_ID)));
+        // 旧版协议的请求没有序列化器ID，不走缓存
+        assertNull(cache.keyFor(longLived, request(1, (byte) 0)));
+    }
+
+    @Test
+    void returnsCachedBodyAndCountsHits() {
+        ResultCache cache = new ResultCache(100, ResultCache.EvictionPolicy.LRU, SERIALIZERS);
+        CacheKey key = cache.keyFor(longLived, request(1, JSONSerializer.SERIALIZER_ID));
+        assertNull(cache.get(key));
+
+        byte[] body = cache.put(key, response("l1"));
+        assertNotNull(body);
+        assertArrayEquals(body, cache.get(key));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() throws InterruptedException {
+        ResultCache cache = new ResultCache(100, ResultCache.EvictionPolicy.LRU, SERIALIZERS);
+        CacheKey shortKey = cache.keyFor(shortLived, request(1, JSONSerializer.SERIALIZER_ID));
+        CacheKey longKey = cache.keyFor(longLived, request(1, JSONSerializer.SERIALIZER_ID));
+        cache.put(shortKey, response("s1"));
+        cache.put(longKey, response("l1"));
+        assertNotNull(cache.get(shortKey));
+
+        Thread.sleep(100);
+        assertNull(cache.get(shortKey));
+        assertNotNull(cache.get(longKey));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void lruEvictsWhenFull() {
+        ResultCache cache = new ResultCache(16, ResultCache.EvictionPolicy.LRU, SERIALIZERS);
+        for (int id = 0; id < 1000; id++) {
+            cache.put(cache.keyFor(longLived, request(id, JSONSerializer.SERIALIZER_ID)), response("l" + id));
+        }
+        assertTrue(cache.size() <= 16);
+        assertEquals(1000 - cache.size(), cache.getEvictions());
+    }
+
+    @Test
+    void tinyLfuKeepsHotEntryDuringScan() {
+        assertTrue(survivesScan(ResultCache.EvictionPolicy.TINY_LFU));
+    }
+
+    @Test
+    void lruLosesHotEntryDuringScan() {
+        assertFalse(survivesScan(ResultCache.EvictionPolicy.LRU));
+    }
+
+    /**
+     * 先多次访问一个热点键，再做一次性的大量扫描（每个键先查再放），返回热点键是否仍在缓存中
+     */
+    private static boolean survivesScan(ResultCache.EvictionPolicy policy) {
+        ResultCache cache = new ResultCache(16, policy, SERIALIZERS);
+        CacheKey hot = cache.keyFor(longLived, request(-1, JSONSerializer.SERIALIZER_ID));
+        cache.put(hot, response("hot"));
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(cache.get(hot));
+        }
+        for (int id = 0; id < 1000; id++) {
+            CacheKey key = cache.keyFor(longLived, request(id, JSONSerializer.SERIALIZER_ID));
+            if (cache.get(key) == null) {
+                cache.put(key, response("l" + id));
+            }
+        }
+        if (policy == ResultCache.EvictionPolicy.TINY_LFU) {
+            assertTrue(cache.getRejections() > 0);
+        }
+        return cache.get(hot) != null;
+    }
+
+    private static RpcRequest request(int id, byte serializerId) {
+        RpcRequest request = new RpcRequest();
+        request.setInterfaceName(LookupService.class.getName());
+        request.setParameterTypes(new Class<?>[]{int.class});
+        request.setParameters(new Object[]{id});
+        request.setSerializerId(serializerId);
+        return request;
+    }
+
+    private static RpcResponse response(String result) {
+        RpcResponse response = new RpcResponse();
+        response.setResult(result);
+        response.setSerializerId(JSONSerializer.SERIALIZER_ID);
+        return response;
+    }
+}
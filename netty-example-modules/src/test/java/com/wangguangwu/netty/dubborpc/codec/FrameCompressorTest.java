@@ -0,0 +1,153 @@
+package com.wangguangwu.netty.dubborpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.DecompressionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FrameCompressor 测试：跨越32KB分块边界的往返压缩、不可压缩数据，以及非法块长度的拒绝
+ *
+ * @author wangguangwu
+ */
+class FrameCompressorTest {
+
+    /**
+     * 消息体之前的协议头长度
+     */
+    private static final int HEADER_LENGTH = 18;
+
+    private final ByteBufAllocator alloc = ByteBufAllocator.DEFAULT;
+
+    private final FrameCompressor compressor = new FrameCompressor(FrameCompressor.DEFAULT_THRESHOLD);
+
+    @ParameterizedTest
+    @ValueSource(ints = {2048, 32 * 1024 - 1, 32 * 1024, 32 * 1024 + 1, 64 * 1024, 100 * 1024, 1024 * 1024})
+    void roundTripsAcrossBlockBoundaries(int size) {
+        byte[] body = compressible(size);
+        ByteBuf frame = frame(body);
+        try {
+            assertTrue(compressor.compress(alloc, frame, HEADER_LENGTH));
+            assertTrue(frame.readableBytes() - HEADER_LENGTH < size);
+            assertEquals(size, decompressed(frame).length);
+            assertArrayEquals(body, decompressed(frame));
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Test
+    void leavesIncompressibleBodyUntouched() {
+        byte[] body = new byte[100 * 1024];
+        new Random(7).nextBytes(body);
+        ByteBuf frame = frame(body);
+        try {
+            assertFalse(compressor.compress(alloc, frame, HEADER_LENGTH));
+            assertArrayEquals(body, ByteBufUtil.getBytes(frame, HEADER_LENGTH, frame.readableBytes() - HEADER_LENGTH));
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Test
+    void skipsBodiesBelowThresholdOrWhenDisabled() {
+        ByteBuf small = frame(compressible(FrameCompressor.DEFAULT_THRESHOLD - 1));
+        ByteBuf large = frame(compressible(64 * 1024));
+        try {
+            assertFalse(compressor.compress(alloc, small, HEADER_LENGTH));
+            assertFalse(new FrameCompressor(0).compress(alloc, large, HEADER_LENGTH));
+            assertEquals(HEADER_LENGTH + 64 * 1024, large.readableBytes());
+        } finally {
+            small.release();
+            large.release();
+        }
+    }
+
+    @Test
+    void rejectsBadBlockLengths() {
+        // 块长度为0
+        assertRejected(Unpooled.buffer().writeInt(0));
+        // 块长度为负数
+        assertRejected(Unpooled.buffer().writeInt(-1).writeBytes(new byte[8]));
+        // 块长度超过剩余字节
+        assertRejected(Unpooled.buffer().writeInt(100).writeBytes(new byte[10]));
+        // 不足4字节的块长度
+        assertRejected(Unpooled.buffer().writeBytes(new byte[]{0, 0, 1}));
+        // 声明的原始长度超过单块上限：varint 编码的 64KB
+        assertRejected(Unpooled.buffer().writeInt(3).writeBytes(new byte[]{(byte) 0x80, (byte) 0x80, 0x04}));
+    }
+
+    @Test
+    void rejectsCorruptedLengthPrefixOfRealFrame() {
+        ByteBuf frame = frame(compressible(100 * 1024));
+        try {
+            assertTrue(compressor.compress(alloc, frame, HEADER_LENGTH));
+            frame.setInt(HEADER_LENGTH, Integer.MAX_VALUE);
+            assertRejected(frame.retainedSlice(HEADER_LENGTH, frame.readableBytes() - HEADER_LENGTH));
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Test
+    void tracksPeerSupportPerChannel() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        assertFalse(FrameCompressor.isPeerSupported(channel));
+        FrameCompressor.markPeerSupported(channel);
+        assertTrue(FrameCompressor.isPeerSupported(channel));
+        assertFalse(FrameCompressor.isPeerSupported(new EmbeddedChannel()));
+    }
+
+    private void assertRejected(ByteBuf body) {
+        try {
+            assertThrows(DecompressionException.class, () -> compressor.decompress(alloc, body));
+        } finally {
+            body.release();
+        }
+    }
+
+    /**
+     * 解压帧中的消息体
+     */
+    private byte[] decompressed(ByteBuf frame) {
+        ByteBuf body = frame.slice(HEADER_LENGTH, frame.readableBytes() - HEADER_LENGTH);
+        ByteBuf out = compressor.decompress(alloc, body);
+        try {
+            return ByteBufUtil.getBytes(out);
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * 构造协议头 + 消息体的帧
+     */
+    private static ByteBuf frame(byte[] body) {
+        return Unpooled.buffer().writeZero(HEADER_LENGTH).writeBytes(body);
+    }
+
+    /**
+     * 类似 JSON 响应的可压缩内容
+     */
+    private static byte[] compressible(int size) {
+        StringBuilder text = new StringBuilder(size + 64);
+        for (int i = 0; text.length() < size; i++) {
+            text.append("{\"id\":").append(i).append(",\"name\":\"user-").append(i % 97).append("\"},");
+        }
+        return text.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,81 @@
+package com.wangguangwu.netty.dubborpc.codec;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RpcDecoder 测试：协议头声明的消息体长度超过上限时不等待消息体，拒绝后关闭连接
+ *
+ * @author wangguangwu
+ */
+class RpcDecoderTest {
+
+    private static final int OVERSIZED = 64 * 1024 * 1024;
+
+    @Test
+    void rejectsOversizedRequestFromHeaderAndCloses() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RpcDecoder(RpcRequest.class, SerializerRegistry.getINSTANCE()));
+        channel.writeInbound(header(RpcProtocol.TYPE_REQUEST, 42L, OVERSIZED));
+
+        assertNull(channel.readInbound());
+        RpcResponse response = channel.readOutbound();
+        assertEquals(42L, response.getRequestId());
+        assertEquals(RpcProtocol.STATUS_BAD_REQUEST, response.getStatus());
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void closesOnOversizedResponseWithoutReplying() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RpcDecoder(RpcResponse.class, SerializerRegistry.getINSTANCE()));
+        channel.writeInbound(header(RpcProtocol.TYPE_RESPONSE, 7L, OVERSIZED));
+
+        assertNull(channel.readInbound());
+        assertNull(channel.readOutbound());
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void closesOnOversizedLegacyFrame() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RpcDecoder(RpcRequest.class, SerializerRegistry.getINSTANCE()));
+        channel.writeInbound(Unpooled.buffer().writeInt(OVERSIZED).writeByte('{'));
+
+        assertNull(channel.readInbound());
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void waitsForBodyWithinLimit() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RpcDecoder(RpcRequest.class, SerializerRegistry.getINSTANCE()));
+        channel.writeInbound(header(RpcProtocol.TYPE_REQUEST, 1L, 1024));
+
+        assertNull(channel.readInbound());
+        assertNull(channel.readOutbound());
+        assertTrue(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * 构造只有协议头、不带消息体的帧
+     */
+    private static ByteBuf header(byte messageType, long requestId, int dataLength) {
+        return Unpooled.buffer(RpcProtocol.HEADER_LENGTH)
+                .writeShort(RpcProtocol.MAGIC)
+                .writeByte(RpcProtocol.VERSION)
+                .writeByte(messageType)
+                .writeByte(SerializerRegistry.getINSTANCE().getDefaultSerializer().getSerializerId())
+                .writeByte(0)
+                .writeLong(requestId)
+                .writeInt(dataLength);
+    }
+}
@@ -0,0 +1,124 @@
+package com.wangguangwu.netty.dubborpc.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GradientConcurrencyLimiter 测试：满负载且耗时稳定时限值增长，耗时变长或下游丢弃时收缩
+ * 每个采样窗口100ms，测试按真实时间推进窗口
+ *
+ * @author wangguangwu
+ */
+class GradientConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void rejectsBeyondLimit() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(10, 8, 100);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(10, limiter.getInFlight());
+
+        limiter.onSuccess(FAST);
+        assertEquals(9, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void growsUnderFullLoadWithStableLatency() throws InterruptedException {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(20, 8, 1000);
+        int previous = limiter.getLimit();
+        for (int window = 0; window < 4; window++) {
+            runWindow(limiter, FAST);
+            int current = limiter.getLimit();
+            assertTrue(current >= previous, "限值不应收缩: " + previous + " -> " + current);
+            previous = current;
+        }
+        // 每个窗口约增长 0.2 * sqrt(limit)
+        assertTrue(previous >= 23, "限值应增长: " + previous);
+    }
+
+    @Test
+    void doesNotGrowWhenLightlyLoaded() throws InterruptedException {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(100, 8, 1000);
+        for (int window = 0; window < 3; window++) {
+            sleepPastWindow();
+            // 每次只有一个请求在途，远不到限值的一半
+            for (int i = 0; i < 20; i++) {
+                assertTrue(limiter.tryAcquire());
+                limiter.onSuccess(FAST);
+            }
+        }
+        assertEquals(100, limiter.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() throws InterruptedException {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(50, 8, 1000);
+        runWindow(limiter, FAST);
+        int beforeQueueing = limiter.getLimit();
+
+        runWindow(limiter, SLOW);
+        int afterFirst = limiter.getLimit();
+        assertTrue(afterFirst < beforeQueueing, "限值应收缩: " + beforeQueueing + " -> " + afterFirst);
+
+        for (int window = 0; window < 5; window++) {
+            runWindow(limiter, SLOW);
+        }
+        assertTrue(limiter.getLimit() < afterFirst);
+        assertTrue(limiter.getLimit() >= 8);
+    }
+
+    @Test
+    void backsOffAfterDownstreamDrop() throws InterruptedException {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(100, 8, 1000);
+        assertTrue(limiter.tryAcquire());
+        limiter.onDropped();
+        assertEquals(0, limiter.getInFlight());
+
+        sleepPastWindow();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.onSuccess(FAST);
+        }
+        assertEquals(90, limiter.getLimit());
+    }
+
+    @Test
+    void rejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new GradientConcurrencyLimiter(5, 8, 100));
+        assertThrows(IllegalArgumentException.class, () -> new GradientConcurrencyLimiter(200, 8, 100));
+        assertThrows(IllegalArgumentException.class, () -> new GradientConcurrencyLimiter(10, 0, 100));
+    }
+
+    /**
+     * 一个完整的采样窗口：占满限值，除最后一个外都在窗口结束前完成，窗口结束后完成最后一个请求触发调整，
+     * 保证本窗口的全部样本都计入这次调整
+     */
+    private static void runWindow(GradientConcurrencyLimiter limiter, long latencyNanos) throws InterruptedException {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 1; i < acquired; i++) {
+            limiter.onSuccess(latencyNanos);
+        }
+        sleepPastWindow();
+        limiter.onSuccess(latencyNanos);
+    }
+
+    private static void sleepPastWindow() throws InterruptedException {
+        Thread.sleep(120);
+    }
+}
@@ -0,0 +1,281 @@
+package com.wangguangwu.netty.dubborpc.serialize;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BinarySerializer 测试：各类型标签的往返编解码，以及畸形输入和白名单外类型的拒绝
+ *
+ * @author wangguangwu
+ */
+class BinarySerializerTest {
+
+    private static final byte MSG_VALUE = 3;
+    private static final byte TAG_BYTE_ARRAY = 11;
+    private static final byte TAG_DOUBLE_ARRAY = 15;
+    private static final byte TAG_LIST = 17;
+    private static final byte TAG_MAP = 18;
+    private static final byte TAG_OBJECT = 19;
+
+    private final BinarySerializer serializer = new BinarySerializer();
+
+    /**
+     * 测试用的服务接口，注册后 Point 进入类型白名单
+     */
+    interface PointService {
+        Point move(Point point, int dx);
+
+        List<Point> path(Point[] points);
+    }
+
+    /**
+     * 测试用的值对象
+     */
+    public static class Point {
+
+        private int x;
+
+        private String label;
+
+        public Point() {
+        }
+
+        Point(int x, String label) {
+            this.x = x;
+            this.label = label;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public void setX(int x) {
+            this.x = x;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public void setLabel(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Point p && p.x == x && Objects.equals(p.label, label);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(x, label);
+        }
+    }
+
+    @BeforeAll
+    static void allowPointService() {
+        TypeAllowlist.getINSTANCE().allowService(PointService.class);
+    }
+
+    @Test
+    void roundTripsScalarTags() {
+        assertNull(roundTrip(null));
+        assertEquals(Boolean.TRUE, roundTrip(true));
+        assertEquals(Boolean.FALSE, roundTrip(false));
+        assertEquals((byte) -7, roundTrip((byte) -7));
+        assertEquals((short) 12345, roundTrip((short) 12345));
+        assertEquals('中', roundTrip('中'));
+        assertEquals(Integer.MIN_VALUE, roundTrip(Integer.MIN_VALUE));
+        assertEquals(-1, roundTrip(-1));
+        assertEquals(Long.MAX_VALUE, roundTrip(Long.MAX_VALUE));
+        assertEquals(1.5f, roundTrip(1.5f));
+        assertEquals(-0.25d, roundTrip(-0.25d));
+        assertEquals("héllo, 世界", roundTrip("héllo, 世界"));
+    }
+
+    @Test
+    void roundTripsArrayTags() {
+        assertArrayEquals(new byte[]{1, -2, 3}, (byte[]) roundTrip(new byte[]{1, -2, 3}));
+        assertArrayEquals(new boolean[]{true, false}, (boolean[]) roundTrip(new boolean[]{true, false}));
+        assertArrayEquals(new int[]{0, -1, Integer.MAX_VALUE}, (int[]) roundTrip(new int[]{0, -1, Integer.MAX_VALUE}));
+        assertArrayEquals(new long[]{Long.MIN_VALUE, 42}, (long[]) roundTrip(new long[]{Long.MIN_VALUE, 42}));
+        assertArrayEquals(new double[]{0.5, -3}, (double[]) roundTrip(new double[]{0.5, -3}));
+
+        Object strings = roundTrip(new String[]{"a", null, "c"});
+        assertTrue(strings instanceof String[]);
+        assertArrayEquals(new String[]{"a", null, "c"}, (String[]) strings);
+
+        Object points = roundTrip(new Point[]{new Point(1, "p")});
+        assertTrue(points instanceof Point[]);
+        assertArrayEquals(new Point[]{new Point(1, "p")}, (Point[]) points);
+    }
+
+    @Test
+    void roundTripsCollectionsAndObjects() {
+        List<Object> list = Arrays.asList("x", 1, null, List.of(2L));
+        assertEquals(list, roundTrip(list));
+
+        Map<Object, Object> map = new LinkedHashMap<>();
+        map.put("k", 1);
+        map.put(2, Arrays.asList("v", null));
+        assertEquals(map, roundTrip(map));
+
+        assertEquals(new Point(3, "three"), roundTrip(new Point(3, "three")));
+    }
+
+    @Test
+    void roundTripsRequestAndResponse() {
+        RpcRequest request = new RpcRequest();
+        request.setInterfaceName(PointService.class.getName());
+        request.setMethodName("move");
+        request.setMethodId(7);
+        request.setParameterTypes(new Class<?>[]{Point.class, int.class});
+        request.setParameters(new Object[]{new Point(1, "a"), 5});
+
+        RpcRequest decoded = serializer.deserialize(serializer.serialize(request), RpcRequest.class);
+        assertEquals(request.getInterfaceName(), decoded.getInterfaceName());
+        assertEquals("move", decoded.getMethodName());
+        assertEquals(7, decoded.getMethodId());
+        assertArrayEquals(request.getParameterTypes(), decoded.getParameterTypes());
+        assertArrayEquals(request.getParameters(), decoded.getParameters());
+
+        RpcResponse response = new RpcResponse();
+        response.setErrorMessage("boom");
+        response.setResult(List.of(new Point(2, "b")));
+        RpcResponse decodedResponse = serializer.deserialize(serializer.serialize(response), RpcResponse.class);
+        assertEquals("boom", decodedResponse.getErrorMessage());
+        assertEquals(List.of(new Point(2, "b")), decodedResponse.getResult());
+    }
+
+    @Test
+    void rejectsNegativeLength() {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeByte(MSG_VALUE).writeByte(TAG_BYTE_ARRAY);
+        // varint 编码的 -1
+        buf.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+        assertThrows(IllegalArgumentException.class, () -> serializer.deserialize(buf, Object.class));
+    }
+
+    @Test
+    void rejectsLengthsBeyondRemainingBytes() {
+        assertThrows(IllegalArgumentException.class,
+                () -> serializer.deserialize(frame(TAG_BYTE_ARRAY, 1_000_000, 1, 2, 3), Object.class));
+        // 每个 double 占8字节，3个元素需要24字节
+        assertThrows(IllegalArgumentException.class,
+                () -> serializer.deserialize(frame(TAG_DOUBLE_ARRAY, 3, 0, 0, 0, 0, 0, 0, 0, 0), Object.class));
+        assertThrows(IllegalArgumentException.class,
+                () -> serializer.deserialize(frame(TAG_LIST, Integer.MAX_VALUE, 0), Object.class));
+        // 每个键值对至少两个字节
+        assertThrows(IllegalArgumentException.class,
+                () -> serializer.deserialize(frame(TAG_MAP, 2, 0, 0, 0), Object.class));
+    }
+
+    @Test
+    void rejectsNestingBeyondMaxDepth() {
+        // 每层只需两个字节：List 标签 + 长度1，没有深度限制时会递归到栈溢出
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeByte(MSG_VALUE);
+        for (int i = 0; i < 100_000; i++) {
+            buf.writeByte(TAG_LIST).writeByte(1);
+        }
+        buf.writeByte(0);
+        assertThrows(IllegalArgumentException.class, () -> serializer.deserialize(buf, Object.class));
+    }
+
+    @Test
+    void roundTripsNestingUpToMaxDepth() {
+        List<Object> nested = new ArrayList<>();
+        List<Object> innermost = nested;
+        for (int i = 0; i < BinarySerializer.MAX_DEPTH; i++) {
+            List<Object> child = new ArrayList<>();
+            innermost.add(child);
+            innermost = child;
+        }
+        assertEquals(nested, roundTrip(nested));
+
+        // 再多一层时编码端直接拒绝
+        innermost.add(new ArrayList<>());
+        assertThrows(IllegalArgumentException.class, () -> serializer.serialize(nested));
+    }
+
+    @Test
+    void rejectsSelfReferencingValueOnWrite() {
+        List<Object> self = new ArrayList<>();
+        self.add(self);
+        assertThrows(IllegalArgumentException.class, () -> serializer.serialize(self));
+    }
+
+    @Test
+    void rejectsUnknownTag() {
+        assertThrows(IllegalArgumentException.class,
+                () -> serializer.deserialize(frame((byte) 99), Object.class));
+    }
+
+    @Test
+    void rejectsClassesOutsideAllowlist() {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeByte(MSG_VALUE).writeByte(TAG_OBJECT);
+        byte[] name = "java.lang.ProcessBuilder".getBytes(StandardCharsets.UTF_8);
+        buf.writeByte(name.length + 1).writeBytes(name);
+        byte[] json = "{}".getBytes(StandardCharsets.UTF_8);
+        buf.writeByte(json.length).writeBytes(json);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> serializer.deserialize(buf, Object.class));
+        assertTrue(e.getMessage().contains("java.lang.ProcessBuilder"));
+    }
+
+    @Test
+    void rejectsRequestParameterTypesOutsideAllowlist() {
+        RpcRequest request = new RpcRequest();
+        request.setInterfaceName("x.Service");
+        request.setMethodName("run");
+        request.setParameterTypes(new Class<?>[]{Thread.class});
+        request.setParameters(new Object[]{null});
+
+        byte[] bytes = serializer.serialize(request);
+        assertThrows(IllegalArgumentException.class, () -> serializer.deserialize(bytes, RpcRequest.class));
+    }
+
+    private Object roundTrip(Object value) {
+        return serializer.deserialize(serializer.serialize(value), Object.class);
+    }
+
+    /**
+     * 构造 MSG_VALUE 帧：标签 + 单字节或多字节的 varint 长度 + 其余字节
+     */
+    private static ByteBuf frame(byte tag, int... rest) {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeByte(MSG_VALUE).writeByte(tag);
+        if (rest.length > 0) {
+            int length = rest[0];
+            while ((length & ~0x7F) != 0) {
+                buf.writeByte((length & 0x7F) | 0x80);
+                length >>>= 7;
+            }
+            buf.writeByte(length);
+            for (int i = 1; i < rest.length; i++) {
+                buf.writeByte(rest[i]);
+            }
+        }
+        return buf;
+    }
+}
@@ -0,0 +1,39 @@
+package com.wangguangwu.netty.dubborpc.serialize;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SerializerRegistry 测试：registerIfAbsent 对相同ID、不同类型序列化器的处理
+ *
+ * @author wangguangwu
+ */
+class SerializerRegistryTest {
+
+    private final SerializerRegistry registry = SerializerRegistry.getINSTANCE();
+
+    /**
+     * 占用二进制序列化器ID的另一种序列化器
+     */
+    static class ConflictingSerializer extends JSONSerializer {
+        @Override
+        public byte getSerializerId() {
+            return BinarySerializer.SERIALIZER_ID;
+        }
+    }
+
+    @Test
+    void returnsExistingSerializerOfSameKind() {
+        Serializer existing = registry.getSerializer(BinarySerializer.SERIALIZER_ID);
+        assertSame(existing, registry.registerIfAbsent(new BinarySerializer()));
+    }
+
+    @Test
+    void rejectsDifferentSerializerWithSameId() {
+        Serializer existing = registry.getSerializer(BinarySerializer.SERIALIZER_ID);
+        assertThrows(IllegalArgumentException.class, () -> registry.registerIfAbsent(new ConflictingSerializer()));
+        assertSame(existing, registry.getSerializer(BinarySerializer.SERIALIZER_ID));
+    }
+}
@@ -0,0 +1,135 @@
+package com.wangguangwu.netty.dubborpc.transport;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * FlushCoalescingHandler 测试：统计实际到达网络一侧的 flush 次数
+ *
+ * @author wangguangwu
+ */
+class FlushCoalescingHandlerTest {
+
+    private final FlushStats stats = new FlushStats();
+
+    /**
+     * 代替网络一侧，统计写入的消息数和实际执行的 flush 次数
+     * 写入不再向 EmbeddedChannel 的 head 传递，因为 head 每次写入都会执行挂起的任务，提前触发合并后的 flush
+     */
+    static class FlushCounter extends ChannelOutboundHandlerAdapter {
+
+        int writes;
+
+        int flushes;
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            writes++;
+            promise.setSuccess();
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            flushes++;
+        }
+    }
+
+    /**
+     * 每读到一条消息就回写一条并 flush，模拟服务端逐条响应
+     */
+    static class EchoHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.writeAndFlush(msg);
+        }
+    }
+
+    @Test
+    void coalescesFlushesWithinOneEventLoopTask() {
+        FlushCounter counter = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(counter, new FlushCoalescingHandler(256, 0, stats));
+
+        for (int i = 0; i < 3; i++) {
+            channel.pipeline().writeAndFlush("m" + i);
+        }
+        assertEquals(0, counter.flushes);
+
+        channel.runPendingTasks();
+        assertEquals(1, counter.flushes);
+        assertEquals(3, stats.getMessages());
+        assertEquals(1, stats.getFlushes());
+        assertEquals(3, counter.writes);
+    }
+
+    @Test
+    void defersFlushesDuringReadUntilReadComplete() {
+        FlushCounter counter = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(
+                counter, new FlushCoalescingHandler(256, 0, stats), new EchoHandler());
+
+        channel.writeInbound("a", "b", "c", "d");
+        assertEquals(1, counter.flushes);
+        assertEquals(4, stats.getMessages());
+        assertEquals(4.0, stats.getMessagesPerFlush());
+    }
+
+    @Test
+    void flushesImmediatelyWhenPendingLimitReached() {
+        FlushCounter counter = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(counter, new FlushCoalescingHandler(2, 0, stats));
+
+        for (int i = 0; i < 5; i++) {
+            channel.pipeline().writeAndFlush("m" + i);
+        }
+        // 第2、4条消息达到上限立即 flush，第5条等事件循环末尾
+        assertEquals(2, counter.flushes);
+        channel.runPendingTasks();
+        assertEquals(3, counter.flushes);
+        assertEquals(5, stats.getMessages());
+    }
+
+    @Test
+    void limitOfOneDisablesCoalescing() {
+        FlushCounter counter = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(counter, new FlushCoalescingHandler(1, 0, stats));
+
+        for (int i = 0; i < 4; i++) {
+            channel.pipeline().writeAndFlush("m" + i);
+        }
+        assertEquals(4, counter.flushes);
+        assertEquals(1.0, stats.getMessagesPerFlush());
+    }
+
+    @Test
+    void waitsForConfiguredWindow() throws InterruptedException {
+        FlushCounter counter = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(counter, new FlushCoalescingHandler(256, 20_000, stats));
+
+        channel.pipeline().writeAndFlush("m0");
+        channel.pipeline().writeAndFlush("m1");
+        channel.runPendingTasks();
+        assertEquals(0, counter.flushes);
+
+        Thread.sleep(50);
+        channel.runScheduledPendingTasks();
+        assertEquals(1, counter.flushes);
+        assertEquals(2, stats.getMessages());
+    }
+
+    @Test
+    void closeFlushesPendingWrites() {
+        FlushCounter counter = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(counter, new FlushCoalescingHandler(256, 0, stats));
+
+        channel.pipeline().writeAndFlush("m0");
+        channel.pipeline().close();
+        assertEquals(1, counter.flushes);
+        assertEquals(1, stats.getFlushes());
+    }
+}
@@ -0,0 +1,103 @@
+package com.wangguangwu.netty.dubborpc.transport;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * InFlightRequestTable 测试：添加、移除、条件移除和全部移除
+ *
+ * @author wangguangwu
+ */
+class InFlightRequestTableTest {
+
+    private final InFlightRequestTable table = new InFlightRequestTable();
+
+    @Test
+    void putGetAndRemove() {
+        RpcFuture future = newFuture();
+        table.put(1L, future);
+        assertSame(future, table.get(1L));
+        assertEquals(1, table.size());
+
+        assertSame(future, table.remove(1L));
+        assertNull(table.get(1L));
+        assertNull(table.remove(1L));
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    void putOverwritesSameId() {
+        RpcFuture first = newFuture();
+        RpcFuture second = newFuture();
+        table.put(7L, first);
+        table.put(7L, second);
+        assertSame(second, table.get(7L));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void conditionalRemoveOnlyMatchesExpectedFuture() {
+        RpcFuture future = newFuture();
+        table.put(3L, future);
+        assertFalse(table.remove(3L, newFuture()));
+        assertSame(future, table.get(3L));
+        assertTrue(table.remove(3L, future));
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    void removeAllDrainsEveryStripe() {
+        Set<RpcFuture> added = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (long id = 1; id <= 1000; id++) {
+            RpcFuture future = newFuture();
+            table.put(id, future);
+            added.add(future);
+        }
+        assertEquals(1000, table.size());
+
+        List<RpcFuture> removed = table.removeAll();
+        assertEquals(1000, removed.size());
+        assertTrue(added.containsAll(removed));
+        assertTrue(table.isEmpty());
+        assertNull(table.get(500L));
+    }
+
+    @Test
+    void matchesReferenceMapUnderRandomOperations() {
+        // 大量随机增删，覆盖扩容和删除时探测链前移
+        Map<Long, RpcFuture> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long id = random.nextInt(4096);
+            if (random.nextBoolean()) {
+                RpcFuture future = newFuture();
+                table.put(id, future);
+                expected.put(id, future);
+            } else {
+                assertSame(expected.remove(id), table.remove(id));
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (long id = 0; id < 4096; id++) {
+            assertSame(expected.get(id), table.get(id));
+        }
+    }
+
+    private static RpcFuture newFuture() {
+        return new RpcFuture(new RpcRequest());
+    }
+}
@@ -0,0 +1,71 @@
+package com.wangguangwu.netty.dubborpc.transport;
+
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * RpcRequestManager 测试：时间轮超时、响应先于超时到达以及连接断开时全部失败
+ *
+ * @author wangguangwu
+ */
+class RpcRequestManagerTest {
+
+    private final RpcRequestManager manager = new RpcRequestManager();
+
+    @Test
+    void expiresRequestOnTimer() {
+        long requestId = manager.nextRequestId();
+        RpcFuture future = new RpcFuture(new RpcRequest());
+        manager.registerRequest(requestId, future, 50);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> future.toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertNull(manager.getRequest(requestId));
+        assertEquals(1, manager.getTimeoutCount());
+    }
+
+    @Test
+    void responseBeforeTimeoutIsNotCountedAsTimeout() throws Exception {
+        long requestId = manager.nextRequestId();
+        RpcFuture future = new RpcFuture(new RpcRequest());
+        manager.registerRequest(requestId, future, 50);
+
+        RpcResponse response = new RpcResponse();
+        manager.notifyResponse(requestId, response);
+        assertSame(response, future.toCompletableFuture().get(1, TimeUnit.SECONDS));
+
+        // 等过原定的超时时刻，超时任务已取消，不会再计数
+        Thread.sleep(200);
+        assertEquals(0, manager.getTimeoutCount());
+    }
+
+    @Test
+    void failAllCompletesEveryPendingRequest() {
+        RpcFuture first = new RpcFuture(new RpcRequest());
+        RpcFuture second = new RpcFuture(new RpcRequest());
+        manager.registerRequest(manager.nextRequestId(), first);
+        manager.registerRequest(manager.nextRequestId(), second);
+
+        IllegalStateException cause = new IllegalStateException("连接已断开");
+        assertEquals(2, manager.failAll(cause));
+        for (RpcFuture future : new RpcFuture[]{first, second}) {
+            CompletableFuture<RpcResponse> completion = future.toCompletableFuture();
+            ExecutionException e = assertThrows(ExecutionException.class, completion::get);
+            assertSame(cause, e.getCause());
+        }
+        assertEquals(0, manager.getTimeoutCount());
+    }
+}
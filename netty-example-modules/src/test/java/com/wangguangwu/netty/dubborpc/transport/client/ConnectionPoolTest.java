@@ -0,0 +1,193 @@
+package com.wangguangwu.netty.dubborpc.transport.client;
+
+import com.wangguangwu.netty.dubborpc.serialize.SerializerRegistry;
+import com.wangguangwu.netty.dubborpc.transport.FlushStats;
+import com.wangguangwu.netty.transport.NettyTransport;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ConnectionPool 测试：重连等待时间的指数退避，连接断开、服务端重启后的自动重连，以及连接失败或关闭后再次连接
+ *
+ * @author wangguangwu
+ */
+class ConnectionPoolTest {
+
+    private final EventLoopGroup group = NettyTransport.newEventLoopGroup(1);
+
+    /**
+     * 服务端接受的全部连接
+     */
+    private final ChannelGroup children = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+
+    @AfterEach
+    void shutdown() {
+        System.clearProperty(ConnectionPool.RECONNECT_INITIAL_DELAY_PROPERTY);
+        System.clearProperty(ConnectionPool.RECONNECT_MAX_DELAY_PROPERTY);
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void reconnectDelayDoublesUntilCapWithJitter() {
+        ConnectionPool pool = new ConnectionPool("127.0.0.1", 1, 1);
+        // 默认首次100ms、最长10秒，抖动至多减少20%
+        for (int attempt = 0; attempt < 64; attempt++) {
+            long base = attempt >= 30 ? 10_000 : Math.min(10_000, 100L << attempt);
+            for (int i = 0; i < 20; i++) {
+                long delay = pool.reconnectDelay(attempt);
+                assertTrue(delay <= base && delay >= base - base / 5,
+                        "attempt=" + attempt + ", delay=" + delay);
+            }
+        }
+    }
+
+    @Test
+    void reconnectDelayHonoursSystemProperties() {
+        System.setProperty(ConnectionPool.RECONNECT_INITIAL_DELAY_PROPERTY, "10");
+        System.setProperty(ConnectionPool.RECONNECT_MAX_DELAY_PROPERTY, "50");
+        ConnectionPool pool = new ConnectionPool("127.0.0.1", 1, 1);
+        assertTrue(pool.reconnectDelay(0) <= 10);
+        assertTrue(pool.reconnectDelay(2) <= 40 && pool.reconnectDelay(2) >= 32);
+        assertTrue(pool.reconnectDelay(10) <= 50 && pool.reconnectDelay(10) >= 40);
+    }
+
+    @Test
+    void reconnectsAfterConnectionDropAndServerRestart() throws Exception {
+        System.setProperty(ConnectionPool.RECONNECT_INITIAL_DELAY_PROPERTY, "20");
+        System.setProperty(ConnectionPool.RECONNECT_MAX_DELAY_PROPERTY, "200");
+        BlockingQueue<Channel> accepted = new LinkedBlockingQueue<>();
+        Channel server = startServer(0, accepted);
+        int port = ((InetSocketAddress) server.localAddress()).getPort();
+
+        ConnectionPool pool = new ConnectionPool("127.0.0.1", port, 2);
+        pool.connect(NettyTransport.newBootstrap(group), SerializerRegistry.getINSTANCE().getDefaultSerializer(),
+                SerializerRegistry.getINSTANCE(), new FlushStats());
+        try {
+            assertEquals(2, pool.getActiveCount());
+
+            // 服务端关闭其中一条连接：请求改走另一条，之后自动重连
+            Channel first = accepted.poll(5, TimeUnit.SECONDS);
+            assertNotNull(first);
+            assertNotNull(accepted.poll(5, TimeUnit.SECONDS));
+            first.close().sync();
+            awaitTrue(() -> pool.getActiveCount() == 1);
+            assertNotNull(pool.select());
+            assertNotNull(accepted.poll(5, TimeUnit.SECONDS));
+            awaitTrue(() -> pool.getActiveCount() == 2);
+
+            // 服务端停止：全部连接不可用，重连按退避持续重试，服务端恢复后连接恢复
+            server.close().sync();
+            children.close().sync();
+            awaitTrue(() -> pool.getActiveCount() == 0);
+            assertThrows(IllegalStateException.class, pool::select);
+
+            Thread.sleep(300);
+            server = startServer(port, accepted);
+            awaitTrue(() -> pool.getActiveCount() == 2);
+        } finally {
+            pool.close();
+            server.close().sync();
+        }
+    }
+
+    @Test
+    void connectsAgainAfterFailedConnectOrClose() throws Exception {
+        BlockingQueue<Channel> accepted = new LinkedBlockingQueue<>();
+        // 先占用再释放一个端口，保证连接时端口上没有服务端
+        Channel probe = startServer(0, accepted);
+        int port = ((InetSocketAddress) probe.localAddress()).getPort();
+        probe.close().sync();
+
+        ConnectionPool pool = new ConnectionPool("127.0.0.1", port, 2);
+        assertThrows(Exception.class, () -> connect(pool));
+        assertEquals(0, pool.getActiveCount());
+
+        Channel server = startServer(port, accepted);
+        try {
+            // 服务端启动后再次连接，新连接不会因为上次失败而被关闭
+            connect(pool);
+            assertEquals(2, pool.getActiveCount());
+            Thread.sleep(100);
+            assertEquals(2, pool.getActiveCount());
+            assertNotNull(pool.select());
+
+            // 关闭后再次连接，之后断开的连接照常重连
+            pool.close();
+            awaitTrue(() -> pool.getActiveCount() == 0);
+            connect(pool);
+            assertEquals(2, pool.getActiveCount());
+            children.close().sync();
+            awaitTrue(() -> pool.getActiveCount() == 2);
+        } finally {
+            pool.close();
+            server.close().sync();
+        }
+    }
+
+    private void connect(ConnectionPool pool) throws InterruptedException {
+        pool.connect(NettyTransport.newBootstrap(group), SerializerRegistry.getINSTANCE().getDefaultSerializer(),
+                SerializerRegistry.getINSTANCE(), new FlushStats());
+    }
+
+    /**
+     * 启动一个只接受连接、不处理数据的服务端，接受的连接放入队列
+     */
+    private Channel startServer(int port, BlockingQueue<Channel> accepted) throws InterruptedException {
+        return new ServerBootstrap()
+                .group(group)
+                .channel(NettyTransport.serverChannelClass())
+                .childHandler(new AcceptRecorder(children, accepted))
+                .bind(port).sync().channel();
+    }
+
+    /**
+     * 记录服务端接受的连接
+     */
+    @ChannelHandler.Sharable
+    private static final class AcceptRecorder extends ChannelInboundHandlerAdapter {
+
+        private final ChannelGroup children;
+
+        private final BlockingQueue<Channel> accepted;
+
+        AcceptRecorder(ChannelGroup children, BlockingQueue<Channel> accepted) {
+            this.children = children;
+            this.accepted = accepted;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            children.add(ctx.channel());
+            accepted.add(ctx.channel());
+            ctx.fireChannelActive();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.wangguangwu.netty.dubborpc.transport.server;
+
+import com.wangguangwu.netty.dubborpc.metrics.MethodMetrics;
+import com.wangguangwu.netty.dubborpc.protocol.RpcProtocol;
+import com.wangguangwu.netty.dubborpc.protocol.RpcRequest;
+import com.wangguangwu.netty.dubborpc.protocol.RpcResponse;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ServerStream 测试：发送的元素数不超过客户端授予的信用，结束、取消和异常时正确清理
+ *
+ * @author wangguangwu
+ */
+class ServerStreamTest {
+
+    private static final long REQUEST_ID = 42L;
+
+    private final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+
+    private final LongAdder inFlightRequests = new LongAdder();
+
+    private final Map<Long, ServerStream> streams = new ConcurrentHashMap<>();
+
+    private final MethodMetrics metrics = new MethodMetrics("server", "StreamService", "items");
+
+    private ServerStream stream;
+
+    @BeforeEach
+    void createStream() {
+        RpcRequest request = new RpcRequest();
+        request.setRequestId(REQUEST_ID);
+        request.setMetrics(metrics);
+        request.setStartNanos(System.nanoTime());
+        // 迭代器在当前线程上拉取
+        stream = new ServerStream(channel.pipeline().firstContext(), request, Runnable::run, inFlightRequests, streams);
+        streams.put(REQUEST_ID, stream);
+        inFlightRequests.increment();
+    }
+
+    @Test
+    void iteratorSendsOnlyCreditedItems() {
+        stream.start(items(10));
+        assertTrue(frames().isEmpty());
+
+        stream.addCredits(3);
+        List<RpcResponse> first = frames();
+        assertEquals(3, first.size());
+        assertEquals(List.of(0, 1, 2), results(first));
+        first.forEach(frame -> assertEquals(RpcProtocol.STATUS_STREAM_ITEM, frame.getStatus()));
+
+        stream.addCredits(4);
+        assertEquals(List.of(3, 4, 5, 6), results(frames()));
+
+        // 信用多于剩余元素：发完剩余元素后发送结束帧
+        stream.addCredits(100);
+        List<RpcResponse> rest = frames();
+        assertEquals(4, rest.size());
+        assertEquals(List.of(7, 8, 9), results(rest.subList(0, 3)));
+        assertEquals(RpcProtocol.STATUS_STREAM_END, rest.get(3).getStatus());
+        assertNull(rest.get(3).getErrorMessage());
+
+        assertTrue(streams.isEmpty());
+        assertEquals(0, inFlightRequests.sum());
+        assertEquals(1, metrics.getCalls());
+        assertEquals(0, metrics.getErrors());
+    }
+
+    @Test
+    void publisherReceivesCreditsAsDemand() {
+        RecordingPublisher publisher = new RecordingPublisher();
+        // 订阅前到达的信用先累积，订阅后一次性转交
+        stream.addCredits(2);
+        stream.start(publisher);
+        assertEquals(List.of(2L), publisher.requests);
+
+        stream.addCredits(5);
+        assertEquals(List.of(2L, 5L), publisher.requests);
+
+        publisher.subscriber.onNext("a");
+        publisher.subscriber.onNext("b");
+        publisher.subscriber.onComplete();
+        List<RpcResponse> sent = frames();
+        assertEquals(3, sent.size());
+        assertEquals(List.of("a", "b"), results(sent.subList(0, 2)));
+        assertEquals(RpcProtocol.STATUS_STREAM_END, sent.get(2).getStatus());
+        assertEquals(0, inFlightRequests.sum());
+    }
+
+    @Test
+    void zeroCreditCancelsWithoutEndFrame() {
+        RecordingPublisher publisher = new RecordingPublisher();
+        stream.start(publisher);
+        stream.addCredits(0);
+
+        assertTrue(publisher.cancelled);
+        assertTrue(frames().isEmpty());
+        assertTrue(streams.isEmpty());
+        assertEquals(0, inFlightRequests.sum());
+        // 取消后发布者再发出的元素被丢弃
+        publisher.subscriber.onNext("late");
+        assertTrue(frames().isEmpty());
+    }
+
+    @Test
+    void iteratorFailureEndsStreamWithError() {
+        Iterator<Object> failing = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Object next() {
+                throw new IllegalStateException("boom");
+            }
+        };
+        stream.start(failing);
+        stream.addCredits(1);
+
+        List<RpcResponse> sent = frames();
+        assertEquals(1, sent.size());
+        assertEquals(RpcProtocol.STATUS_STREAM_END, sent.get(0).getStatus());
+        assertEquals("boom", sent.get(0).getErrorMessage());
+        assertEquals(1, metrics.getErrors());
+    }
+
+    private static Iterator<Integer> items(int count) {
+        return IntStream.range(0, count).boxed().iterator();
+    }
+
+    /**
+     * 执行挂起的 flush 后取出已写出的帧
+     */
+    private List<RpcResponse> frames() {
+        channel.runPendingTasks();
+        List<RpcResponse> frames = new ArrayList<>();
+        RpcResponse frame;
+        while ((frame = channel.readOutbound()) != null) {
+            assertEquals(REQUEST_ID, frame.getRequestId());
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    private static List<Object> results(List<RpcResponse> frames) {
+        List<Object> results = new ArrayList<>();
+        for (RpcResponse frame : frames) {
+            results.add(frame.getResult());
+        }
+        return results;
+    }
+
+    /**
+     * 记录 request(n) 和 cancel 调用的发布者，元素由测试手动发出
+     */
+    private static final class RecordingPublisher implements Flow.Publisher<Object> {
+
+        private final List<Long> requests = new ArrayList<>();
+
+        private boolean cancelled;
+
+        private Flow.Subscriber<? super Object> subscriber;
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super Object> subscriber) {
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    requests.add(n);
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+}
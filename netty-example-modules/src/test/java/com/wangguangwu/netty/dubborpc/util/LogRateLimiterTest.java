@@ -0,0 +1,54 @@
+package com.wangguangwu.netty.dubborpc.util;
+
+import io.netty.util.internal.logging.InternalLogLevel;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LogRateLimiter 测试：每个键每秒只记录前N条，下一秒重新计数
+ *
+ * @author wangguangwu
+ */
+class LogRateLimiterTest {
+
+    private final LogRateLimiter limiter = new LogRateLimiter(InternalLoggerFactory.getInstance(LogRateLimiterTest.class), 3);
+
+    @Test
+    void allowsFirstMessagesOfEachSecondPerKey() throws InterruptedException {
+        Object method = new Object();
+        Object otherMethod = new Object();
+        awaitFreshSecond();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(InternalLogLevel.WARN, method));
+        }
+        assertFalse(limiter.tryAcquire(InternalLogLevel.WARN, method));
+        // 不同的键分别计数
+        assertTrue(limiter.tryAcquire(InternalLogLevel.WARN, otherMethod));
+
+        Thread.sleep(1100);
+        assertTrue(limiter.tryAcquire(InternalLogLevel.WARN, method));
+    }
+
+    @Test
+    void sharesOneWindowWithoutKey() throws InterruptedException {
+        awaitFreshSecond();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(InternalLogLevel.ERROR));
+        }
+        assertFalse(limiter.tryAcquire(InternalLogLevel.ERROR));
+        assertFalse(limiter.tryAcquire(InternalLogLevel.ERROR, null));
+    }
+
+    /**
+     * 等到一秒的开头，避免断言跨过秒的边界
+     */
+    private static void awaitFreshSecond() throws InterruptedException {
+        long nanosIntoSecond = System.nanoTime() % 1_000_000_000L;
+        if (nanosIntoSecond > 500_000_000L) {
+            Thread.sleep((1_000_000_000L - nanosIntoSecond) / 1_000_000L + 1);
+        }
+    }
+}